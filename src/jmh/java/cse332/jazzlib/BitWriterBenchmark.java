@@ -0,0 +1,198 @@
+package cse332.jazzlib;
+
+import datastructures.worklists.CircularByteArrayFIFOQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the bit writer under HuffmanCompressor.compressBlock: the codes
+ * and extra bits of a whole corpus, encoded with the static trees, are
+ * written once through PendingBuffer and once through LegacyBitWriter, the
+ * writer PendingBuffer had before.  Both see the same writes, except that
+ * PendingBuffer gets each code that has extra bits together with them in
+ * one writeSymbolWithExtra call, as compressBlock does now.
+ * <p>
+ * The literals and matches are found once, during setup.  Output is
+ * dropped whenever the buffer is nearly full.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BitWriterBenchmark extends DeflaterConstants {
+    @Param({"TEXT", "BINARY", "RANDOM", "REPETITIVE"})
+    public Corpus corpus;
+
+    private static final int[] LENGTH_BASE = {
+        3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31,
+        35, 43, 51, 59, 67, 83, 99, 115, 131, 163, 195, 227, 258
+    };
+
+    private static final int[] DIST_BASE = {
+        1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49, 65, 97, 129, 193,
+        257, 385, 513, 769, 1025, 1537, 2049, 3073, 4097, 6145,
+        8193, 12289, 16385, 24577
+    };
+
+    private byte[] data;
+
+    /* The writes, each a code and its extra bits */
+    private int[] codes;
+    private int[] lengths;
+    private int[] extras;
+    private int[] extraBits;
+    private int count;
+
+    private PendingBuffer pending;
+    private LegacyBitWriter legacy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DeflaterConstants.DEBUGGING = false;
+        this.data = this.corpus.generate(Corpus.SIZE);
+        this.codes = new int[1024];
+        this.lengths = new int[1024];
+        this.extras = new int[1024];
+        this.extraBits = new int[1024];
+        this.record();
+
+        this.pending = new PendingBuffer(PENDING_BUF_SIZE);
+        this.legacy = new LegacyBitWriter(PENDING_BUF_SIZE);
+    }
+
+    /**
+     * Runs HashChainMatchFinder over data and turns what it tallies into
+     * static tree codes.
+     */
+    private void record() {
+        MatchFinder matcher = new HashChainMatchFinder();
+        matcher.setLevel(Deflater.BEST_COMPRESSION);
+        CircularByteArrayFIFOQueue buffer = new CircularByteArrayFIFOQueue(1024);
+        HuffmanCompressor recorder = new HuffmanCompressor(new DeflaterPending()) {
+            @Override
+            public boolean tallyLit(int lit) {
+                addLiteral(lit);
+                return super.tallyLit(lit);
+            }
+
+            @Override
+            public boolean tallyDist(int dist, int len) {
+                addMatch(dist, len);
+                return super.tallyDist(dist, len);
+            }
+        };
+
+        int off = 0;
+        while (off < this.data.length || buffer.hasWork()) {
+            while (off < this.data.length && buffer.size() < MIN_LOOKAHEAD) {
+                off += buffer.addAll(this.data, off, this.data.length - off);
+            }
+            matcher.findNextMatch(buffer, recorder);
+            if (recorder.isFull()) {
+                recorder.reset();
+            }
+        }
+    }
+
+    private void addLiteral(int lit) {
+        if (lit < 144) {
+            this.add(0x030 + lit, 8, 0, 0);
+        } else {
+            this.add(0x190 - 144 + lit, 9, 0, 0);
+        }
+    }
+
+    private void addMatch(int dist, int len) {
+        int lc = LENGTH_BASE.length - 1;
+        while (LENGTH_BASE[lc] > len) {
+            lc--;
+        }
+        int symbol = 257 + lc;
+        int bits = lc < 8 || lc == 28 ? 0 : (lc - 4) / 4;
+        if (symbol < 280) {
+            this.add(symbol - 256, 7, len - LENGTH_BASE[lc], bits);
+        } else {
+            this.add(0x0c0 - 280 + symbol, 8, len - LENGTH_BASE[lc], bits);
+        }
+
+        int dc = DIST_BASE.length - 1;
+        while (DIST_BASE[dc] > dist) {
+            dc--;
+        }
+        this.add(dc, 5, dist - DIST_BASE[dc], Math.max(dc / 2 - 1, 0));
+    }
+
+    private void add(int code, int length, int extra, int bits) {
+        if (this.count == this.codes.length) {
+            this.codes = Arrays.copyOf(this.codes, 2 * this.count);
+            this.lengths = Arrays.copyOf(this.lengths, 2 * this.count);
+            this.extras = Arrays.copyOf(this.extras, 2 * this.count);
+            this.extraBits = Arrays.copyOf(this.extraBits, 2 * this.count);
+        }
+        this.codes[this.count] = HuffmanCompressor.bitReverse(code << (16 - length)) & 0xffff;
+        this.lengths[this.count] = length;
+        this.extras[this.count] = extra;
+        this.extraBits[this.count] = bits;
+        this.count++;
+    }
+
+    @Benchmark
+    public int pendingBuffer(BytesProcessed processed) {
+        PendingBuffer out = this.pending;
+        int limit = out.buf.length - 64;
+        int total = 0;
+
+        out.reset();
+        for (int i = 0; i < this.count; i++) {
+            if (this.extraBits[i] > 0) {
+                out.writeSymbolWithExtra(this.codes[i], this.lengths[i], this.extras[i], this.extraBits[i]);
+            } else {
+                out.writeBits(this.codes[i], this.lengths[i]);
+            }
+            if (out.end > limit) {
+                total += out.end;
+                out.reset();
+            }
+        }
+
+        processed.add(this.data.length);
+        return total + out.end;
+    }
+
+    @Benchmark
+    public int legacy(BytesProcessed processed) {
+        LegacyBitWriter out = this.legacy;
+        int limit = out.buf.length - 64;
+        int total = 0;
+
+        out.reset();
+        for (int i = 0; i < this.count; i++) {
+            out.writeBits(this.codes[i], this.lengths[i]);
+            if (this.extraBits[i] > 0) {
+                out.writeBits(this.extras[i], this.extraBits[i]);
+            }
+            if (out.end > limit) {
+                total += out.end;
+                out.reset();
+            }
+        }
+
+        processed.add(this.data.length);
+        return total + out.end;
+    }
+}
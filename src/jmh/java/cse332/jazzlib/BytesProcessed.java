@@ -0,0 +1,32 @@
+package cse332.jazzlib;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Counts the bytes a benchmark has processed.  JMH reports the counter as a
+ * rate next to the benchmark's own score, which in throughput mode with a
+ * time unit of seconds makes it MB/s.  Only public methods are counters,
+ * which is why add is package-private.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class BytesProcessed {
+    private long bytes;
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        this.bytes = 0;
+    }
+
+    void add(int count) {
+        this.bytes += count;
+    }
+
+    public double megabytes() {
+        return this.bytes / (1024.0 * 1024.0);
+    }
+}
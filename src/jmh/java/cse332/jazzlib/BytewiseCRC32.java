@@ -0,0 +1,49 @@
+package cse332.jazzlib;
+
+/**
+ * The CRC32 as it was before slicing-by-8: one table lookup per byte.  Kept
+ * as the baseline for ChecksumBenchmark.
+ */
+public class BytewiseCRC32 implements Checksum {
+    private static final int[] TABLE = new int[256];
+
+    static {
+        for (int n = 0; n < 256; n++) {
+            int c = n;
+            for (int k = 8; --k >= 0; ) {
+                if ((c & 1) != 0)
+                    c = 0xedb88320 ^ (c >>> 1);
+                else
+                    c = c >>> 1;
+            }
+            TABLE[n] = c;
+        }
+    }
+
+    private int crc = 0;
+
+    @Override
+    public long getValue() {
+        return (long) this.crc & 0xffffffffL;
+    }
+
+    @Override
+    public void reset() {
+        this.crc = 0;
+    }
+
+    @Override
+    public void update(int bval) {
+        int c = ~this.crc;
+        c = TABLE[(c ^ bval) & 0xff] ^ (c >>> 8);
+        this.crc = ~c;
+    }
+
+    @Override
+    public void update(byte[] buf, int off, int len) {
+        int c = ~this.crc;
+        while (--len >= 0)
+            c = TABLE[(c ^ buf[off++]) & 0xff] ^ (c >>> 8);
+        this.crc = ~c;
+    }
+}
@@ -0,0 +1,111 @@
+package cse332.jazzlib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Checksum.update(byte[], int, int) over a corpus, bufferLength
+ * bytes per call.  Checksums don't care what the bytes are, so the corpus
+ * parameter mostly shows that they don't.
+ * <p>
+ * CRC32Bytewise is the CRC32 before slicing-by-8, for comparison.  Every
+ * trial first checks that its checksum agrees with java.util.zip.
+ * <p>
+ * combine checksums every buffer on its own and stitches the results
+ * together with the combine() of the algorithm, the way chunks that were
+ * compressed in parallel are.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ChecksumBenchmark {
+    @Param({"CRC32", "CRC32Bytewise", "Adler32"})
+    public String algorithm;
+
+    private Checksum checksum;
+    private Combiner combiner;
+
+    private interface Combiner {
+        long combine(long value1, long value2, long len2);
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(CorpusState input) {
+        java.util.zip.Checksum reference;
+        switch (this.algorithm) {
+            case "CRC32":
+                this.checksum = new CRC32();
+                this.combiner = CRC32::combine;
+                reference = new java.util.zip.CRC32();
+                break;
+            case "CRC32Bytewise":
+                this.checksum = new BytewiseCRC32();
+                this.combiner = CRC32::combine;
+                reference = new java.util.zip.CRC32();
+                break;
+            case "Adler32":
+                this.checksum = new Adler32();
+                this.combiner = Adler32::combine;
+                reference = new java.util.zip.Adler32();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown checksum " + this.algorithm);
+        }
+
+        reference.update(input.data, 0, input.data.length);
+        long expected = reference.getValue();
+        long actual = this.update(input, new BytesProcessed());
+        if (actual != expected)
+            throw new IllegalStateException(this.algorithm + " computed " + Long.toHexString(actual)
+                    + ", java.util.zip " + Long.toHexString(expected));
+        actual = this.combine(input, new BytesProcessed());
+        if (actual != expected)
+            throw new IllegalStateException(this.algorithm + " combined " + Long.toHexString(actual)
+                    + ", java.util.zip " + Long.toHexString(expected));
+    }
+
+    @Benchmark
+    public long update(CorpusState input, BytesProcessed processed) {
+        byte[] data = input.data;
+
+        this.checksum.reset();
+        for (int off = 0; off < data.length; off += input.bufferLength) {
+            this.checksum.update(data, off, Math.min(input.bufferLength, data.length - off));
+        }
+
+        processed.add(data.length);
+        return this.checksum.getValue();
+    }
+
+    @Benchmark
+    public long combine(CorpusState input, BytesProcessed processed) {
+        byte[] data = input.data;
+
+        this.checksum.reset();
+        long value = this.checksum.getValue();
+        for (int off = 0; off < data.length; off += input.bufferLength) {
+            int len = Math.min(input.bufferLength, data.length - off);
+            this.checksum.reset();
+            this.checksum.update(data, off, len);
+            value = this.combiner.combine(value, this.checksum.getValue(), len);
+        }
+
+        processed.add(data.length);
+        return value;
+    }
+}
@@ -0,0 +1,133 @@
+package cse332.jazzlib;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * The kinds of input the benchmarks run on.  Every corpus is generated from
+ * a fixed seed, so each run of a benchmark sees exactly the same bytes.
+ */
+public enum Corpus {
+    /**
+     * English-like text: words from a small vocabulary, with the common ones
+     * much more likely, broken into sentences and lines.
+     */
+    TEXT {
+        @Override
+        void fill(byte[] data, Random random) {
+            StringBuilder text = new StringBuilder(data.length + 64);
+            int lineLength = 0;
+            boolean capitalize = true;
+            while (text.length() < data.length) {
+                // Squaring skews the choice towards the front of WORDS
+                double r = random.nextDouble();
+                String word = WORDS[(int) (r * r * WORDS.length)];
+                if (capitalize) {
+                    word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+                    capitalize = false;
+                }
+                text.append(word);
+                lineLength += word.length();
+                if (random.nextInt(12) == 0) {
+                    text.append('.');
+                    capitalize = true;
+                } else if (random.nextInt(10) == 0) {
+                    text.append(',');
+                }
+                if (lineLength > 70) {
+                    text.append('\n');
+                    lineLength = 0;
+                } else {
+                    text.append(' ');
+                    lineLength++;
+                }
+            }
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) text.charAt(i);
+            }
+        }
+    },
+
+    /**
+     * Fixed-width binary records, the way a table or a log might be dumped:
+     * an increasing id, one of a few type tags and a floating point reading.
+     */
+    BINARY {
+        @Override
+        void fill(byte[] data, Random random) {
+            ByteBuffer records = ByteBuffer.wrap(data);
+            int id = random.nextInt(1 << 20);
+            while (records.remaining() >= 16) {
+                id += 1 + random.nextInt(4);
+                records.putInt(id);
+                records.putShort((short) (random.nextInt(8) * 0x101));
+                records.putShort((short) 0);
+                records.putDouble(Math.round(random.nextGaussian() * 100000) / 100.0);
+            }
+            while (records.hasRemaining()) {
+                records.put((byte) 0);
+            }
+        }
+    },
+
+    /**
+     * Uniformly random bytes, which can't be compressed at all.
+     */
+    RANDOM {
+        @Override
+        void fill(byte[] data, Random random) {
+            random.nextBytes(data);
+        }
+    },
+
+    /**
+     * One short line repeated over and over, with a byte changed every few
+     * kilobytes so that matches don't run the whole length of the input.
+     */
+    REPETITIVE {
+        @Override
+        void fill(byte[] data, Random random) {
+            byte[] line = "the quick brown fox jumps over the lazy dog 0123456789\n".getBytes();
+            for (int i = 0; i < data.length; i++) {
+                data[i] = line[i % line.length];
+            }
+            for (int i = random.nextInt(4096); i < data.length; i += 1 + random.nextInt(8192)) {
+                data[i] = (byte) random.nextInt(256);
+            }
+        }
+    };
+
+    /**
+     * The number of bytes the benchmarks push through on every invocation.
+     */
+    public static final int SIZE = 1 << 20;
+
+    private static final String[] WORDS = {
+            "the", "of", "and", "to", "a", "in", "is", "it", "that", "for",
+            "was", "on", "with", "as", "be", "at", "by", "this", "from", "or",
+            "have", "an", "they", "which", "one", "you", "were", "all", "we",
+            "when", "there", "can", "more", "if", "no", "out", "so", "said",
+            "what", "up", "its", "about", "into", "than", "them", "only",
+            "other", "time", "new", "some", "could", "these", "two", "may",
+            "first", "then", "any", "like", "over", "such", "our", "after",
+            "compression", "window", "symbol", "huffman", "literal", "distance",
+            "length", "block", "stream", "archive", "entry", "checksum",
+            "dictionary", "buffer", "queue", "worklist", "tree", "trie"
+    };
+
+    private static final long SEED = 332;
+
+    /**
+     * Returns size bytes of this kind of input.  Calls with the same size
+     * always return the same bytes.
+     *
+     * @param size the number of bytes to generate
+     */
+    public byte[] generate(int size) {
+        byte[] data = new byte[size];
+        this.fill(data, new Random(SEED + this.ordinal()));
+        return data;
+    }
+
+    abstract void fill(byte[] data, Random random);
+}
@@ -0,0 +1,30 @@
+package cse332.jazzlib;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The input shared by the benchmarks that stream bytes.  Each invocation
+ * processes all of data, bufferLength bytes at a time, so that the same
+ * corpus can be measured with small writes and with large ones.
+ */
+@State(Scope.Benchmark)
+public class CorpusState {
+    @Param({"TEXT", "BINARY", "RANDOM", "REPETITIVE"})
+    public Corpus corpus;
+
+    @Param({"1024", "65536"})
+    public int bufferLength;
+
+    public byte[] data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // The debug output would swamp anything we want to measure
+        DeflaterConstants.DEBUGGING = false;
+        this.data = this.corpus.generate(Corpus.SIZE);
+    }
+}
@@ -0,0 +1,64 @@
+package cse332.jazzlib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Deflater.deflate over a whole corpus, written in chunks of
+ * bufferLength bytes into an output buffer of the same size.
+ * <p>
+ * The deflater uses HashChainMatchFinder, since the default LZ77Compressor
+ * needs a finished SuffixTrie; MatchFinderBenchmark compares the two.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DeflaterBenchmark {
+    @Param({"1", "6", "9"})
+    public int level;
+
+    private Deflater deflater;
+    private byte[] output;
+
+    @Setup(Level.Trial)
+    public void setUp(CorpusState input) {
+        this.deflater = new Deflater(this.level, true, new HashChainMatchFinder());
+        this.output = new byte[input.bufferLength];
+    }
+
+    @Benchmark
+    public int deflate(CorpusState input, BytesProcessed processed) {
+        byte[] data = input.data;
+        int total = 0;
+
+        this.deflater.reset();
+        for (int off = 0; off < data.length; off += input.bufferLength) {
+            this.deflater.setInput(data, off, Math.min(input.bufferLength, data.length - off));
+            while (!this.deflater.needsInput()) {
+                total += this.deflater.deflate(this.output);
+            }
+        }
+        this.deflater.finish();
+        while (!this.deflater.finished()) {
+            total += this.deflater.deflate(this.output);
+        }
+
+        processed.add(data.length);
+        return total;
+    }
+}
@@ -0,0 +1,156 @@
+package cse332.jazzlib;
+
+import datastructures.worklists.CircularByteArrayFIFOQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures HuffmanCompressor.flushBlock: building the trees and encoding
+ * the block.  The literals and matches are found once, during setup, and
+ * every invocation replays them into the compressor block by block, split
+ * at the same points OurDeflaterEngine would split them.
+ * <p>
+ * Pending output is dropped after each block, so the pending buffer never
+ * fills up.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class HuffmanBenchmark extends DeflaterConstants {
+    @Param({"TEXT", "BINARY", "RANDOM", "REPETITIVE"})
+    public Corpus corpus;
+
+    /* The trie trees need a finished HashTrieMap. */
+    @Param({"false", "true"})
+    public boolean trieTrees;
+
+    private byte[] data;
+
+    /* Each symbol is (dist << 9) | len for a match, or just the literal,
+     * whose dist is 0.
+     */
+    private int[] symbols;
+    private int symbolCount;
+
+    private int[] blockEnds;
+    private int[] blockLengths;
+    private int blockCount;
+
+    private DeflaterPending pending;
+    private HuffmanCompressor huffman;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        DeflaterConstants.DEBUGGING = false;
+        this.data = this.corpus.generate(Corpus.SIZE);
+        this.symbols = new int[1024];
+        this.blockEnds = new int[16];
+        this.blockLengths = new int[16];
+        this.record();
+
+        this.pending = new DeflaterPending();
+        this.huffman = new HuffmanCompressor(this.pending, this.trieTrees);
+    }
+
+    /**
+     * Runs HashChainMatchFinder over data and remembers what it tallies.
+     */
+    private void record() {
+        MatchFinder matcher = new HashChainMatchFinder();
+        matcher.setLevel(Deflater.BEST_COMPRESSION);
+        CircularByteArrayFIFOQueue buffer = new CircularByteArrayFIFOQueue(1024);
+        HuffmanCompressor recorder = new HuffmanCompressor(new DeflaterPending()) {
+            @Override
+            public boolean tallyLit(int lit) {
+                addSymbol(lit);
+                return super.tallyLit(lit);
+            }
+
+            @Override
+            public boolean tallyDist(int dist, int len) {
+                addSymbol(dist << 9 | len);
+                return super.tallyDist(dist, len);
+            }
+        };
+
+        int off = 0;
+        int blockLen = 0;
+        while (off < this.data.length || buffer.hasWork()) {
+            while (off < this.data.length && buffer.size() < MIN_LOOKAHEAD) {
+                off += buffer.addAll(this.data, off, this.data.length - off);
+            }
+            int before = buffer.size();
+            matcher.findNextMatch(buffer, recorder);
+            blockLen += before - buffer.size();
+            if (recorder.isFull() || blockLen > MAX_BLOCK_SIZE - MAX_MATCH) {
+                this.addBlock(blockLen);
+                recorder.reset();
+                blockLen = 0;
+            }
+        }
+        if (blockLen > 0 || this.blockCount == 0) {
+            this.addBlock(blockLen);
+        }
+    }
+
+    private void addSymbol(int symbol) {
+        if (this.symbolCount == this.symbols.length) {
+            this.symbols = Arrays.copyOf(this.symbols, 2 * this.symbols.length);
+        }
+        this.symbols[this.symbolCount++] = symbol;
+    }
+
+    private void addBlock(int length) {
+        if (this.blockCount == this.blockEnds.length) {
+            this.blockEnds = Arrays.copyOf(this.blockEnds, 2 * this.blockCount);
+            this.blockLengths = Arrays.copyOf(this.blockLengths, 2 * this.blockCount);
+        }
+        this.blockEnds[this.blockCount] = this.symbolCount;
+        this.blockLengths[this.blockCount] = length;
+        this.blockCount++;
+    }
+
+    @Benchmark
+    public int flushBlock(BytesProcessed processed) {
+        int sym = 0;
+        int stored = 0;
+        int total = 0;
+
+        this.huffman.reset();
+        for (int b = 0; b < this.blockCount; b++) {
+            for (int end = this.blockEnds[b]; sym < end; sym++) {
+                int symbol = this.symbols[sym];
+                int dist = symbol >>> 9;
+                if (dist == 0) {
+                    this.huffman.tallyLit(symbol);
+                } else {
+                    this.huffman.tallyDist(dist, symbol & 0x1ff);
+                }
+            }
+            this.huffman.flushBlock(this.data, stored, this.blockLengths[b], b == this.blockCount - 1);
+            stored += this.blockLengths[b];
+
+            total += this.pending.end;
+            this.pending.reset();
+        }
+
+        processed.add(this.data.length);
+        return total;
+    }
+}
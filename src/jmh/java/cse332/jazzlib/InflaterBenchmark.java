@@ -0,0 +1,73 @@
+package cse332.jazzlib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Inflater.inflate on a corpus that was deflated once by
+ * java.util.zip at its default level, so that the input doesn't change when
+ * our Deflater does.  Compressed input is handed over bufferLength bytes at
+ * a time, and inflated into an output buffer of the same size.  The MB/s
+ * counter is for the inflated bytes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class InflaterBenchmark {
+    private byte[] compressed;
+    private Inflater inflater;
+    private byte[] output;
+
+    @Setup(Level.Trial)
+    public void setUp(CorpusState input) {
+        java.util.zip.Deflater deflater = new java.util.zip.Deflater();
+        deflater.setInput(input.data);
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        while (!deflater.finished()) {
+            int len = deflater.deflate(chunk);
+            out.write(chunk, 0, len);
+        }
+        deflater.end();
+
+        this.compressed = out.toByteArray();
+        this.inflater = new Inflater();
+        this.output = new byte[input.bufferLength];
+    }
+
+    @Benchmark
+    public int inflate(CorpusState input, BytesProcessed processed) throws DataFormatException {
+        int off = 0;
+        int total = 0;
+
+        this.inflater.reset();
+        while (!this.inflater.finished()) {
+            if (this.inflater.needsInput()) {
+                int len = Math.min(input.bufferLength, this.compressed.length - off);
+                this.inflater.setInput(this.compressed, off, len);
+                off += len;
+            }
+            total += this.inflater.inflate(this.output);
+        }
+
+        processed.add(total);
+        return total;
+    }
+}
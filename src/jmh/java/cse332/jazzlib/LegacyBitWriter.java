@@ -0,0 +1,36 @@
+package cse332.jazzlib;
+
+/**
+ * The bit writer of PendingBuffer as it was before the 64 bit accumulator:
+ * 32 bits of buffer, written out 16 bits at a time, with the DEBUGGING
+ * check on every call.  Kept as the baseline for BitWriterBenchmark.
+ */
+public class LegacyBitWriter {
+    byte[] buf;
+    int start;
+    int end;
+
+    int bits;
+    int bitCount;
+
+    public LegacyBitWriter(int bufsize) {
+        this.buf = new byte[bufsize];
+    }
+
+    public void reset() {
+        this.start = this.end = this.bitCount = 0;
+    }
+
+    public void writeBits(int b, int count) {
+        if (DeflaterConstants.DEBUGGING && this.start != 0)
+            throw new IllegalStateException();
+        this.bits |= b << this.bitCount;
+        this.bitCount += count;
+        if (this.bitCount >= 16) {
+            this.buf[this.end++] = (byte) this.bits;
+            this.buf[this.end++] = (byte) (this.bits >>> 8);
+            this.bits >>>= 16;
+            this.bitCount -= 16;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package cse332.jazzlib;
+
+import datastructures.worklists.CircularByteArrayFIFOQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures MatchFinder.findNextMatch on its own, without building trees or
+ * writing blocks.  The input buffer is refilled with bufferLength bytes at
+ * a time and kept at least MIN_LOOKAHEAD full, the same way
+ * OurDeflaterEngine drives it, and the tallies are thrown away whenever the
+ * HuffmanCompressor fills up.
+ * <p>
+ * LZ77Compressor needs a finished SuffixTrie, and uses a window of
+ * DeflaterConstants.BUFFER_LENGTH bytes just like the Deflater does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchFinderBenchmark {
+    @Param({"HashChainMatchFinder", "LZ77Compressor"})
+    public String finder;
+
+    private MatchFinder matcher;
+    private CircularByteArrayFIFOQueue buffer;
+    private HuffmanCompressor huffman;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (this.finder) {
+            case "HashChainMatchFinder":
+                this.matcher = new HashChainMatchFinder();
+                break;
+            case "LZ77Compressor":
+                this.matcher = new LZ77Compressor(DeflaterConstants.BUFFER_LENGTH);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown match finder " + this.finder);
+        }
+        // DEFAULT_COMPRESSION means BEST_COMPRESSION in this Deflater
+        this.matcher.setLevel(Deflater.BEST_COMPRESSION);
+        this.buffer = new CircularByteArrayFIFOQueue(1024);
+        this.huffman = new HuffmanCompressor(new DeflaterPending());
+    }
+
+    @Benchmark
+    public int findNextMatch(CorpusState input, BytesProcessed processed) {
+        byte[] data = input.data;
+        int off = 0;
+        int matches = 0;
+
+        this.matcher.reset();
+        this.buffer.clear();
+        this.huffman.reset();
+        while (off < data.length || this.buffer.hasWork()) {
+            while (off < data.length && this.buffer.size() < DeflaterConstants.MIN_LOOKAHEAD) {
+                int len = Math.min(input.bufferLength, data.length - off);
+                off += this.buffer.addAll(data, off, len);
+            }
+            this.matcher.findNextMatch(this.buffer, this.huffman);
+            matches++;
+            if (this.huffman.isFull()) {
+                this.huffman.reset();
+            }
+        }
+
+        processed.add(data.length);
+        return matches;
+    }
+}
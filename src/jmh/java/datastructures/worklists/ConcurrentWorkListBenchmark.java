@@ -0,0 +1,109 @@
+package datastructures.worklists;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a worklist shared as a job queue by several threads.  Every
+ * thread adds one element and takes one, so the queue stays at about the
+ * size it was filled to, and adding threads and taking threads work at
+ * opposite ends of it.  The score is in add/next pairs per second, over
+ * all threads.
+ * <p>
+ * SynchronizedListFIFOQueue is a ListFIFOQueue behind one lock, which is
+ * what the job queues had to do before the concurrent worklists.  Run with
+ * -t to change the number of threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ConcurrentWorkListBenchmark {
+    @Param({"ConcurrentFIFOWorkList", "ConcurrentArrayFIFOQueue", "SynchronizedListFIFOQueue"})
+    public String implementation;
+
+    @Param({"1024"})
+    public int queued;
+
+    private JobQueue queue;
+
+    private interface JobQueue {
+        void add(Integer work);
+
+        Integer poll();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (this.implementation) {
+            case "ConcurrentFIFOWorkList": {
+                ConcurrentFIFOWorkList<Integer> worklist = new ConcurrentFIFOWorkList<>();
+                this.queue = new JobQueue() {
+                    public void add(Integer work) {
+                        worklist.add(work);
+                    }
+
+                    public Integer poll() {
+                        return worklist.poll();
+                    }
+                };
+                break;
+            }
+            case "ConcurrentArrayFIFOQueue": {
+                // Room for every thread to add before anyone takes
+                ConcurrentArrayFIFOQueue<Integer> worklist = new ConcurrentArrayFIFOQueue<>(2 * this.queued + 1024);
+                this.queue = new JobQueue() {
+                    public void add(Integer work) {
+                        worklist.add(work);
+                    }
+
+                    public Integer poll() {
+                        return worklist.poll();
+                    }
+                };
+                break;
+            }
+            case "SynchronizedListFIFOQueue": {
+                ListFIFOQueue<Integer> worklist = new ListFIFOQueue<>();
+                this.queue = new JobQueue() {
+                    public synchronized void add(Integer work) {
+                        worklist.add(work);
+                    }
+
+                    public synchronized Integer poll() {
+                        return worklist.size() > 0 ? worklist.next() : null;
+                    }
+                };
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown worklist " + this.implementation);
+        }
+
+        for (int i = 0; i < this.queued; i++) {
+            this.queue.add(i);
+        }
+    }
+
+    @Benchmark
+    public Integer addNext() {
+        this.queue.add(42);
+        return this.queue.poll();
+    }
+}
@@ -0,0 +1,79 @@
+package datastructures.worklists;
+
+import cse332.interfaces.worklists.FIFOWorkList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures what a FIFO queue costs per element while it holds many of
+ * them.  Every invocation makes a new queue, adds queued elements and takes
+ * them all out again.  The score is in elements per second.
+ * <p>
+ * The elements are made in setUp, so with -prof gc, gc.alloc.rate.norm is
+ * the bytes the queue allocated per element.  All elements are in the
+ * queue at once, so that is also about what the queue takes up per element
+ * when it is full.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FIFOQueueFootprintBenchmark {
+    private static final int QUEUED = 1 << 20;
+
+    @Param({"ListFIFOQueue", "NodeListFIFOQueue", "CircularArrayFIFOQueue"})
+    public String implementation;
+
+    private Integer[] elements;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.elements = new Integer[QUEUED];
+        for (int i = 0; i < QUEUED; i++) {
+            this.elements[i] = i;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUEUED)
+    public long fillDrain() {
+        FIFOWorkList<Integer> queue;
+        switch (this.implementation) {
+            case "ListFIFOQueue":
+                queue = new ListFIFOQueue<>();
+                break;
+            case "NodeListFIFOQueue":
+                queue = new NodeListFIFOQueue<>();
+                break;
+            case "CircularArrayFIFOQueue":
+                queue = new CircularArrayFIFOQueue<>(QUEUED);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown worklist " + this.implementation);
+        }
+
+        for (Integer element : this.elements) {
+            queue.add(element);
+        }
+        long sum = 0;
+        while (queue.hasWork()) {
+            sum += queue.next();
+        }
+        return sum;
+    }
+}
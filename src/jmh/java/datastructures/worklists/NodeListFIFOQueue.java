@@ -0,0 +1,73 @@
+package datastructures.worklists;
+
+import cse332.interfaces.worklists.FIFOWorkList;
+
+import java.util.NoSuchElementException;
+
+/**
+ * The ListFIFOQueue as it was before it was chunked: a doubly linked list
+ * between two sentinels, with a node per element.  Kept as the baseline for
+ * the worklist benchmarks.
+ */
+public class NodeListFIFOQueue<E> extends FIFOWorkList<E> {
+    private final Node<E> head = new Node<>(null);
+    private final Node<E> tail = new Node<>(null);
+    private int size;
+
+    public NodeListFIFOQueue() {
+        this.clear();
+    }
+
+    @Override
+    public void add(E work) {
+        Node<E> node = new Node<>(work);
+        Node<E> last = this.tail.prev;
+        last.next = node;
+        node.prev = last;
+        node.next = this.tail;
+        this.tail.prev = node;
+        this.size++;
+    }
+
+    @Override
+    public E peek() {
+        if (this.size <= 0) {
+            throw new NoSuchElementException();
+        }
+        return this.head.next.data;
+    }
+
+    @Override
+    public E next() {
+        if (this.size <= 0) {
+            throw new NoSuchElementException();
+        }
+        Node<E> first = this.head.next;
+        this.head.next = first.next;
+        first.next.prev = this.head;
+        this.size--;
+        return first.data;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public void clear() {
+        this.head.next = this.tail;
+        this.tail.prev = this.head;
+        this.size = 0;
+    }
+
+    private static class Node<E> {
+        private final E data;
+        private Node<E> next;
+        private Node<E> prev;
+
+        Node(E data) {
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package datastructures.worklists;
+
+import cse332.interfaces.worklists.WorkList;
+import cse332.jazzlib.Corpus;
+import cse332.jazzlib.CorpusState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures add and next through the WorkList interface, the way the
+ * compressor uses its worklists.  Every invocation pushes a whole corpus
+ * through the worklist: bufferLength bytes are added, then all of them are
+ * taken out again.  The score is in bytes per second.
+ * <p>
+ * Bytes are boxed on the way in, but Byte.valueOf is cached, so what the gc
+ * profiler sees is the worklist's own allocation.
+ * <p>
+ * NodeListFIFOQueue is the ListFIFOQueue before it was chunked, for
+ * comparison.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WorkListBenchmark {
+    @Param({"ListFIFOQueue", "NodeListFIFOQueue", "CircularArrayFIFOQueue", "CircularByteArrayFIFOQueue",
+            "ArrayDequeWorkList", "ArrayStack"})
+    public String implementation;
+
+    private WorkList<Byte> worklist;
+
+    @Setup(Level.Trial)
+    public void setUp(CorpusState input) {
+        switch (this.implementation) {
+            case "ListFIFOQueue":
+                this.worklist = new ListFIFOQueue<>();
+                break;
+            case "NodeListFIFOQueue":
+                this.worklist = new NodeListFIFOQueue<>();
+                break;
+            case "CircularArrayFIFOQueue":
+                this.worklist = new CircularArrayFIFOQueue<>(input.bufferLength);
+                break;
+            case "CircularByteArrayFIFOQueue":
+                this.worklist = new CircularByteArrayFIFOQueue(input.bufferLength);
+                break;
+            case "ArrayDequeWorkList":
+                this.worklist = new ArrayDequeWorkList<>();
+                break;
+            case "ArrayStack":
+                this.worklist = new ArrayStack<>();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown worklist " + this.implementation);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Corpus.SIZE)
+    public int addNext(CorpusState input) {
+        byte[] data = input.data;
+        int hash = 0;
+
+        this.worklist.clear();
+        for (int off = 0; off < data.length; off += input.bufferLength) {
+            int end = Math.min(off + input.bufferLength, data.length);
+            for (int i = off; i < end; i++) {
+                this.worklist.add(data[i]);
+            }
+            while (this.worklist.hasWork()) {
+                hash = 31 * hash + this.worklist.next();
+            }
+        }
+        return hash;
+    }
+}
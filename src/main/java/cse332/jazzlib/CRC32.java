@@ -37,6 +37,9 @@
 
 package cse332.jazzlib;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /*
  * Written using on-line Java Platform 1.2 API Specification, as well
  * as "The Java Class Libraries", 2nd edition (Addison-Wesley, 1998).
@@ -62,13 +65,18 @@ public class CRC32 implements Checksum
     /** The crc data checksum so far. */
     private int crc = 0;
 
-    /** The fast CRC table. Computed once when the CRC32 class is loaded. */
+    /**
+     * The fast CRC tables for slicing-by-8, one after the other.  The first
+     * 256 entries are the classic byte at a time table; entry n of table k
+     * is the crc of byte n followed by k zero bytes.  Computed once when
+     * the CRC32 class is loaded.
+     */
     private static int[] crc_table = make_crc_table();
 
-    /** Make the table for a fast CRC. */
+    /** Make the tables for a fast CRC. */
     private static int[] make_crc_table ()
     {
-        int[] crc_table = new int[256];
+        int[] crc_table = new int[8 * 256];
         for (int n = 0; n < 256; n++)
         {
             int c = n;
@@ -81,6 +89,11 @@ public class CRC32 implements Checksum
             }
             crc_table[n] = c;
         }
+        for (int n = 256; n < 8 * 256; n++)
+        {
+            int c = crc_table[n - 256];
+            crc_table[n] = crc_table[c & 0xff] ^ (c >>> 8);
+        }
         return crc_table;
     }
 
@@ -119,9 +132,31 @@ public class CRC32 implements Checksum
      */
     public void update (byte[] buf, int off, int len)
     {
+        if (off < 0 || len < 0 || off + len > buf.length || off + len < 0)
+            throw new ArrayIndexOutOfBoundsException();
+
+        int[] t = crc_table;
         int c = ~crc;
+
+        /* Slicing-by-8: fold the next four bytes into the crc, then look
+         * up all eight bytes in their own table at once instead of going
+         * through the table eight times in a row.
+         */
+        while (len >= 8)
+        {
+            c ^= (buf[off] & 0xff) | (buf[off + 1] & 0xff) << 8
+                | (buf[off + 2] & 0xff) << 16 | buf[off + 3] << 24;
+            c = t[7 * 256 + (c & 0xff)] ^ t[6 * 256 + ((c >>> 8) & 0xff)]
+                ^ t[5 * 256 + ((c >>> 16) & 0xff)] ^ t[4 * 256 + (c >>> 24)]
+                ^ t[3 * 256 + (buf[off + 4] & 0xff)]
+                ^ t[2 * 256 + (buf[off + 5] & 0xff)]
+                ^ t[256 + (buf[off + 6] & 0xff)]
+                ^ t[buf[off + 7] & 0xff];
+            off += 8;
+            len -= 8;
+        }
         while (--len >= 0)
-            c = crc_table[(c ^ buf[off++]) & 0xff] ^ (c >>> 8);
+            c = t[(c ^ buf[off++]) & 0xff] ^ (c >>> 8);
         crc = ~c;
     }
 
@@ -129,4 +164,114 @@ public class CRC32 implements Checksum
      * Adds the complete byte array to the data checksum.
      */
     public void update (byte[] buf) { update(buf, 0, buf.length); }
+
+    /**
+     * Adds the remaining bytes of buffer to the data checksum.  Afterwards
+     * the position of buffer is its limit.  Direct and mapped buffers are
+     * read eight bytes at a time without copying them to an array.
+     *
+     * @param buffer the buffer which contains the data
+     */
+    public void update (ByteBuffer buffer)
+    {
+        int len = buffer.remaining();
+        if (buffer.hasArray())
+        {
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), len);
+            buffer.position(buffer.limit());
+            return;
+        }
+
+        ByteOrder order = buffer.order();
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        int[] t = crc_table;
+        int c = ~crc;
+        while (len >= 8)
+        {
+            long v = buffer.getLong();
+            c ^= (int) v;
+            int hi = (int) (v >>> 32);
+            c = t[7 * 256 + (c & 0xff)] ^ t[6 * 256 + ((c >>> 8) & 0xff)]
+                ^ t[5 * 256 + ((c >>> 16) & 0xff)] ^ t[4 * 256 + (c >>> 24)]
+                ^ t[3 * 256 + (hi & 0xff)] ^ t[2 * 256 + ((hi >>> 8) & 0xff)]
+                ^ t[256 + ((hi >>> 16) & 0xff)] ^ t[hi >>> 24];
+            len -= 8;
+        }
+        while (--len >= 0)
+            c = t[(c ^ buffer.get()) & 0xff] ^ (c >>> 8);
+        crc = ~c;
+        buffer.order(order);
+    }
+
+    /** The CRC32 polynomial, bit reversed. */
+    private static final int POLY = 0xedb88320;
+
+    /** x^(2^n) mod POLY for n = 0..31, also bit reversed. */
+    private static int[] x2n_table = make_x2n_table();
+
+    private static int[] make_x2n_table ()
+    {
+        int[] x2n_table = new int[32];
+        int p = 1 << 30;  /* x^1 */
+        x2n_table[0] = p;
+        for (int n = 1; n < 32; n++)
+            x2n_table[n] = p = multmodp(p, p);
+        return x2n_table;
+    }
+
+    /**
+     * Multiplies the polynomials a and b modulo POLY.  Both are bit
+     * reversed, so x^0 is the top bit.
+     */
+    private static int multmodp (int a, int b)
+    {
+        int m = 1 << 31;
+        int p = 0;
+        for (;;)
+        {
+            if ((a & m) != 0)
+            {
+                p ^= b;
+                if ((a & (m - 1)) == 0)
+                    break;
+            }
+            m >>>= 1;
+            b = (b & 1) != 0 ? (b >>> 1) ^ POLY : b >>> 1;
+        }
+        return p;
+    }
+
+    /** Returns x^(n * 2^k) mod POLY. */
+    private static int x2nmodp (long n, int k)
+    {
+        int p = 1 << 31;  /* x^0 */
+        while (n != 0)
+        {
+            if ((n & 1) != 0)
+                p = multmodp(x2n_table[k & 31], p);
+            n >>>= 1;
+            k++;
+        }
+        return p;
+    }
+
+    /**
+     * Combines two CRC32 checksums.  If crc1 is the checksum of a and crc2
+     * the checksum of b, the result is the checksum of a followed by b.
+     * This lets the checksums of separate parts of a stream be computed
+     * in parallel.  Takes time logarithmic in len2.
+     *
+     * @param crc1 the checksum of the first part, as from getValue().
+     * @param crc2 the checksum of the second part.
+     * @param len2 the length in bytes of the second part.
+     * @exception IllegalArgumentException if len2 is negative.
+     */
+    public static long combine (long crc1, long crc2, long len2)
+    {
+        if (len2 < 0)
+            throw new IllegalArgumentException("len2 < 0");
+        /* Shifting crc1 by len2 zero bytes is multiplying it by x^(8*len2) */
+        int c = multmodp(x2nmodp(len2, 3), (int) crc1) ^ (int) crc2;
+        return (long) c & 0xffffffffL;
+    }
 }
@@ -0,0 +1,258 @@
+package cse332.jazzlib;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * The central directory of a zip file, as ZipFile keeps it.  The directory
+ * is kept as the bytes it was read as, with the offsets of its headers
+ * sorted by entry name.  A ZipEntry is only made when one is asked for, so
+ * an archive of many entries costs about as much memory as its directory
+ * takes on disk, and an entry or all entries with a common prefix are
+ * found by binary search.
+ * <p>
+ * Names are compared by their bytes, like the chars of the strings they
+ * are read as.  Entries with the same name are kept in directory order,
+ * and find returns the last of them.
+ * <p>
+ * Sizes and offsets that are all ones are read from the ZIP64 extra field
+ * of their entry.
+ */
+final class CentralDirectory implements ZipConstants {
+    private final byte[] cen;
+    private final int[] sorted;
+
+    private CentralDirectory(byte[] cen, int[] sorted) {
+        this.cen = cen;
+        this.sorted = sorted;
+    }
+
+    /**
+     * Reads the central directory of len bytes at offset of raf.
+     *
+     * @throws ZipException if the directory is malformed.
+     */
+    static CentralDirectory read(RandomAccessFile raf, long offset, long len, String name)
+            throws IOException {
+        if (offset < 0 || len < 0 || offset + len > raf.length())
+            throw new ZipException("Central Directory extends past the end of the file: " + name);
+        if (len > Integer.MAX_VALUE)
+            throw new ZipException("Central Directory too large: " + name);
+        byte[] cen = new byte[(int) len];
+        raf.seek(offset);
+        raf.readFully(cen);
+
+        /* Find the headers; at most one per CENHDR bytes */
+        int[] headers = new int[cen.length / CENHDR];
+        int count = 0;
+        for (int pos = 0; pos + CENHDR <= cen.length; ) {
+            if (readLeInt(cen, pos) != CENSIG)
+                throw new ZipException("Wrong Central Directory signature: " + name);
+            int next = pos + CENHDR + readLeShort(cen, pos + CENNAM)
+                + readLeShort(cen, pos + CENEXT) + readLeShort(cen, pos + CENCOM);
+            if (next > cen.length)
+                throw new EOFException(name);
+            headers[count++] = pos;
+            pos = next;
+        }
+
+        CentralDirectory dir = new CentralDirectory(cen, new int[count]);
+        System.arraycopy(headers, 0, dir.sorted, 0, count);
+        dir.sort(headers, dir.sorted, 0, count);
+        return dir;
+    }
+
+    /**
+     * Returns the number of entries.
+     */
+    int size() {
+        return this.sorted.length;
+    }
+
+    /**
+     * Returns the index in name order of the entry called name, or -1 if
+     * there is none.
+     */
+    int find(String name) {
+        int i = this.lowerBound(name, true) - 1;
+        return i >= 0 && this.compare(this.sorted[i], name, false) == 0 ? i : -1;
+    }
+
+    /**
+     * Returns the index in name order of the first entry whose name is not
+     * less than prefix.
+     */
+    int lowerBound(String prefix) {
+        return this.lowerBound(prefix, false);
+    }
+
+    /**
+     * Returns true, if the name of the entry at index starts with prefix.
+     */
+    boolean startsWith(int index, String prefix) {
+        return this.compare(this.sorted[index], prefix, true) == 0;
+    }
+
+    /**
+     * Makes a new ZipEntry for the entry at index.
+     */
+    ZipEntry entry(int index) {
+        byte[] cen = this.cen;
+        int pos = this.sorted[index];
+        int nameLen = readLeShort(cen, pos + CENNAM);
+        int extraLen = readLeShort(cen, pos + CENEXT);
+        int commentLen = readLeShort(cen, pos + CENCOM);
+
+        @SuppressWarnings("deprecation")
+        String name = new String(cen, 0, pos + CENHDR, nameLen);
+        ZipEntry entry = new ZipEntry(name);
+        int method = readLeShort(cen, pos + CENHOW);
+        if (method == ZipOutputStream.STORED || method == ZipOutputStream.DEFLATED)
+            entry.setMethod(method);
+        entry.setCrc(readLeInt(cen, pos + CENCRC) & 0xffffffffL);
+        entry.setDOSTime(readLeInt(cen, pos + CENTIM));
+        int extra = pos + CENHDR + nameLen;
+
+        /* The ZIP64 field has the values that don't fit, in this order */
+        long size = readLeInt(cen, pos + CENLEN) & 0xffffffffL;
+        long csize = readLeInt(cen, pos + CENSIZ) & 0xffffffffL;
+        long offset = readLeInt(cen, pos + CENOFF) & 0xffffffffL;
+        if (size == ZIP64_MAGICVAL || csize == ZIP64_MAGICVAL || offset == ZIP64_MAGICVAL) {
+            int field = findExtra(cen, extra, extraLen, ZIP64_EXTID);
+            if (field >= 0) {
+                int p = field + 4;
+                int end = p + readLeShort(cen, field + 2);
+                if (size == ZIP64_MAGICVAL && p + 8 <= end) {
+                    size = readLeLong(cen, p);
+                    p += 8;
+                }
+                if (csize == ZIP64_MAGICVAL && p + 8 <= end) {
+                    csize = readLeLong(cen, p);
+                    p += 8;
+                }
+                if (offset == ZIP64_MAGICVAL && p + 8 <= end)
+                    offset = readLeLong(cen, p);
+            }
+        }
+        entry.setSize(size);
+        entry.setCompressedSize(csize);
+        if (extraLen > 0) {
+            byte[] b = new byte[extraLen];
+            System.arraycopy(cen, extra, b, 0, extraLen);
+            entry.setExtra(b);
+        }
+        if (commentLen > 0)
+            entry.setComment(new String(cen, extra + extraLen, commentLen));
+        entry.offset = offset;
+        return entry;
+    }
+
+    /**
+     * Returns the method of the entry at index, which may be one that
+     * ZipEntry doesn't support.
+     */
+    int method(int index) {
+        return readLeShort(this.cen, this.sorted[index] + CENHOW);
+    }
+
+    /**
+     * Returns the number of entries whose name is less than key, or with
+     * orEqual, not greater than key.
+     */
+    private int lowerBound(String key, boolean orEqual) {
+        int lo = 0;
+        int hi = this.sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = this.compare(this.sorted[mid], key, false);
+            if (cmp < 0 || (orEqual && cmp == 0))
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Compares the name of the header at pos to key.  With prefixOnly,
+     * only the first key.length() bytes of the name are compared.
+     */
+    private int compare(int pos, String key, boolean prefixOnly) {
+        int len = readLeShort(this.cen, pos + CENNAM);
+        int off = pos + CENHDR;
+        int keyLen = key.length();
+        int n = Math.min(len, keyLen);
+        for (int i = 0; i < n; i++) {
+            int c = (this.cen[off + i] & 0xff) - key.charAt(i);
+            if (c != 0)
+                return c;
+        }
+        if (prefixOnly && len >= keyLen)
+            return 0;
+        return len - keyLen;
+    }
+
+    private int compareNames(int a, int b) {
+        int lenA = readLeShort(this.cen, a + CENNAM);
+        int lenB = readLeShort(this.cen, b + CENNAM);
+        int n = Math.min(lenA, lenB);
+        for (int i = 0; i < n; i++) {
+            int c = (this.cen[a + CENHDR + i] & 0xff) - (this.cen[b + CENHDR + i] & 0xff);
+            if (c != 0)
+                return c;
+        }
+        return lenA - lenB;
+    }
+
+    /**
+     * Sorts dst[from..to) by name with a merge sort, which keeps entries
+     * of the same name in order.  src must hold the same elements there,
+     * and is used as scratch space.
+     */
+    private void sort(int[] src, int[] dst, int from, int to) {
+        if (to - from < 2)
+            return;
+        int mid = (from + to) >>> 1;
+        this.sort(dst, src, from, mid);
+        this.sort(dst, src, mid, to);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && this.compareNames(src[i], src[j]) <= 0))
+                dst[k] = src[i++];
+            else
+                dst[k] = src[j++];
+        }
+    }
+
+    /**
+     * Returns the offset of the extra field with the given id in
+     * b[off..off+len), or -1 if there is none.
+     */
+    private static int findExtra(byte[] b, int off, int len, int id) {
+        int end = off + len;
+        while (off + 4 <= end) {
+            int fieldLen = readLeShort(b, off + 2);
+            if (off + 4 + fieldLen > end)
+                return -1;
+            if (readLeShort(b, off) == id)
+                return off;
+            off += 4 + fieldLen;
+        }
+        return -1;
+    }
+
+    private static int readLeShort(byte[] b, int off) {
+        return (b[off] & 0xff) | (b[off + 1] & 0xff) << 8;
+    }
+
+    private static int readLeInt(byte[] b, int off) {
+        return ((b[off] & 0xff) | (b[off + 1] & 0xff) << 8)
+            | ((b[off + 2] & 0xff) | (b[off + 3] & 0xff) << 8) << 16;
+    }
+
+    private static long readLeLong(byte[] b, int off) {
+        return (readLeInt(b, off) & 0xffffffffL) | (long) readLeInt(b, off + 4) << 32;
+    }
+}
@@ -0,0 +1,287 @@
+package cse332.jazzlib;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A ChannelZipWriter writes a zip archive of files to a channel without
+ * pulling the file data through small heap arrays.
+ * <p>
+ * A STORED entry is copied with FileChannel.transferTo, which lets the
+ * kernel move the bytes from the file to the channel.  Its crc has to be
+ * in the local header, so the file is read once before, through a mapping.
+ * A DEFLATED entry is read into a direct buffer and deflated from it into
+ * another direct buffer, which is written to the channel whenever it is
+ * full; its sizes and crc follow the data in a data descriptor.  Both
+ * buffers are chunkSize bytes long.
+ * <p>
+ * The local headers and the central directory are written by a
+ * ZipOutputStream, so the archive is laid out exactly as one would lay it
+ * out.
+ *
+ * @see ZipOutputStream
+ * @see ParallelZipWriter
+ */
+public class ChannelZipWriter implements Closeable {
+    /**
+     * The size of the direct buffers unless the constructor says otherwise.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    /* The most a STORED entry's file is mapped at once for its crc */
+    private static final long MAP_WINDOW = 1 << 30;
+
+    private final ChannelOutput out;
+    private final ZipOutputStream zip;
+    private final ByteBuffer input;
+
+    private Deflater def;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    private int method = ZipOutputStream.DEFLATED;
+
+    /**
+     * Creates a new ChannelZipWriter with the default chunk size.
+     *
+     * @param channel the channel to which the zip archive is written.
+     */
+    public ChannelZipWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a new ChannelZipWriter.
+     *
+     * @param channel   the channel to which the zip archive is written.
+     * @param chunkSize the size of the buffers that are read into and
+     *                  written from.
+     * @throws IllegalArgumentException if chunkSize is not positive.
+     */
+    public ChannelZipWriter(WritableByteChannel channel, int chunkSize) {
+        if (channel == null)
+            throw new NullPointerException();
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("chunkSize <= 0");
+        this.out = new ChannelOutput(channel, chunkSize);
+        this.zip = new ZipOutputStream(this.out);
+        this.input = ByteBuffer.allocateDirect(chunkSize);
+    }
+
+    /**
+     * Sets the compression level of the entries added from now on.
+     *
+     * @param level the compression level, as for Deflater.
+     * @throws IllegalArgumentException if level is out of range.
+     */
+    public void setLevel(int level) {
+        if (level != Deflater.DEFAULT_COMPRESSION
+                && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION))
+            throw new IllegalArgumentException();
+        this.level = level;
+    }
+
+    /**
+     * Sets the default compression method of the entries added from now on.
+     * If an entry specifies another method its method takes precedence.
+     *
+     * @param method ZipOutputStream.STORED or ZipOutputStream.DEFLATED.
+     * @throws IllegalArgumentException if method is not supported.
+     */
+    public void setMethod(int method) {
+        if (method != ZipOutputStream.STORED && method != ZipOutputStream.DEFLATED)
+            throw new IllegalArgumentException("Method not supported.");
+        this.method = method;
+    }
+
+    /**
+     * Sets the zip file comment.
+     *
+     * @throws IllegalArgumentException if encoding of comment is longer
+     *                                  than 0xffff bytes.
+     */
+    public void setComment(String comment) {
+        this.zip.setComment(comment);
+    }
+
+    /**
+     * Adds the contents of file as an entry called name.
+     *
+     * @throws IOException if the file couldn't be read, or the entry
+     *                     couldn't be written.
+     */
+    public void add(String name, File file) throws IOException {
+        this.add(new ZipEntry(name), file);
+    }
+
+    /**
+     * Adds the contents of file as entry.  If the time of entry is not set,
+     * the modification time of the file is used.
+     *
+     * @throws IOException if the file couldn't be read, or the entry
+     *                     couldn't be written.
+     */
+    public void add(ZipEntry entry, File file) throws IOException {
+        if (entry.getMethod() == -1)
+            entry.setMethod(this.method);
+        if (entry.getTime() < 0)
+            entry.setTime(file.lastModified());
+
+        try (FileChannel source = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (entry.getMethod() == ZipOutputStream.STORED)
+                this.addStored(entry, source);
+            else
+                this.addDeflated(entry, source);
+        }
+    }
+
+    /**
+     * Writes the central directory.  Nothing can be added afterwards.
+     *
+     * @throws IOException if it couldn't be written.
+     */
+    public void finish() throws IOException {
+        this.zip.finish();
+    }
+
+    /**
+     * Finishes the archive and closes the channel.
+     */
+    public void close() throws IOException {
+        this.def = null;
+        this.zip.close();
+    }
+
+    private void addStored(ZipEntry entry, FileChannel source) throws IOException {
+        long size = source.size();
+        CRC32 crc = new CRC32();
+        for (long pos = 0; pos < size; pos += MAP_WINDOW) {
+            MappedByteBuffer map = source.map(FileChannel.MapMode.READ_ONLY, pos,
+                    Math.min(MAP_WINDOW, size - pos));
+            crc.update(map);
+        }
+        entry.setSize(size);
+        entry.setCompressedSize(size);
+        entry.setCrc(crc.getValue());
+
+        this.zip.putRawEntry(entry);
+        this.out.flush();
+        for (long pos = 0; pos < size; ) {
+            long count = source.transferTo(pos, size - pos, this.out.channel);
+            if (count <= 0)
+                throw new ZipException(entry.getName() + " shrank while it was written");
+            pos += count;
+        }
+        this.zip.closeRawEntry();
+    }
+
+    private void addDeflated(ZipEntry entry, FileChannel source) throws IOException {
+        if (this.def == null)
+            this.def = new Deflater(this.level, true);
+        else {
+            this.def.reset();
+            this.def.setLevel(this.level);
+        }
+
+        CRC32 crc = new CRC32();
+        long size = 0;
+        ByteBuffer buf = this.out.buffer;
+
+        this.zip.putRawEntry(entry);
+        for (;;) {
+            this.input.clear();
+            int len = source.read(this.input);
+            if (len < 0)
+                break;
+            this.input.flip();
+            crc.update(this.input.duplicate());
+            size += len;
+
+            this.def.setInput(this.input);
+            while (!this.def.needsInput()) {
+                if (!buf.hasRemaining())
+                    this.out.flush();
+                this.def.deflate(buf);
+            }
+        }
+
+        this.def.finish();
+        while (!this.def.finished()) {
+            if (!buf.hasRemaining())
+                this.out.flush();
+            this.def.deflate(buf);
+        }
+
+        long csize = this.def.getBytesWritten();
+        if (entry.getSize() >= 0 && entry.getSize() != size)
+            throw new ZipException("size was " + size + ", but I expected " + entry.getSize());
+        if (entry.getCompressedSize() >= 0 && entry.getCompressedSize() != csize)
+            throw new ZipException("compressed size was " + csize
+                    + ", but I expected " + entry.getCompressedSize());
+        if (entry.getCrc() >= 0 && entry.getCrc() != crc.getValue())
+            throw new ZipException("crc was " + Long.toHexString(crc.getValue())
+                    + ", but I expected " + Long.toHexString(entry.getCrc()));
+        entry.setSize(size);
+        entry.setCompressedSize(csize);
+        entry.setCrc(crc.getValue());
+        this.zip.closeRawEntry();
+    }
+
+    /**
+     * The stream the ZipOutputStream writes to.  It collects the headers
+     * in the same direct buffer the compressed data goes to, and writes
+     * the buffer to the channel when it is full or flushed.
+     */
+    private static final class ChannelOutput extends OutputStream {
+        final WritableByteChannel channel;
+        final ByteBuffer buffer;
+
+        ChannelOutput(WritableByteChannel channel, int chunkSize) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(chunkSize);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!this.buffer.hasRemaining())
+                this.flush();
+            this.buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (off < 0 || len < 0 || off + len > b.length || off + len < 0)
+                throw new IndexOutOfBoundsException();
+            while (len > 0) {
+                if (!this.buffer.hasRemaining())
+                    this.flush();
+                int count = Math.min(len, this.buffer.remaining());
+                this.buffer.put(b, off, count);
+                off += count;
+                len -= count;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining())
+                this.channel.write(this.buffer);
+            this.buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                this.flush();
+            } finally {
+                this.channel.close();
+            }
+        }
+    }
+}
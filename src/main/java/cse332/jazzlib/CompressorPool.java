@@ -0,0 +1,276 @@
+package cse332.jazzlib;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A CompressorPool keeps Deflaters and Inflaters around for reuse.  A new
+ * Deflater sets up an engine, a pending buffer, Huffman trees and a match
+ * finder, and a new Inflater a 32K output window; borrowing one that was
+ * released before only costs a reset.
+ * <p>
+ * Deflaters are pooled by compression level, strategy and nowrap, and
+ * Inflaters by nowrap, so a borrowed instance is always set up as asked.
+ * New Deflaters find their matches with the MatchFinder the level picks,
+ * unless the pool was given a supplier of finders.
+ * Every instance that is borrowed is reset, and has to be released again
+ * once its stream is done.  At most maxIdle instances per kind are kept;
+ * those released beyond that are left to the garbage collector.
+ * <p>
+ * An instance that becomes unreachable while it is borrowed was leaked.
+ * Leaks don't break the pool, but they are counted by getLeaks() so they
+ * can be found.
+ * <p>
+ * All methods may be called from any thread.
+ *
+ * @see ParallelDeflater
+ * @see ZipFile#getInputStream(ZipEntry)
+ */
+public class CompressorPool {
+    /**
+     * The number of idle instances kept per kind unless the constructor
+     * says otherwise.
+     */
+    public static final int DEFAULT_MAX_IDLE = 8;
+
+    /* Levels 0..9, times the three strategies, times nowrap or not */
+    private static final int DEFLATER_KINDS = 10 * 3 * 2;
+
+    private final int maxIdle;
+    private final Supplier<? extends MatchFinder> finders;
+    private final List<ArrayDeque<Deflater>> idleDeflaters;
+    private final List<ArrayDeque<Inflater>> idleInflaters;
+
+    /* The leases of borrowed instances, and those whose instance was lost */
+    private final Set<Lease> borrowed = ConcurrentHashMap.newKeySet();
+    private final ReferenceQueue<Object> lost = new ReferenceQueue<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+
+    /**
+     * Proof that an instance was borrowed from a pool, and of what kind it
+     * is.  It only refers to the instance weakly, so a leaked instance is
+     * still collected, and then the lease shows up in the pool's queue.
+     */
+    static final class Lease extends WeakReference<Object> {
+        final CompressorPool pool;
+        final int kind;
+
+        Lease(Object referent, CompressorPool pool, int kind) {
+            super(referent, pool.lost);
+            this.pool = pool;
+            this.kind = kind;
+        }
+    }
+
+    /**
+     * Creates a new CompressorPool that keeps DEFAULT_MAX_IDLE idle
+     * instances per kind.
+     */
+    public CompressorPool() {
+        this(DEFAULT_MAX_IDLE);
+    }
+
+    /**
+     * Creates a new CompressorPool.
+     *
+     * @param maxIdle the most idle instances kept per kind.
+     * @throws IllegalArgumentException if maxIdle is negative.
+     */
+    public CompressorPool(int maxIdle) {
+        this(maxIdle, null);
+    }
+
+    /**
+     * Creates a new CompressorPool whose Deflaters find their matches with
+     * finders from the given supplier.
+     *
+     * @param maxIdle the most idle instances kept per kind.
+     * @param finders makes the MatchFinder of each new Deflater, such as
+     *                HashChainMatchFinder::new, or null for the one the
+     *                level picks.  It must make a new finder every time.
+     * @throws IllegalArgumentException if maxIdle is negative.
+     */
+    public CompressorPool(int maxIdle, Supplier<? extends MatchFinder> finders) {
+        if (maxIdle < 0)
+            throw new IllegalArgumentException("maxIdle < 0");
+        this.maxIdle = maxIdle;
+        this.finders = finders;
+        this.idleDeflaters = new ArrayList<>(DEFLATER_KINDS);
+        for (int i = 0; i < DEFLATER_KINDS; i++)
+            this.idleDeflaters.add(new ArrayDeque<>());
+        this.idleInflaters = new ArrayList<>(2);
+        for (int i = 0; i < 2; i++)
+            this.idleInflaters.add(new ArrayDeque<>());
+    }
+
+    /**
+     * Borrows a freshly reset Deflater.
+     *
+     * @param level    the compression level, as for Deflater.
+     * @param strategy the compression strategy, as for Deflater.
+     * @param nowrap   whether to leave out the zlib header and trailer.
+     * @throws IllegalArgumentException if level or strategy is out of range.
+     */
+    public Deflater borrowDeflater(int level, int strategy, boolean nowrap) {
+        if (level == Deflater.DEFAULT_COMPRESSION)
+            level = Deflater.BEST_COMPRESSION;
+        else if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException();
+        if (strategy != Deflater.DEFAULT_STRATEGY && strategy != Deflater.FILTERED
+                && strategy != Deflater.HUFFMAN_ONLY)
+            throw new IllegalArgumentException();
+
+        int kind = (level * 3 + strategy) * 2 + (nowrap ? 1 : 0);
+        ArrayDeque<Deflater> idle = this.idleDeflaters.get(kind);
+        Deflater def;
+        synchronized (idle) {
+            def = idle.poll();
+        }
+        if (def != null)
+            this.hits.increment();
+        else {
+            this.misses.increment();
+            if (this.finders == null)
+                def = new Deflater(level, nowrap);
+            else
+                def = new Deflater(level, nowrap, this.finders.get());
+            def.setStrategy(strategy);
+        }
+        def.lease = this.lend(def, kind);
+        return def;
+    }
+
+    /**
+     * Borrows a freshly reset Inflater.
+     *
+     * @param nowrap whether the streams have no zlib header and trailer.
+     */
+    public Inflater borrowInflater(boolean nowrap) {
+        int kind = nowrap ? 1 : 0;
+        ArrayDeque<Inflater> idle = this.idleInflaters.get(kind);
+        Inflater inf;
+        synchronized (idle) {
+            inf = idle.poll();
+        }
+        if (inf != null)
+            this.hits.increment();
+        else {
+            this.misses.increment();
+            inf = new Inflater(nowrap);
+        }
+        inf.lease = this.lend(inf, kind);
+        return inf;
+    }
+
+    /**
+     * Gives back a Deflater that was borrowed from this pool.  It must not
+     * be used afterwards.  A Deflater that was ended is dropped.
+     *
+     * @throws IllegalArgumentException if def wasn't borrowed from this
+     *                                  pool, or was already released.
+     */
+    public void release(Deflater def) {
+        int kind = this.giveBack(def.lease);
+        def.lease = null;
+        if (def.isEnded())
+            return;
+
+        /* Undo whatever setLevel or setStrategy the borrower did */
+        def.reset();
+        def.setLevel(kind / 6);
+        def.setStrategy(kind / 2 % 3);
+        ArrayDeque<Deflater> idle = this.idleDeflaters.get(kind);
+        synchronized (idle) {
+            if (idle.size() < this.maxIdle)
+                idle.push(def);
+        }
+    }
+
+    /**
+     * Gives back an Inflater that was borrowed from this pool.  It must not
+     * be used afterwards.  An Inflater that was ended is dropped.
+     *
+     * @throws IllegalArgumentException if inf wasn't borrowed from this
+     *                                  pool, or was already released.
+     */
+    public void release(Inflater inf) {
+        int kind = this.giveBack(inf.lease);
+        inf.lease = null;
+        if (inf.isEnded())
+            return;
+
+        inf.reset();
+        ArrayDeque<Inflater> idle = this.idleInflaters.get(kind);
+        synchronized (idle) {
+            if (idle.size() < this.maxIdle)
+                idle.push(inf);
+        }
+    }
+
+    /**
+     * Returns how many borrows were served by an idle instance.
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns how many borrows had to create a new instance.
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Returns how many borrowed instances were found to be garbage
+     * collected without being released.  Leaks are noticed on the next
+     * borrow after the collector got to them, so this may lag behind.
+     */
+    public long getLeaks() {
+        this.reapLeaks();
+        return this.leaks.sum();
+    }
+
+    /**
+     * Returns how many instances are borrowed and not released yet,
+     * leaked ones included until they are noticed.
+     */
+    public int getBorrowed() {
+        this.reapLeaks();
+        return this.borrowed.size();
+    }
+
+    private Lease lend(Object instance, int kind) {
+        this.reapLeaks();
+        Lease lease = new Lease(instance, this, kind);
+        this.borrowed.add(lease);
+        return lease;
+    }
+
+    private int giveBack(Lease lease) {
+        if (lease == null || lease.pool != this || !this.borrowed.remove(lease))
+            throw new IllegalArgumentException("Not borrowed from this pool");
+        /* A cleared reference is never enqueued, so this isn't a leak */
+        lease.clear();
+        return lease.kind;
+    }
+
+    private void reapLeaks() {
+        Reference<?> ref;
+        while ((ref = this.lost.poll()) != null) {
+            if (this.borrowed.remove(ref))
+                this.leaks.increment();
+        }
+    }
+}
@@ -37,6 +37,8 @@
 
 package cse332.jazzlib;
 
+import java.nio.ByteBuffer;
+
 /**
  * This is the Deflater class.  The deflater class compresses input
  * with the deflate algorithm described in RFC 1951.  It has several
@@ -90,6 +92,23 @@ public class Deflater {
      */
     public static final int DEFLATED = 8;
 
+    /**
+     * Flush mode for deflate(byte[], int, int, int).  Output is only
+     * written when the deflater decides to end a block.
+     */
+    public static final int NO_FLUSH = 0;
+    /**
+     * Flush mode that ends the current block and appends an empty stored
+     * block, so that all output so far is byte aligned and can be inflated
+     * without the input that follows.
+     */
+    public static final int SYNC_FLUSH = 2;
+    /**
+     * Flush mode like SYNC_FLUSH that also forgets the history, so that the
+     * output that follows can be inflated on its own.
+     */
+    public static final int FULL_FLUSH = 3;
+
     /*
      * The Deflater can do the following state transitions:
      *
@@ -152,10 +171,16 @@ public class Deflater {
      */
     private int state;
 
+    /**
+     * The flush mode of the flush in progress, NO_FLUSH if flush() asked
+     * for it.
+     */
+    private int flushMode;
+
     /**
      * The total bytes of output written.
      */
-    private int totalOut;
+    private long totalOut;
 
     /**
      * The pending output.
@@ -167,6 +192,12 @@ public class Deflater {
      */
     private OurDeflaterEngine engine;
 
+    /**
+     * The lease of the CompressorPool this deflater is borrowed from, or
+     * null.
+     */
+    CompressorPool.Lease lease;
+
     /**
      * Creates a new deflater with default compression level.
      */
@@ -186,7 +217,10 @@ public class Deflater {
     }
 
     /**
-     * Creates a new deflater with given compression level.
+     * Creates a new deflater with given compression level.  The level
+     * picks the MatchFinder: BEST_COMPRESSION searches a SuffixTrie with a
+     * LZ77Compressor, and the lower levels use a HashChainMatchFinder that
+     * looks harder the higher the level.
      *
      * @param lvl    the compression level, a value between NO_COMPRESSION
      *               and BEST_COMPRESSION.
@@ -196,13 +230,33 @@ public class Deflater {
      * @throws IllegalArgumentException if lvl is out of range.
      */
     public Deflater(int lvl, boolean nowrap) {
+        this(lvl, nowrap, new LevelMatchFinder());
+    }
+
+    /**
+     * Creates a new deflater with given compression level that finds its
+     * matches with the given MatchFinder.  Use a LZ77Compressor to search
+     * a SuffixTrie of the last BUFFER_LENGTH bytes, or a
+     * HashChainMatchFinder to search the full 32K window.
+     *
+     * @param lvl     the compression level, a value between NO_COMPRESSION
+     *                and BEST_COMPRESSION.
+     * @param nowrap  true, iff we should suppress the deflate header at the
+     *                beginning and the adler checksum at the end of the output.
+     * @param matcher the match finder; it must not be shared with another
+     *                deflater.
+     * @throws IllegalArgumentException if lvl is out of range.
+     */
+    public Deflater(int lvl, boolean nowrap, MatchFinder matcher) {
         if (lvl == DEFAULT_COMPRESSION)
             lvl = 9;
         else if (lvl < NO_COMPRESSION || lvl > BEST_COMPRESSION)
             throw new IllegalArgumentException();
+        if (matcher == null)
+            throw new NullPointerException();
 
         pending = new DeflaterPending();
-        engine = new OurDeflaterEngine(pending);
+        engine = new OurDeflaterEngine(pending, matcher);
         this.noHeader = nowrap;
         setStrategy(DEFAULT_STRATEGY);
         setLevel(lvl);
@@ -216,6 +270,7 @@ public class Deflater {
      */
     public void reset() {
         state = (noHeader ? BUSY_STATE : INIT_STATE);
+        flushMode = NO_FLUSH;
         totalOut = 0;
         pending.reset();
         engine.reset();
@@ -238,6 +293,13 @@ public class Deflater {
         state = CLOSED_STATE;
     }
 
+    /**
+     * Returns true, if end() was called.
+     */
+    boolean isEnded() {
+        return state == CLOSED_STATE;
+    }
+
     /**
      * Gets the current adler checksum of the data that was processed so
      * far.
@@ -255,9 +317,19 @@ public class Deflater {
     }
 
     /**
-     * Gets the number of output bytes so far.
+     * Gets the number of output bytes so far, modulo 2^32 like in Sun's
+     * JDK.
+     *
+     * @see #getBytesWritten()
      */
     public int getTotalOut() {
+        return (int) totalOut;
+    }
+
+    /**
+     * Gets the number of output bytes so far, even beyond 4 GiB.
+     */
+    public long getBytesWritten() {
         return totalOut;
     }
 
@@ -341,6 +413,23 @@ public class Deflater {
         engine.setInput(input, off, len);
     }
 
+    /**
+     * Sets the data which should be compressed next, from the position to
+     * the limit of a heap or direct buffer.  The buffer's position is
+     * advanced as the data is compressed, and needsInput() returns true
+     * once it reaches the limit.  The contents of the buffer should not
+     * be changed before then.
+     *
+     * @param input the buffer containing the input data.
+     * @throws IllegalStateException if the buffer was finished() or ended()
+     *                               or if previous input is still pending.
+     */
+    public void setInput(ByteBuffer input) {
+        if ((state & IS_FINISHING) != 0)
+            throw new IllegalStateException("finish()/end() already called");
+        engine.setInput(input);
+    }
+
     /**
      * Sets the compression level.  There is no guarantee of the exact
      * position of the change, but if you call this when needsInput is
@@ -348,9 +437,16 @@ public class Deflater {
      * before the end of the so far given input.
      *
      * @param lvl the new compression level.
+     * @throws IllegalArgumentException if lvl is out of range.
      */
     public void setLevel(int lvl) {
-        lvl = 9;
+        if (lvl == DEFAULT_COMPRESSION)
+            lvl = 9;
+        else if (lvl < NO_COMPRESSION || lvl > BEST_COMPRESSION)
+            throw new IllegalArgumentException();
+
+        level = lvl;
+        engine.setLevel(lvl);
     }
 
     /**
@@ -365,7 +461,7 @@ public class Deflater {
         if (stgy != DEFAULT_STRATEGY && stgy != FILTERED
                 && stgy != HUFFMAN_ONLY)
             throw new IllegalArgumentException();
-        //engine.setStrategy(stgy);
+        engine.setStrategy(stgy);
     }
 
     /**
@@ -392,6 +488,52 @@ public class Deflater {
      *                                   don't match the array length.
      */
     public int deflate(byte[] output, int offset, int length) {
+        return deflate(output, offset, length, null);
+    }
+
+    /**
+     * Deflates the current input block to the given buffer, from its
+     * position up to its limit, and advances its position.  It returns
+     * the number of bytes compressed, or 0 if either needsInput() or
+     * finished() returns true or the buffer has no room left.
+     *
+     * @param output the heap or direct buffer where to write the
+     *               compressed data.
+     * @throws IllegalStateException if end() was called.
+     * @throws java.nio.ReadOnlyBufferException if output is read-only.
+     */
+    public int deflate(ByteBuffer output) {
+        if (output.hasArray()) {
+            int pos = output.position();
+            int count = deflate(output.array(), output.arrayOffset() + pos,
+                    output.remaining());
+            output.position(pos + count);
+            return count;
+        }
+        return deflate(null, 0, output.remaining(), output);
+    }
+
+    /**
+     * Deflates the current input block to the given buffer, flushing it as
+     * flush says.  This is deflate(ByteBuffer) with the flush modes of
+     * deflate(byte[], int, int, int).
+     *
+     * @param output the heap or direct buffer where to write the
+     *               compressed data.
+     * @param flush  NO_FLUSH, SYNC_FLUSH or FULL_FLUSH.
+     * @throws IllegalArgumentException if flush isn't a flush mode.
+     * @throws IllegalStateException    if end() was called.
+     */
+    public int deflate(ByteBuffer output, int flush) {
+        setFlushMode(flush);
+        return deflate(output);
+    }
+
+    /**
+     * Deflates to output[offset..offset+length), or to direct if that
+     * isn't null, whose remaining bytes length must be.
+     */
+    private int deflate(byte[] output, int offset, int length, ByteBuffer direct) {
         int origLength = length;
 
         if (state == CLOSED_STATE)
@@ -422,7 +564,8 @@ public class Deflater {
         }
 
         for (; ; ) {
-            int count = pending.flush(output, offset, length);
+            int count = direct != null ? pending.flush(direct)
+                    : pending.flush(output, offset, length);
             offset += count;
             totalOut += count;
             length -= count;
@@ -435,7 +578,18 @@ public class Deflater {
                     /* We need more input now */
                     return origLength - length;
                 else if (state == FLUSHING_STATE) {
-                    if (level != NO_COMPRESSION) {
+                    if (flushMode != NO_FLUSH) {
+                        /* write an empty stored block, which aligns the
+                         * output to a byte boundary:
+                         */
+                        pending.writeBits(DeflaterConstants.STORED_BLOCK << 1, 3);
+                        pending.alignToByte();
+                        pending.writeShort(0);
+                        pending.writeShort(0xffff);
+                        if (flushMode == FULL_FLUSH)
+                            engine.resetHistory();
+                        flushMode = NO_FLUSH;
+                    } else if (level != NO_COMPRESSION) {
                         /* We have to supply some lookahead.  8 bit lookahead
                          * are needed by the zlib inflater, and we must fill
                          * the next byte, so that all bits are flushed.
@@ -466,6 +620,37 @@ public class Deflater {
         return origLength - length;
     }
 
+    /**
+     * Deflates the current input block to the given array, flushing it as
+     * flush says.  With SYNC_FLUSH or FULL_FLUSH, the flush is complete
+     * once the return value is less than length; otherwise call this
+     * again with the same mode to get the rest.
+     *
+     * @param output the buffer where to write the compressed data.
+     * @param offset the offset into the output array.
+     * @param length the maximum number of bytes that may be written.
+     * @param flush  NO_FLUSH, SYNC_FLUSH or FULL_FLUSH.
+     * @throws IllegalArgumentException  if flush isn't a flush mode.
+     * @throws IllegalStateException     if end() was called.
+     * @throws IndexOutOfBoundsException if offset and/or length
+     *                                   don't match the array length.
+     */
+    public int deflate(byte[] output, int offset, int length, int flush) {
+        setFlushMode(flush);
+        return deflate(output, offset, length);
+    }
+
+    private void setFlushMode(int flush) {
+        if (flush == SYNC_FLUSH || flush == FULL_FLUSH) {
+            /* After finish() the stream ends anyway */
+            if (state != CLOSED_STATE && (state & IS_FINISHING) == 0) {
+                state |= IS_FLUSHING;
+                flushMode = flush;
+            }
+        } else if (flush != NO_FLUSH)
+            throw new IllegalArgumentException("Unknown flush mode " + flush);
+    }
+
     /**
      * Sets the dictionary which should be used in the deflate process.
      * This call is equivalent to <code>setDictionary(dict, 0,
@@ -496,8 +681,11 @@ public class Deflater {
     public void setDictionary(byte[] dict, int offset, int length) {
         if (state != INIT_STATE)
             throw new IllegalStateException();
+        if (offset < 0 || length < 0 || offset + length > dict.length
+                || offset + length < 0)
+            throw new ArrayIndexOutOfBoundsException();
 
         state = SETDICT_STATE;
-        //engine.setDictionary(dict, offset, length);
+        engine.setDictionary(dict, offset, length);
     }
 }
@@ -42,6 +42,7 @@ import main.Zip;
 public abstract class DeflaterConstants {
     public static boolean DEBUGGING = Zip.DEBUG_OUTPUT;
     public static int BUFFER_LENGTH = Zip.BUFFER_LENGTH;
+    public static boolean TRIE_HUFFMAN_TREES = Zip.TRIE_HUFFMAN_TREES;
 
     final static int STORED_BLOCK = 0;
     final static int STATIC_TREES = 1;
@@ -0,0 +1,233 @@
+package cse332.jazzlib;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A DictionaryTrainer builds a preset dictionary for Deflater.setDictionary
+ * from samples of the data that will be compressed, such as typical small
+ * messages.  Short inputs compress badly on their own because they have no
+ * history to match against; a dictionary of the strings they tend to share
+ * gives them one.
+ * <p>
+ * The trainer works like the COVER algorithm of zstd.  Every kmerLength
+ * bytes of a sample form a k-mer, and a k-mer is worth the number of
+ * samples it occurs in.  The samples are cut into as many epochs as the
+ * dictionary has segments, and from each epoch the segment of
+ * segmentLength bytes whose distinct k-mers are worth the most is taken.
+ * K-mers that were taken are worth nothing afterwards, so later segments
+ * cover other strings.
+ * <p>
+ * The segments are put in the dictionary from least to most valuable.  The
+ * end of the dictionary is the closest to the input, which makes matches
+ * into it the cheapest, and a match finder with a small window (like the
+ * LZ77Compressor, which only keeps BUFFER_LENGTH bytes) only sees the end.
+ *
+ * @see Deflater#setDictionary(byte[])
+ */
+public class DictionaryTrainer {
+    /**
+     * The k-mer length unless the constructor says otherwise.
+     */
+    public static final int DEFAULT_KMER_LENGTH = 6;
+
+    /**
+     * The segment length unless the constructor says otherwise.
+     */
+    public static final int DEFAULT_SEGMENT_LENGTH = 64;
+
+    private static final int HASH_BITS = 20;
+
+    private final int kmerLength;
+    private final int segmentLength;
+    private final List<byte[]> samples = new ArrayList<>();
+    private int totalLength;
+
+    /**
+     * A segment that was taken, and what it was worth when it was taken.
+     */
+    private static final class Segment {
+        final byte[] sample;
+        final int start;
+        final long score;
+
+        Segment(byte[] sample, int start, long score) {
+            this.sample = sample;
+            this.start = start;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Creates a new DictionaryTrainer with the default k-mer and segment
+     * lengths.
+     */
+    public DictionaryTrainer() {
+        this(DEFAULT_KMER_LENGTH, DEFAULT_SEGMENT_LENGTH);
+    }
+
+    /**
+     * Creates a new DictionaryTrainer.
+     *
+     * @param kmerLength    the length of the strings that are counted,
+     *                      between MIN_MATCH (3) and 8.
+     * @param segmentLength the length of the pieces the dictionary is made
+     *                      of, at least kmerLength.
+     * @throws IllegalArgumentException if a length is out of range.
+     */
+    public DictionaryTrainer(int kmerLength, int segmentLength) {
+        if (kmerLength < DeflaterConstants.MIN_MATCH || kmerLength > 8)
+            throw new IllegalArgumentException("kmerLength must be between 3 and 8");
+        if (segmentLength < kmerLength)
+            throw new IllegalArgumentException("segmentLength < kmerLength");
+        this.kmerLength = kmerLength;
+        this.segmentLength = segmentLength;
+    }
+
+    /**
+     * Adds a sample.  The array is copied.
+     */
+    public void addSample(byte[] sample) {
+        this.addSample(sample, 0, sample.length);
+    }
+
+    /**
+     * Adds sample[off..off+len) as a sample.  The bytes are copied.
+     *
+     * @throws IndexOutOfBoundsException if off and len don't fit sample.
+     */
+    public void addSample(byte[] sample, int off, int len) {
+        if (off < 0 || len < 0 || off + len > sample.length || off + len < 0)
+            throw new IndexOutOfBoundsException();
+        this.samples.add(Arrays.copyOfRange(sample, off, off + len));
+        this.totalLength += len;
+    }
+
+    /**
+     * Builds a dictionary of at most maxSize bytes from the samples added
+     * so far.  If all samples together are no longer than maxSize, they are
+     * the dictionary.
+     *
+     * @param maxSize the largest dictionary to build.  Anything beyond the
+     *                32K window of deflate is never used.
+     * @throws IllegalArgumentException if maxSize is negative.
+     */
+    public byte[] train(int maxSize) {
+        if (maxSize < 0)
+            throw new IllegalArgumentException("maxSize < 0");
+        if (this.totalLength <= maxSize) {
+            ByteArrayOutputStream all = new ByteArrayOutputStream(this.totalLength);
+            for (byte[] sample : this.samples)
+                all.write(sample, 0, sample.length);
+            return all.toByteArray();
+        }
+
+        int[] worth = this.countKmers();
+        int[] active = new int[1 << HASH_BITS];
+        int segments = Math.max(1, maxSize / this.segmentLength);
+        long epochLength = Math.max(this.segmentLength, this.totalLength / segments);
+
+        List<Segment> taken = new ArrayList<>();
+        int sampleIndex = 0;
+        int pos = 0;
+        for (int epoch = 0; epoch < segments && sampleIndex < this.samples.size(); epoch++) {
+            /* Find the best segment starting in the next epochLength bytes */
+            Segment best = null;
+            long budget = epochLength;
+            while (budget > 0 && sampleIndex < this.samples.size()) {
+                byte[] sample = this.samples.get(sampleIndex);
+                int end = (int) Math.min(sample.length, pos + budget);
+                Segment candidate = this.bestSegment(sample, pos, end, worth, active);
+                if (candidate != null && (best == null || candidate.score > best.score))
+                    best = candidate;
+                budget -= end - pos;
+                pos = end;
+                if (pos == sample.length) {
+                    sampleIndex++;
+                    pos = 0;
+                }
+            }
+            if (best == null || best.score == 0)
+                continue;
+
+            taken.add(best);
+            int stop = Math.min(best.sample.length, best.start + this.segmentLength) - this.kmerLength;
+            for (int i = best.start; i <= stop; i++)
+                worth[this.hash(best.sample, i)] = 0;
+        }
+
+        taken.sort((a, b) -> Long.compare(a.score, b.score));
+        ByteArrayOutputStream dict = new ByteArrayOutputStream(maxSize);
+        for (Segment segment : taken) {
+            int len = Math.min(this.segmentLength, segment.sample.length - segment.start);
+            len = Math.min(len, maxSize - dict.size());
+            dict.write(segment.sample, segment.start, len);
+        }
+        return dict.toByteArray();
+    }
+
+    /**
+     * Returns, for every k-mer hash, the number of samples it occurs in.
+     */
+    private int[] countKmers() {
+        int[] worth = new int[1 << HASH_BITS];
+        int[] lastSample = new int[1 << HASH_BITS];
+        for (int s = 0; s < this.samples.size(); s++) {
+            byte[] sample = this.samples.get(s);
+            for (int i = 0; i + this.kmerLength <= sample.length; i++) {
+                int h = this.hash(sample, i);
+                if (lastSample[h] != s + 1) {
+                    lastSample[h] = s + 1;
+                    worth[h]++;
+                }
+            }
+        }
+        return worth;
+    }
+
+    /**
+     * Slides a segment over the starts in sample[from..to) and returns the
+     * one whose distinct k-mers are worth the most, or null if there is no
+     * room for a k-mer.  active counts the k-mers in the segment and is all
+     * zero again afterwards.
+     */
+    private Segment bestSegment(byte[] sample, int from, int to, int[] worth, int[] active) {
+        int kmers = this.segmentLength - this.kmerLength + 1;
+        int last = sample.length - this.kmerLength;
+        if (from > last)
+            return null;
+
+        long score = 0;
+        long bestScore = -1;
+        int bestStart = from;
+        int in = from;
+        for (int start = from; start < to && start <= last; start++) {
+            /* The segment at start covers the k-mers at start..start+kmers */
+            int end = Math.min(start + kmers, last + 1);
+            for (; in < end; in++) {
+                int h = this.hash(sample, in);
+                if (active[h]++ == 0)
+                    score += worth[h];
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestStart = start;
+            }
+            int h = this.hash(sample, start);
+            if (--active[h] == 0)
+                score -= worth[h];
+        }
+        for (int i = Math.min(to, last + 1); i < in; i++)
+            active[this.hash(sample, i)]--;
+        return new Segment(sample, bestStart, bestScore);
+    }
+
+    private int hash(byte[] b, int off) {
+        long v = 0;
+        for (int i = 0; i < this.kmerLength; i++)
+            v = (v << 8) | (b[off + i] & 0xff);
+        return (int) ((v * 0x9E3779B97F4A7C15L) >>> (64 - HASH_BITS));
+    }
+}
@@ -40,6 +40,8 @@ package cse332.jazzlib;
 import java.io.InputStream;
 import java.io.IOException;
 import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 /**
  * This filter stream is used to decompress a "GZIP" format stream. 
@@ -353,4 +355,48 @@ public class GZIPInputStream
          */
         eos = true;
     }
+
+    /**
+     * Reads the GZIP header at pos of file, and returns the offset of the
+     * deflate stream after it.  The header CRC is not checked.  This is
+     * for readers that find the members of a file themselves.
+     *
+     * @see IndexedInflaterInputStream
+     * @see ParallelGZIPInputStream
+     */
+    static long skipHeader(FileChannel file, long pos) throws IOException
+    {
+        if ((readByte(file, pos) << 8 | readByte(file, pos + 1)) != GZIP_MAGIC)
+            throw new ZipException("Error in GZIP header, bad magic code");
+        if (readByte(file, pos + 2) != Deflater.DEFLATED)
+            throw new ZipException("Error in GZIP header, data not in deflate format");
+        int flags = readByte(file, pos + 3);
+
+        /* Skip the modification time, extra flags and OS type */
+        pos += 10;
+        if ((flags & FEXTRA) != 0)
+            pos += 2 + (readByte(file, pos) | readByte(file, pos + 1) << 8);
+        if ((flags & FNAME) != 0)
+            while (readByte(file, pos++) != 0)
+                ;
+        if ((flags & FCOMMENT) != 0)
+            while (readByte(file, pos++) != 0)
+                ;
+        if ((flags & FHCRC) != 0)
+            pos += 2;
+        return pos;
+    }
+
+    /**
+     * Reads the byte at pos of file.
+     *
+     * @throws EOFException if pos is at or beyond the end of file.
+     */
+    static int readByte(FileChannel file, long pos) throws IOException
+    {
+        ByteBuffer single = ByteBuffer.allocate(1);
+        if (file.read(single, pos) <= 0)
+            throw new EOFException("Early EOF in GZIP file");
+        return single.get(0) & 0xff;
+    }
 }
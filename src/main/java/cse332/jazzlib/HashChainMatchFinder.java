@@ -0,0 +1,397 @@
+/* net.sf.jazzlib.HashChainMatchFinder
+   Copyright (C) 2001 Free Software Foundation, Inc.
+
+   This file is part of GNU Classpath.
+
+   GNU Classpath is free software; you can redistribute it and/or modify
+   it under the terms of the GNU General Public License as published by
+   the Free Software Foundation; either version 2, or (at your option)
+   any later version.
+
+   GNU Classpath is distributed in the hope that it will be useful, but
+   WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+   General Public License for more details.
+
+   You should have received a copy of the GNU General Public License
+   along with GNU Classpath; see the file COPYING.  If not, write to the
+   Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+   02111-1307 USA.
+
+   Linking this library statically or dynamically with other modules is
+   making a combined work based on this library.  Thus, the terms and
+   conditions of the GNU General Public License cover the whole
+   combination.
+
+   As a special exception, the copyright holders of this library give you
+   permission to link this library with independent modules to produce an
+   executable, regardless of the license terms of these independent
+   modules, and to copy and distribute the resulting executable under
+   terms of your choice, provided that you also meet, for each linked
+   independent module, the terms and conditions of the license of that
+   module.  An independent module is a module which is not derived from
+   or based on this library.  If you modify this library, you may extend
+   this exception to your version of the library, but you are not
+   obligated to do so.  If you do not wish to do so, delete this
+   exception statement from your version. */
+
+
+package cse332.jazzlib;
+
+import datastructures.worklists.CircularByteArrayFIFOQueue;
+
+/**
+ * A MatchFinder that searches the last 32K of input through hash chains.
+ * This is the matching half of DeflaterEngine: three bytes hash to an
+ * index in head, and prev links every position to the previous position
+ * with the same hash.
+ * <p>
+ * The finder keeps its own copy of the history in window.  The first
+ * lookahead bytes of the buffer are mirrored at window[strstart..], so
+ * that matches can be compared in one array.
+ * <p>
+ * Levels 1-4 take the first match they find (greedy); higher levels
+ * check whether the next byte starts a longer match before committing
+ * (lazy).  The chain limits for each level are in DeflaterConstants.
+ *
+ * @author Jochen Hoenicke
+ */
+public class HashChainMatchFinder extends DeflaterConstants implements MatchFinder {
+    private final static int TOO_FAR = 4096;
+
+    /**
+     * Hashtable, hashing three characters to an index for window, so
+     * that window[index]..window[index+2] have this hash code.
+     * Note that the array should really be unsigned short, so you need
+     * to and the values with 0xffff.
+     */
+    private short[] head;
+
+    /**
+     * prev[index & WMASK] points to the previous index that has the
+     * same hash code as the string starting at index.  This way
+     * entries with the same hash code are in a linked list.
+     * Note that the array should really be unsigned short, so you need
+     * to and the values with 0xffff.
+     */
+    private short[] prev;
+
+    /**
+     * This array contains the part of the uncompressed stream that
+     * is of relevance.  The current character is indexed by strstart.
+     */
+    private byte[] window;
+
+    /**
+     * strstart points to the current character in window.
+     */
+    private int strstart;
+
+    /**
+     * lookahead is the number of bytes at the front of the buffer that
+     * were already copied to window[strstart..].
+     */
+    private int lookahead;
+
+    /**
+     * The next position in window that still has to be inserted into
+     * the hash chains.  Positions are inserted as soon as all three of
+     * their bytes are in the window.
+     */
+    private int insertPos;
+
+    private int matchStart, matchLen;
+
+    /**
+     * True iff matchStart and matchLen already hold the match for
+     * strstart, found while looking ahead in lazy mode.
+     */
+    private boolean matchAvailable;
+
+    private int strategy, maxChain, maxLazy, niceLength, goodLength;
+
+    /** True for lazy matching, false for greedy matching. */
+    private boolean lazy;
+
+    public HashChainMatchFinder() {
+        window = new byte[2 * WSIZE];
+        head = new short[HASH_SIZE];
+        prev = new short[WSIZE];
+
+        setStrategy(Deflater.DEFAULT_STRATEGY);
+        setLevel(Deflater.BEST_COMPRESSION);
+        reset();
+    }
+
+    public void setStrategy(int strat) {
+        strategy = strat;
+    }
+
+    public void setLevel(int lvl) {
+        goodLength = GOOD_LENGTH[lvl];
+        niceLength = NICE_LENGTH[lvl];
+        maxChain = MAX_CHAIN[lvl];
+        maxLazy = MAX_LAZY[lvl];
+        lazy = COMPR_FUNC[lvl] == DEFLATE_SLOW;
+    }
+
+    public void reset() {
+        /* We start at index 1, to avoid a implementation deficiency, that
+         * we cannot build a repeat pattern at index 0.
+         */
+        strstart = insertPos = 1;
+        lookahead = 0;
+        matchStart = 0;
+        matchLen = MIN_MATCH - 1;
+        matchAvailable = false;
+        for (int i = 0; i < HASH_SIZE; i++)
+            head[i] = 0;
+        for (int i = 0; i < WSIZE; i++)
+            prev[i] = 0;
+    }
+
+    /**
+     * Copies the last MAX_DIST bytes of the dictionary to the window in
+     * front of strstart and hashes them, like zlib's deflateSetDictionary.
+     * The last two positions are hashed once their third byte arrives.
+     */
+    public void setDictionary(byte[] dict, int off, int len) {
+        if (len > MAX_DIST) {
+            off += len - MAX_DIST;
+            len = MAX_DIST;
+        }
+        System.arraycopy(dict, off, window, strstart, len);
+        strstart += len;
+        while (insertPos + MIN_MATCH <= strstart) {
+            insertString(insertPos++);
+        }
+    }
+
+    public void findNextMatch(CircularByteArrayFIFOQueue buffer, HuffmanCompressor huffman) {
+        if (!buffer.hasWork()) {
+            return;
+        }
+
+        if (strstart >= WSIZE + MAX_DIST) {
+            slideWindow();
+        }
+        fillLookahead(buffer);
+
+        if (!matchAvailable)
+            findMatch(MIN_MATCH - 1);
+        matchAvailable = false;
+
+        if (lazy && matchLen >= MIN_MATCH && matchLen < maxLazy) {
+            /* Check whether the match starting at the next byte is
+             * longer; if so, emit this byte as a literal instead.
+             */
+            int curStart = matchStart;
+            int curLen = matchLen;
+            strstart++;
+            lookahead--;
+            findMatch(curLen);
+            strstart--;
+            lookahead++;
+
+            if (matchLen > curLen) {
+                huffman.tallyLit(window[strstart] & 0xff);
+                consume(buffer, 1);
+                matchAvailable = true;
+                return;
+            }
+            matchStart = curStart;
+            matchLen = curLen;
+        }
+
+        if (matchLen >= MIN_MATCH) {
+            huffman.tallyDist(strstart - matchStart, matchLen);
+            consume(buffer, matchLen);
+
+            /* Like zlib, the fast levels don't bother hashing the inside
+             * of long matches.
+             */
+            if (!lazy && matchLen > maxLazy)
+                insertPos = Math.max(insertPos, strstart);
+        } else {
+            huffman.tallyLit(window[strstart] & 0xff);
+            consume(buffer, 1);
+        }
+    }
+
+    /**
+     * Looks for a match at strstart that is longer than prevLen and
+     * stores it in matchStart and matchLen.  If there is none, matchLen
+     * is left at most prevLen.
+     */
+    private void findMatch(int prevLen) {
+        matchLen = prevLen;
+        int hashHead = insertStrings();
+        if (hashHead == 0 || strstart - hashHead > MAX_DIST
+                || !findLongestMatch(hashHead)) {
+            matchLen = MIN_MATCH - 1;
+            return;
+        }
+
+        /* Discard match if too small and too far away */
+        if (matchLen <= 5
+                && (strategy == Deflater.FILTERED
+                    || (matchLen == MIN_MATCH && strstart - matchStart > TOO_FAR))) {
+            matchLen = MIN_MATCH - 1;
+        }
+    }
+
+    /**
+     * Copies the front of buffer to window[strstart..], so that there is
+     * as much lookahead as a single match can use.
+     */
+    private void fillLookahead(CircularByteArrayFIFOQueue buffer) {
+        if (lookahead > buffer.size()) {
+            lookahead = buffer.size();
+        }
+        int wanted = Math.min(buffer.size(), MAX_MATCH);
+        if (lookahead < wanted) {
+            lookahead += buffer.peekBytes(lookahead, window,
+                    strstart + lookahead, wanted - lookahead);
+        }
+    }
+
+    /**
+     * Removes len bytes, which are already mirrored in the window, from
+     * the buffer and moves strstart past them.
+     */
+    private void consume(CircularByteArrayFIFOQueue buffer, int len) {
+        buffer.drain(window, strstart, len);
+        strstart += len;
+        lookahead -= len;
+    }
+
+    /**
+     * Inserts every pending position up to strstart whose three bytes are
+     * known into the hash chains.
+     *
+     * @return the previous head of the chain for strstart, or 0 if there
+     * is none or strstart could not be inserted yet
+     */
+    private int insertStrings() {
+        int hashHead = 0;
+        int end = strstart + lookahead - (MIN_MATCH - 1);
+        while (insertPos <= strstart && insertPos < end) {
+            int match = insertString(insertPos);
+            if (insertPos == strstart) {
+                hashHead = match;
+            }
+            insertPos++;
+        }
+        return hashHead;
+    }
+
+    /**
+     * Inserts the string at pos in the head hash and returns the previous
+     * value for this hash.
+     */
+    private int insertString(int pos) {
+        int hash = ((window[pos] << (2 * HASH_SHIFT))
+                ^ (window[pos + 1] << HASH_SHIFT)
+                ^ window[pos + 2]) & HASH_MASK;
+        short match = head[hash];
+        prev[pos & WMASK] = match;
+        head[hash] = (short) pos;
+        return match & 0xffff;
+    }
+
+    private void slideWindow() {
+        System.arraycopy(window, WSIZE, window, 0, WSIZE);
+        matchStart -= WSIZE;
+        strstart -= WSIZE;
+        insertPos -= WSIZE;
+
+        /* Slide the hash table (could be avoided with 32 bit values
+         * at the expense of memory usage).
+         */
+        for (int i = 0; i < HASH_SIZE; i++) {
+            int m = head[i] & 0xffff;
+            head[i] = m >= WSIZE ? (short) (m - WSIZE) : 0;
+        }
+
+        /* Slide the prev table. */
+        for (int i = 0; i < WSIZE; i++) {
+            int m = prev[i] & 0xffff;
+            prev[i] = m >= WSIZE ? (short) (m - WSIZE) : 0;
+        }
+    }
+
+    /**
+     * Find the best (longest) string in the window matching the
+     * string starting at strstart.
+     *
+     * Preconditions:
+     *    strstart + MAX_MATCH <= window.length.
+     *
+     * @param curMatch the most recent earlier position with the same hash
+     */
+    private boolean findLongestMatch(int curMatch) {
+        int chainLength = this.maxChain;
+        int niceLength = this.niceLength;
+        short[] prev = this.prev;
+        int scan = this.strstart;
+        int match;
+        int best_end = this.strstart + matchLen;
+        int best_len = Math.max(matchLen, MIN_MATCH - 1);
+
+        int limit = Math.max(strstart - MAX_DIST, 0);
+
+        int strend = scan + MAX_MATCH - 1;
+        byte scan_end1 = window[best_end - 1];
+        byte scan_end = window[best_end];
+
+        /* Do not waste too much time if we already have a good match: */
+        if (best_len >= this.goodLength)
+            chainLength >>= 2;
+
+        /* Do not look for matches beyond the end of the input. This is necessary
+         * to make deflate deterministic.
+         */
+        if (niceLength > lookahead)
+            niceLength = lookahead;
+
+        do {
+            if (window[curMatch + best_len] != scan_end
+                    || window[curMatch + best_len - 1] != scan_end1
+                    || window[curMatch] != window[scan]
+                    || window[curMatch + 1] != window[scan + 1])
+                continue;
+
+            match = curMatch + 2;
+            scan += 2;
+
+            /* We check for insufficient lookahead only every 8th comparison;
+             * the 256th check will be made at strstart+258.
+             */
+            while (window[++scan] == window[++match]
+                    && window[++scan] == window[++match]
+                    && window[++scan] == window[++match]
+                    && window[++scan] == window[++match]
+                    && window[++scan] == window[++match]
+                    && window[++scan] == window[++match]
+                    && window[++scan] == window[++match]
+                    && window[++scan] == window[++match]
+                    && scan < strend) ;
+
+            if (scan > best_end) {
+                matchStart = curMatch;
+                best_end = scan;
+                best_len = scan - strstart;
+                if (best_len >= niceLength)
+                    break;
+
+                scan_end1 = window[best_end - 1];
+                scan_end = window[best_end];
+            }
+            scan = strstart;
+        } while ((curMatch = (prev[curMatch & WMASK] & 0xffff)) > limit
+                && --chainLength != 0);
+
+        matchLen = Math.min(best_len, lookahead);
+        return matchLen >= MIN_MATCH;
+    }
+}
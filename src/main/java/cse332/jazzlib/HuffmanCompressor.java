@@ -42,6 +42,8 @@ import java.util.*;
 import cse332.datastructures.containers.Item;
 import cse332.types.BitString;
 import datastructures.dictionaries.HashTrieMap;
+import datastructures.worklists.DAryHeap;
+import datastructures.worklists.IntDAryHeap;
 
 /**
  * This is the HuffmanCompressor class.
@@ -76,6 +78,31 @@ public class HuffmanCompressor
         int     minNumCodes, numCodes;
         int     maxLength;
 
+        /* Buffers that length, codes and buildCodes reuse between blocks */
+        private final short[] codesBuf;
+        private final byte[]  lengthBuf;
+        private final int[]   nextCode;
+
+        /*
+         * The array-based tree.  Nodes 0 .. freqs.length-1 are the leaves,
+         * one per symbol, and internal nodes are numbered after them.  The
+         * children of internal node n are children[2 * (n - freqs.length)]
+         * (bit 0) and children[2 * (n - freqs.length) + 1] (bit 1), or -1.
+         */
+        private final int[] nodeFreqs;
+        private final int[] children;
+        private final IntDAryHeap heap;
+        private final int[] heapSymbols;
+        private final int[] heapFreqs;
+        private final int[] stack;
+        private final int[] nodeDepths;
+        private int numNodes, arrayRoot;
+
+        /* The leaves of the array-based tree, left to right, with depths */
+        private final int[] leaves;
+        private final int[] leafDepths;
+        private int numLeaves;
+
         Tree(int elems, int minCodes, int maxLength) {
             super(BitString.class);
 
@@ -83,6 +110,20 @@ public class HuffmanCompressor
             this.maxLength  = maxLength;
             freqs  = new short[elems];
             bl_counts = new int[maxLength];
+
+            codesBuf = new short[elems];
+            lengthBuf = new byte[elems];
+            nextCode = new int[maxLength];
+
+            nodeFreqs = new int[2 * elems];
+            children = new int[2 * elems];
+            heap = new IntDAryHeap(DAryHeap.DEFAULT_ARITY, elems + 1);
+            heapSymbols = new int[elems];
+            heapFreqs = new int[elems];
+            stack = new int[2 * elems];
+            nodeDepths = new int[2 * elems];
+            leaves = new int[elems];
+            leafDepths = new int[elems];
         }
 
         public int getOverflow() {
@@ -153,6 +194,15 @@ public class HuffmanCompressor
             pending.writeBits(codes[code] & 0xffff, length[code]);
         }
 
+        final void writeSymbolWithExtra(int code, int extra, int extraBits)
+        {
+            if (DeflaterConstants.DEBUGGING) {
+                freqs[code]--;
+            }
+            pending.writeSymbolWithExtra(codes[code] & 0xffff, length[code],
+                                         extra, extraBits);
+        }
+
         final void checkEmpty()
         {
             boolean empty = true;
@@ -174,7 +224,8 @@ public class HuffmanCompressor
         }
 
         public void buildLength() {
-            length = new byte[freqs.length];
+            length = lengthBuf;
+            Arrays.fill(length, (byte) 0);
 
             for (int i = 0; i < maxLength; i++)
                 bl_counts[i] = 0;
@@ -195,23 +246,7 @@ public class HuffmanCompressor
             }
 
             if (overflow != 0) {
-                int incrBitLen = maxLength - 1;
-                do {
-                    while (bl_counts[--incrBitLen] == 0);
-
-                    do {
-                        bl_counts[incrBitLen]--;
-                        bl_counts[++incrBitLen]++;
-                        overflow -= 1 << (maxLength - 1 - incrBitLen);
-                    } while ((overflow > 0) && (incrBitLen < (maxLength - 1)));
-                } while (overflow > 0);
-
-    			/*
-    			 * We may have overshot above. Move some nodes from maxLength to
-    			 * maxLength-1 in that case.
-    			 */
-                bl_counts[maxLength - 1] += overflow;
-                bl_counts[maxLength - 2] -= overflow;
+                fixOverflow(overflow);
 
                 Collections.sort(tree, (x, y) -> x.size() - y.size());
 
@@ -228,10 +263,104 @@ public class HuffmanCompressor
             }
         }
 
+        /**
+         * Moves leaves out of the levels deeper than maxLength by adjusting
+         * bl_counts, so that the code is still complete.
+         */
+        private void fixOverflow(int overflow) {
+            int incrBitLen = maxLength - 1;
+            do {
+                while (bl_counts[--incrBitLen] == 0);
+
+                do {
+                    bl_counts[incrBitLen]--;
+                    bl_counts[++incrBitLen]++;
+                    overflow -= 1 << (maxLength - 1 - incrBitLen);
+                } while ((overflow > 0) && (incrBitLen < (maxLength - 1)));
+            } while (overflow > 0);
+
+    		/*
+    		 * We may have overshot above. Move some nodes from maxLength to
+    		 * maxLength-1 in that case.
+    		 */
+            bl_counts[maxLength - 1] += overflow;
+            bl_counts[maxLength - 2] -= overflow;
+        }
+
+        /**
+         * Same as buildLength, but for the array-based tree: leaves that
+         * end up with the same length are ordered left to right, just like
+         * the trie's iterator orders them.
+         */
+        private void buildArrayLength() {
+            length = lengthBuf;
+            Arrays.fill(length, (byte) 0);
+
+            for (int i = 0; i < maxLength; i++)
+                bl_counts[i] = 0;
+
+            int overflow = 0;
+            int maxDepth = 0;
+            numLeaves = 0;
+            if (arrayRoot >= 0) {
+                /* Walk the tree in preorder, bit 0 before bit 1 */
+                int top = 0;
+                stack[top++] = arrayRoot;
+                nodeDepths[arrayRoot] = 0;
+                while (top > 0) {
+                    int node = stack[--top];
+                    int depth = nodeDepths[node];
+                    if (node < freqs.length) {
+                        leaves[numLeaves] = node;
+                        leafDepths[numLeaves++] = depth;
+                        maxDepth = Math.max(maxDepth, depth);
+                        continue;
+                    }
+
+                    int zero = children[2 * (node - freqs.length)];
+                    int one = children[2 * (node - freqs.length) + 1];
+                    if (one >= 0) {
+                        if (depth + 1 > maxLength)
+                            overflow++;
+                        nodeDepths[one] = depth + 1;
+                        stack[top++] = one;
+                    }
+                    if (zero >= 0) {
+                        nodeDepths[zero] = depth + 1;
+                        stack[top++] = zero;
+                    }
+                }
+            }
+
+            for (int i = 0; i < numLeaves; i++) {
+                int size = Math.min(leafDepths[i], maxLength);
+                bl_counts[size - 1]++;
+                length[leaves[i]] = (byte) size;
+            }
+
+            if (overflow != 0) {
+                fixOverflow(overflow);
+
+                int pointer = -1;
+                int remaining = 0;
+                for (int depth = 1; depth <= maxDepth; depth++) {
+                    for (int i = 0; i < numLeaves; i++) {
+                        if (leafDepths[i] != depth)
+                            continue;
+                        while (remaining == 0) {
+                            pointer++;
+                            remaining = bl_counts[pointer];
+                        }
+                        length[leaves[i]] = (byte) (pointer + 1);
+                        remaining--;
+                    }
+                }
+            }
+        }
+
         public void buildCodes() {
-            int[] nextCode = new int[maxLength];
             int code = 0;
-            codes = new short[freqs.length];
+            codes = codesBuf;
 
             for (int bits = 0; bits < maxLength; bits++) {
                 nextCode[bits] = (int)code;
@@ -249,22 +378,89 @@ public class HuffmanCompressor
 
 
         void buildTree() {
+            if (trieTrees)
+                buildTrieTree();
+            else
+                buildArrayTree();
+        }
+
+        /**
+         * Builds the tree in flat int arrays, without allocating anything.
+         * The IntDAryHeap makes exactly the same choices as the DAryHeap
+         * in buildTrieTree, so both give the same lengths.
+         */
+        private void buildArrayTree() {
             int numSymbols = freqs.length;
 
             int maxCode = 0;
 
-            Queue<Node> queue = new PriorityQueue<Node>();
+            numNodes = numSymbols;
+            int count = 0;
             for (int n = 0; n < numSymbols; n++) {
                 int freq = freqs[n];
                 if (freq != 0) {
-                    /* Insert n into heap */
-                    queue.add(new Node(n, freq));
+                    nodeFreqs[n] = freq;
+                    heapSymbols[count] = n;
+                    heapFreqs[count++] = freq;
                     maxCode = n;
                 }
             }
+            /* Make the heap of all leaves at once, in linear time */
+            heap.heapify(heapSymbols, heapFreqs, count);
+
+            if (heap.size() == 1) {
+                int real = heap.nextValue();
+                heapAdd(newNode(-1, real));
+            }
+
+            numCodes = Math.max(maxCode + 1, minNumCodes);
+
+            /* Construct the Huffman tree by repeatedly combining the least two
+             * frequent nodes.
+             */
+            while (heap.size() > 1) {
+                int a = heap.nextValue();
+                int b = heap.nextValue();
+                heapAdd(newNode(a, b));
+            }
+
+            arrayRoot = heap.size() > 0 ? heap.nextValue() : -1;
+
+            buildArrayLength();
+        }
+
+        private int newNode(int zero, int one) {
+            int node = numNodes++;
+            children[2 * (node - freqs.length)] = zero;
+            children[2 * (node - freqs.length) + 1] = one;
+            nodeFreqs[node] = (zero >= 0 ? nodeFreqs[zero] : 0)
+                    + (one >= 0 ? nodeFreqs[one] : 0);
+            return node;
+        }
+
+        private void heapAdd(int node) {
+            heap.add(node, nodeFreqs[node]);
+        }
+
+        private void buildTrieTree() {
+            int numSymbols = freqs.length;
+
+            int maxCode = 0;
+
+            List<Node> nodes = new ArrayList<Node>();
+            for (int n = 0; n < numSymbols; n++) {
+                int freq = freqs[n];
+                if (freq != 0) {
+                    nodes.add(new Node(n, freq));
+                    maxCode = n;
+                }
+            }
+            /* Make the heap of all leaves at once, in linear time */
+            DAryHeap<Node> queue = new DAryHeap<Node>(nodes.toArray(new Node[0]),
+                    DAryHeap.DEFAULT_ARITY, null);
 
             if (queue.size() == 1) {
-                Node real = queue.remove();
+                Node real = queue.next();
                 queue.add(new Node(null, real));
             }
 
@@ -274,13 +470,13 @@ public class HuffmanCompressor
              * frequent nodes.
              */
             while (queue.size() > 1) {
-                Node a = queue.remove();
-                Node b = queue.remove();
+                Node a = queue.next();
+                Node b = queue.next();
                 queue.add(new Node(a, b));
             }
 
             if (queue.size() > 0) {
-                this.root = queue.remove();
+                this.root = queue.next();
                 this.size = ((Node)this.root).size;
             }
             else {
@@ -412,6 +608,11 @@ public class HuffmanCompressor
     DeflaterPending pending;
     private Tree literalTree, distTree, blTree;
 
+    /**
+     * True iff the trees are built as HashTrieMaps rather than in arrays.
+     */
+    private final boolean trieTrees;
+
     private short d_buf[];
     private byte l_buf[];
     private int last_lit;
@@ -465,8 +666,19 @@ public class HuffmanCompressor
     }
 
     public HuffmanCompressor(DeflaterPending pending)
+    {
+        this(pending, DeflaterConstants.TRIE_HUFFMAN_TREES);
+    }
+
+    /**
+     * Creates a HuffmanCompressor that builds its trees either with the
+     * HashTrieMap-based tree or with the array-based one.  Both produce
+     * identical codes; the trie is kept to check the arrays against.
+     */
+    public HuffmanCompressor(DeflaterPending pending, boolean trieTrees)
     {
         this.pending = pending;
+        this.trieTrees = trieTrees;
 
         literalTree = new Tree(LITERAL_NUM, 257, 15);
         distTree    = new Tree(DIST_NUM, 1, 15);
@@ -533,18 +745,16 @@ public class HuffmanCompressor
                     System.err.print("["+(dist+1)+","+(litlen+3)+"]: ");
 
                 int lc = l_code(litlen);
-                literalTree.writeSymbol(lc);
-
                 int bits = (lc - 261) / 4;
-                if (bits > 0 && bits <= 5)
-                    pending.writeBits(litlen & ((1 << bits) - 1), bits);
+                if (bits < 0 || bits > 5)
+                    bits = 0;
+                literalTree.writeSymbolWithExtra(lc,
+                        litlen & ((1 << bits) - 1), bits);
 
                 int dc = d_code(dist);
-                distTree.writeSymbol(dc);
-
-                bits = dc / 2 - 1;
-                if (bits > 0)
-                    pending.writeBits(dist & ((1 << bits) - 1), bits);
+                bits = Math.max(dc / 2 - 1, 0);
+                distTree.writeSymbolWithExtra(dc,
+                        dist & ((1 << bits) - 1), bits);
             }
             else
             {
@@ -647,9 +857,14 @@ public class HuffmanCompressor
         }
     }
 
+    /**
+     * Returns true if the block should be flushed before anything else is
+     * tallied.  One MatchFinder step may tally a match and a literal, so
+     * this leaves room for two.
+     */
     public boolean isFull()
     {
-        return last_lit == BUFSIZE;
+        return last_lit >= BUFSIZE - 1;
     }
 
     public boolean tallyLit(int lit)
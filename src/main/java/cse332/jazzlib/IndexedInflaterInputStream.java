@@ -0,0 +1,325 @@
+package cse332.jazzlib;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An IndexedInflaterInputStream reads the inflated contents of a gzip, zlib
+ * or raw deflate file, and can seek to any offset in them.  Seeking restores
+ * the nearest checkpoint of an InflaterIndex before the offset and inflates
+ * forward from there; seeking forward within less than a span of the current
+ * position just inflates forward.
+ * <p>
+ * The file is read with positional reads of a FileChannel, so it is never
+ * read before the checkpoint that is restored.
+ *
+ * @see InflaterIndex
+ */
+public class IndexedInflaterInputStream extends InputStream {
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int WINDOW_SIZE = 1 << 15;
+
+    private final FileChannel file;
+    private final long fileSize;
+    private final int format;
+    private final Inflater inf = new Inflater(true);
+    private final ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+    private final byte[] oneByte = new byte[1];
+
+    /* The index to seek with, or null while one is built */
+    private final InflaterIndex index;
+
+    /* The file offset after the input given to inf, and the output offset */
+    private long inPos;
+    private long outPos;
+    private boolean eof;
+    private boolean closed;
+
+    /* While an index is built: the checkpoints so far, and the last 32K
+     * bytes of output in a ring.
+     */
+    private List<InflaterIndex.Checkpoint> checkpoints;
+    private long span;
+    private long nextCheckpoint;
+    private byte[] ring;
+    private int ringPos;
+
+    /**
+     * Opens file for reading with index.
+     *
+     * @throws ZipException if index wasn't built from a file of this size.
+     * @throws IOException  if file can't be opened.
+     */
+    public IndexedInflaterInputStream(File file, InflaterIndex index) throws IOException {
+        this.file = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.index = index;
+        try {
+            this.fileSize = this.file.size();
+            if (index.compressedSize != this.fileSize)
+                throw new ZipException("The index of " + file + " is out of date");
+            this.format = index.format;
+            this.restart();
+        } catch (IOException | RuntimeException e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens file for building an index with the given span.
+     */
+    IndexedInflaterInputStream(File file, long span) throws IOException {
+        this.file = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.index = null;
+        try {
+            this.fileSize = this.file.size();
+            this.format = this.detectFormat();
+            this.checkpoints = new ArrayList<>();
+            this.span = span;
+            this.ring = new byte[WINDOW_SIZE];
+            this.inf.setStopAtBlocks(true);
+            this.restart();
+        } catch (IOException | RuntimeException e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the offset in the inflated data of the next byte read.
+     */
+    public long position() {
+        return this.outPos;
+    }
+
+    /**
+     * Returns the number of bytes the whole file inflates to.
+     */
+    public long size() {
+        return this.index.uncompressedSize;
+    }
+
+    /**
+     * Makes pos the offset of the next byte read.  Beyond the end of the
+     * data, the stream is at its end.
+     *
+     * @throws IllegalArgumentException if pos is negative.
+     * @throws IOException              if the file can't be read or is
+     *                                  corrupt.
+     */
+    public void seek(long pos) throws IOException {
+        this.ensureOpen();
+        if (pos < 0)
+            throw new IllegalArgumentException("pos < 0");
+
+        /* Restore a checkpoint if we would have to go back, or it saves
+         * inflating what is before it.
+         */
+        InflaterIndex.Checkpoint checkpoint = this.index.floor(pos);
+        if (checkpoint != null && (pos < this.outPos || checkpoint.out > this.outPos))
+            this.restore(checkpoint);
+        else if (pos < this.outPos)
+            this.restart();
+
+        byte[] skipBuf = new byte[CHUNK_SIZE];
+        while (this.outPos < pos) {
+            int len = this.read(skipBuf, 0, (int) Math.min(skipBuf.length, pos - this.outPos));
+            if (len < 0)
+                break;
+        }
+    }
+
+    /**
+     * Skips n bytes forward by seeking.
+     */
+    public long skip(long n) throws IOException {
+        this.ensureOpen();
+        if (n <= 0)
+            return 0;
+        long start = this.outPos;
+        this.seek(Math.min(this.index.uncompressedSize, start + Math.min(n, Long.MAX_VALUE - start)));
+        return this.outPos - start;
+    }
+
+    public int read() throws IOException {
+        return this.read(this.oneByte, 0, 1) < 0 ? -1 : this.oneByte[0] & 0xff;
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        this.ensureOpen();
+        if (off < 0 || len < 0 || off + len > b.length || off + len < 0)
+            throw new IndexOutOfBoundsException();
+        if (len == 0)
+            return 0;
+
+        for (;;) {
+            if (this.eof)
+                return -1;
+
+            int count;
+            try {
+                count = this.inf.inflate(b, off, len);
+            } catch (DataFormatException e) {
+                throw new ZipException(e.getMessage());
+            }
+            if (count > 0) {
+                if (this.ring != null)
+                    this.remember(b, off, count);
+                this.outPos += count;
+            }
+
+            if (this.inf.atBlockBoundary() && this.outPos >= this.nextCheckpoint)
+                this.recordCheckpoint();
+            if (this.inf.finished())
+                this.nextMember();
+            else if (this.inf.needsInput())
+                this.fill();
+
+            if (count > 0)
+                return count;
+        }
+    }
+
+    /**
+     * Closes the file.
+     */
+    public void close() throws IOException {
+        if (this.closed)
+            return;
+        this.closed = true;
+        this.file.close();
+    }
+
+    /**
+     * Returns the index that was recorded, once all of the file was read.
+     */
+    InflaterIndex toIndex() {
+        return new InflaterIndex(this.format, this.span, this.fileSize, this.outPos,
+                this.checkpoints.toArray(new InflaterIndex.Checkpoint[0]));
+    }
+
+    private void ensureOpen() throws IOException {
+        if (this.closed)
+            throw new IOException("Stream closed");
+    }
+
+    private int detectFormat() throws IOException {
+        if (this.fileSize < 2)
+            return InflaterIndex.RAW;
+        int cmf = this.readByte(0);
+        int flg = this.readByte(1);
+        if ((cmf << 8 | flg) == GZIPInputStream.GZIP_MAGIC)
+            return InflaterIndex.GZIP;
+        if ((cmf & 0x0f) == Deflater.DEFLATED && (cmf << 8 | flg) % 31 == 0) {
+            if ((flg & 0x20) != 0)
+                throw new ZipException("Preset dictionaries are not supported");
+            return InflaterIndex.ZLIB;
+        }
+        return InflaterIndex.RAW;
+    }
+
+    /**
+     * Starts inflating at the beginning of the file.
+     */
+    private void restart() throws IOException {
+        this.inf.reset();
+        this.outPos = 0;
+        this.eof = false;
+        if (this.format == InflaterIndex.GZIP)
+            this.inPos = GZIPInputStream.skipHeader(this.file, 0);
+        else if (this.format == InflaterIndex.ZLIB)
+            this.inPos = 2;
+        else
+            this.inPos = 0;
+    }
+
+    /**
+     * Starts inflating at checkpoint.  Its block may start in the middle of
+     * a byte; the rest of that byte is handed to the inflater as bits.
+     */
+    private void restore(InflaterIndex.Checkpoint checkpoint) throws IOException {
+        this.inf.reset();
+        this.outPos = checkpoint.out;
+        this.eof = false;
+        this.inPos = checkpoint.bitPos >>> 3;
+        int bits = (int) (checkpoint.bitPos & 7);
+        if (bits != 0) {
+            int value = this.readByte(this.inPos++);
+            this.inf.resume(8 - bits, value >>> bits, checkpoint.window);
+        } else
+            this.inf.resume(0, 0, checkpoint.window);
+    }
+
+    private void fill() throws IOException {
+        this.chunk.clear();
+        int len = this.inPos < this.fileSize ? this.file.read(this.chunk, this.inPos) : -1;
+        if (len > 0) {
+            this.inf.setInput(this.chunk.array(), 0, len);
+            this.inPos += len;
+        } else if (this.format == InflaterIndex.RAW && this.inPos <= this.fileSize) {
+            /* A raw stream has no trailer, and the inflater may want to
+             * look ahead past its last code.
+             */
+            this.inf.setInput(new byte[2], 0, 2);
+            this.inPos = this.fileSize + 2;
+        } else
+            throw new EOFException("Unexpected end of compressed data");
+    }
+
+    /**
+     * Goes on after the end of a deflate stream: with the next member if
+     * it's a gzip file that has one, or else at the end.
+     */
+    private void nextMember() throws IOException {
+        if (this.format != InflaterIndex.GZIP) {
+            this.eof = true;
+            return;
+        }
+
+        /* Skip the CRC32 and ISIZE of the member */
+        long pos = this.inPos - this.inf.getRemaining() + 8;
+        if (pos + 2 > this.fileSize
+                || (this.readByte(pos) << 8 | this.readByte(pos + 1)) != GZIPInputStream.GZIP_MAGIC) {
+            this.eof = true;
+            return;
+        }
+        this.inf.reset();
+        this.inPos = GZIPInputStream.skipHeader(this.file, pos);
+    }
+
+    private int readByte(long pos) throws IOException {
+        return GZIPInputStream.readByte(this.file, pos);
+    }
+
+    private void remember(byte[] b, int off, int len) {
+        if (len >= WINDOW_SIZE) {
+            System.arraycopy(b, off + len - WINDOW_SIZE, this.ring, 0, WINDOW_SIZE);
+            this.ringPos = 0;
+            return;
+        }
+        int first = Math.min(len, WINDOW_SIZE - this.ringPos);
+        System.arraycopy(b, off, this.ring, this.ringPos, first);
+        System.arraycopy(b, off + first, this.ring, 0, len - first);
+        this.ringPos = (this.ringPos + len) & (WINDOW_SIZE - 1);
+    }
+
+    private void recordCheckpoint() {
+        int len = (int) Math.min(this.outPos, WINDOW_SIZE);
+        byte[] window = new byte[len];
+        int start = (this.ringPos - len) & (WINDOW_SIZE - 1);
+        int first = Math.min(len, WINDOW_SIZE - start);
+        System.arraycopy(this.ring, start, window, 0, first);
+        System.arraycopy(this.ring, 0, window, first, len - first);
+
+        long bitPos = this.inPos * 8 - this.inf.getUnusedBits();
+        this.checkpoints.add(new InflaterIndex.Checkpoint(this.outPos, bitPos, window));
+        this.nextCheckpoint = this.outPos + this.span;
+    }
+}
@@ -37,6 +37,8 @@
 
 package cse332.jazzlib;
 
+import java.nio.ByteBuffer;
+
 /* Written using on-line Java Platform 1.2 API Specification
  * and JCL book.
  * Believed complete and correct.
@@ -68,33 +70,10 @@ package cse332.jazzlib;
  */
 public class Inflater
 {
-    /* Copy lengths for literal codes 257..285 */
-    private static final int CPLENS[] = 
-    { 
-        3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31,
-        35, 43, 51, 59, 67, 83, 99, 115, 131, 163, 195, 227, 258
-    };
-
-    /* Extra bits for literal codes 257..285 */  
-    private static final int CPLEXT[] = 
-    { 
-        0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2,
-        3, 3, 3, 3, 4, 4, 4, 4, 5, 5, 5, 5, 0
-    };
-
-    /* Copy offsets for distance codes 0..29 */
-    private static final int CPDIST[] = {
-        1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49, 65, 97, 129, 193,
-        257, 385, 513, 769, 1025, 1537, 2049, 3073, 4097, 6145,
-        8193, 12289, 16385, 24577
-    };
-
-    /* Extra bits for distance codes */
-    private static final int CPDEXT[] = {
-        0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6,
-        7, 7, 8, 8, 9, 9, 10, 10, 11, 11, 
-        12, 12, 13, 13
-    };
+    /* The largest number of input bytes one step of decodeFast can
+     * refill its bit buffer with.
+     */
+    private static final int FAST_INPUT = 8;
 
     /* This are the state in which the inflater can be.  */
     private static final int DECODE_HEADER           = 0;
@@ -140,13 +119,13 @@ public class Inflater
     /**
      * The total number of inflated bytes.
      */
-    private int totalOut;
+    private long totalOut;
     /**
      * The total number of bytes set with setInput().  This is not the
      * value returned by getTotalIn(), since this also includes the 
      * unprocessed input.
      */
-    private int totalIn;
+    private long totalIn;
     /**
      * This variable stores the nowrap flag that was given to the constructor.
      * True means, that the inflated stream doesn't contain a header nor the
@@ -160,6 +139,19 @@ public class Inflater
     private InflaterHuffmanTree litlenTree, distTree;
     private Adler32 adler;
 
+    /**
+     * The lease of the CompressorPool this inflater is borrowed from, or
+     * null.
+     */
+    CompressorPool.Lease lease;
+
+    /**
+     * If stopAtBlocks is set, inflate returns at every boundary between
+     * two blocks, with all output of the blocks before it given away, and
+     * stopped is true until it goes on.
+     */
+    private boolean stopAtBlocks, stopped;
+
     /**
      * Creates a new inflater.
      */
@@ -212,6 +204,62 @@ public class Inflater
         adler = null;
     }
 
+    /**
+     * Returns true, if end() was called.
+     */
+    boolean isEnded()
+    {
+        return outputWindow == null;
+    }
+
+    /**
+     * Sets whether inflate should return at every block boundary, like
+     * Z_BLOCK in zlib.  Used to record places to resume inflating from.
+     * @see IndexedInflaterInputStream
+     */
+    void setStopAtBlocks(boolean stop)
+    {
+        stopAtBlocks = stop;
+    }
+
+    /**
+     * Returns true, if inflate returned because the next block starts.
+     * Then getUnusedBits() tells where in the input it starts, and the
+     * last 32K bytes returned by inflate are the window it may refer to.
+     */
+    boolean atBlockBoundary()
+    {
+        return stopped && mode == DECODE_BLOCKS;
+    }
+
+    /**
+     * Returns the number of bits of the input that was set which were
+     * not used yet.
+     */
+    int getUnusedBits()
+    {
+        return (input.window_end - input.window_start) * 8
+            + input.bits_in_buffer;
+    }
+
+    /**
+     * Resumes inflating at a block boundary that was seen before.  This
+     * must be called right after reset() of a nowrap inflater.  The input
+     * that follows has to start with the byte after the boundary; the
+     * bits of the byte that the boundary is in are given here, like
+     * inflatePrime in zlib.
+     * @param bits the number of bits left in the byte of the boundary.
+     * @param value those bits, in the low bits.
+     * @param window the output before the boundary; only its last 32K
+     * bytes are used.
+     */
+    void resume(int bits, int value, byte[] window)
+    {
+        input.buffer = value & ((1 << bits) - 1);
+        input.bits_in_buffer = bits;
+        outputWindow.copyDict(window, 0, window.length);
+    }
+
     /**
      * Returns true, if the inflater has finished.  This means, that no
      * input is needed and no output can be produced.
@@ -250,7 +298,7 @@ public class Inflater
      */
     public int getTotalIn()
     {
-        return totalIn - getRemaining();
+        return (int) getBytesRead();
     }
 
     /**
@@ -258,6 +306,26 @@ public class Inflater
      * @return the total number of output bytes.
      */
     public int getTotalOut()
+    {
+        return (int) totalOut;
+    }
+
+    /**
+     * Gets the total number of processed compressed input bytes, even
+     * beyond 4 GiB.
+     * @return the total number of bytes of processed input bytes.
+     */
+    public long getBytesRead()
+    {
+        return totalIn - getRemaining();
+    }
+
+    /**
+     * Gets the total number of output bytes returned by inflate(), even
+     * beyond 4 GiB.
+     * @return the total number of output bytes.
+     */
+    public long getBytesWritten()
     {
         return totalOut;
     }
@@ -299,6 +367,19 @@ public class Inflater
         /* Check for correct buff, off, len triple */
         if (0 > off || off > off + len || off + len > buf.length)
             throw new ArrayIndexOutOfBoundsException();
+        try
+        {
+            return inflateArray(buf, off, len);
+        }
+        finally
+        {
+            input.syncPosition();
+        }
+    }
+
+    private int inflateArray (byte[] buf, int off, int len)
+        throws DataFormatException
+    {
         int count = 0;
         int more;
         do
@@ -327,6 +408,54 @@ public class Inflater
         return count;
     }
 
+    /**
+     * Inflates the compressed stream to the output buffer, from its
+     * position up to its limit, and advances its position.  If this
+     * returns 0, you should check, whether needsDictionary(),
+     * needsInput() or finished() returns true, to determine why no
+     * further output is produced.
+     * @param output the heap or direct output buffer.
+     * @return the number of bytes written to the buffer, 0 if no further
+     * output can be produced.
+     * @exception DataFormatException if deflated stream is invalid.
+     * @exception java.nio.ReadOnlyBufferException if output is read-only.
+     */
+    public int inflate (ByteBuffer output) throws DataFormatException
+    {
+        if (output.hasArray())
+        {
+            int pos = output.position();
+            int count = inflate (output.array(), output.arrayOffset() + pos,
+                                 output.remaining());
+            output.position(pos + count);
+            return count;
+        }
+
+        int count = 0;
+        try
+        {
+            do
+            {
+                if (mode != DECODE_CHKSUM)
+                {
+                    /* See inflate(byte[], int, int) */
+                    int more = outputWindow.copyOutput(output, adler);
+                    count += more;
+                    totalOut += more;
+                    if (!output.hasRemaining())
+                        return count;
+                }
+            }
+            while (decode() || (outputWindow.getAvailable() > 0
+                        && mode != DECODE_CHKSUM));
+            return count;
+        }
+        finally
+        {
+            input.syncPosition();
+        }
+    }
+
     /**
      * Returns true, if a preset dictionary is needed to inflate the input.
      */
@@ -360,6 +489,7 @@ public class Inflater
         litlenTree = null;
         distTree = null;
         isLastBlock = false;
+        stopped = false;
         adler.reset();
     }
 
@@ -430,6 +560,23 @@ public class Inflater
         totalIn += len;
     }
 
+    /**
+     * Sets the input to the bytes from the position to the limit of a heap
+     * or direct buffer.  This should only be called, if needsInput()
+     * returns true.  The buffer's position is advanced as the input is
+     * inflated; it counts the few bytes the inflater has read ahead as
+     * used, so it may end up a little past getRemaining().  The contents
+     * of the buffer should not be changed while it is used.
+     * @param buf the input.
+     * @exception IllegalStateException if no input is needed.
+     */
+    public void setInput (ByteBuffer buf)
+    {
+        int len = buf.remaining();
+        input.setInput (buf);
+        totalIn += len;
+    }
+
     /**
      * Decodes the deflate header.
      * @return false if more input is needed. 
@@ -498,39 +645,37 @@ public class Inflater
         int free = outputWindow.getFreeSpace();
         while (free >= 258)
         {
-            int symbol;
+            int entry;
             switch (mode)
             {
                 case DECODE_HUFFMAN:
-                    /* This is the inner loop so it is optimized a bit */
-                    while (((symbol = litlenTree.getSymbol(input)) & ~0xff) == 0)
+                    free = decodeFast(free);
+                    if (mode != DECODE_HUFFMAN || free < 258)
+                        return true;
+
+                    /* Near the end of the input, one bit at a time */
+                    while ((entry = litlenTree.getEntry(input)) >= 0
+                           && (entry >> 8 & 7) == InflaterHuffmanTree.LITERAL)
                     {
-                        outputWindow.write(symbol);
+                        outputWindow.write(entry >>> InflaterHuffmanTree.VALUE_SHIFT);
                         if (--free < 258)
                             return true;
                     } 
-                    if (symbol < 257)
+                    if (entry < 0)
+                        return false;
+                    switch (entry >> 8 & 7)
                     {
-                        if (symbol < 0)
-                            return false;
-                        else
-                        {
-                            /* symbol == 256: end of block */
+                        case InflaterHuffmanTree.END:
                             distTree = null;
                             litlenTree = null;
                             mode = DECODE_BLOCKS;
                             return true;
-                        }
-                    }
-
-                    try
-                    {
-                        repLength = CPLENS[symbol - 257];
-                        neededBits = CPLEXT[symbol - 257];
-                    }
-                    catch (ArrayIndexOutOfBoundsException ex)
-                    {
-                        throw new DataFormatException("Illegal rep length code");
+                        case InflaterHuffmanTree.COPY:
+                            repLength = entry >>> InflaterHuffmanTree.VALUE_SHIFT;
+                            neededBits = entry >> 4 & 15;
+                            break;
+                        default:
+                            throw new DataFormatException("Illegal rep length code");
                     }
                     /* fall through */
                 case DECODE_HUFFMAN_LENBITS:
@@ -546,18 +691,13 @@ public class Inflater
                     mode = DECODE_HUFFMAN_DIST;
                     /* fall through */
                 case DECODE_HUFFMAN_DIST:
-                    symbol = distTree.getSymbol(input);
-                    if (symbol < 0)
+                    entry = distTree.getEntry(input);
+                    if (entry < 0)
                         return false;
-                    try 
-                    {
-                        repDist = CPDIST[symbol];
-                        neededBits = CPDEXT[symbol];
-                    }
-                    catch (ArrayIndexOutOfBoundsException ex)
-                    {
+                    if ((entry >> 8 & 7) != InflaterHuffmanTree.COPY)
                         throw new DataFormatException("Illegal rep dist code");
-                    }
+                    repDist = entry >>> InflaterHuffmanTree.VALUE_SHIFT;
+                    neededBits = entry >> 4 & 15;
                     /* fall through */
                 case DECODE_HUFFMAN_DISTBITS:
                     if (neededBits > 0)
@@ -580,6 +720,131 @@ public class Inflater
         return true;
     }
 
+    /**
+     * Decodes huffman encoded symbols as long as there are at least 258
+     * bytes of free space in the output window and enough input that a
+     * whole length/distance pair can never run out of bits, in the manner
+     * of zlib's inflate_fast.  The bit buffer of the input is kept in a
+     * long while it runs, so it is refilled once per symbol instead of
+     * being checked for every code and every group of extra bits.
+     * @param free the free space in the output window.
+     * @return the free space left in the output window.
+     * @exception DataFormatException if deflated stream is invalid.
+     */
+    private int decodeFast (int free) throws DataFormatException
+    {
+        byte[] window = input.window;
+        ByteBuffer direct = input.direct;
+        int next = input.window_start;
+        int start = next;
+        int last = input.window_end - FAST_INPUT;
+        long hold = input.buffer & 0xffffffffL;
+        int bits = input.bits_in_buffer;
+        int[] lcode = litlenTree.table;
+        int[] dcode = distTree.table;
+        int rootMask = (1 << InflaterHuffmanTree.ROOT_BITS) - 1;
+
+        try
+        {
+            while (next < last && free >= 258)
+            {
+                /* At least 56 bits, enough for the longest length code,
+                 * distance code and their extra bits.
+                 */
+                if (window != null)
+                {
+                    while (bits <= 56)
+                    {
+                        hold |= (window[next++] & 0xffL) << bits;
+                        bits += 8;
+                    }
+                }
+                else
+                {
+                    while (bits <= 56)
+                    {
+                        hold |= (direct.get(next++) & 0xffL) << bits;
+                        bits += 8;
+                    }
+                }
+
+                int entry = lcode[(int) hold & rootMask];
+                if ((entry >> 8 & 7) == InflaterHuffmanTree.LINK)
+                    entry = lcode[(entry >>> InflaterHuffmanTree.VALUE_SHIFT)
+                                  + (((int) hold & ((1 << (entry & 15)) - 1))
+                                     >> InflaterHuffmanTree.ROOT_BITS)];
+                hold >>>= entry & 15;
+                bits -= entry & 15;
+
+                int kind = entry >> 8 & 7;
+                if (kind == InflaterHuffmanTree.LITERAL)
+                {
+                    outputWindow.write(entry >>> InflaterHuffmanTree.VALUE_SHIFT);
+                    free--;
+                    continue;
+                }
+                if (kind == InflaterHuffmanTree.END)
+                {
+                    distTree = null;
+                    litlenTree = null;
+                    mode = DECODE_BLOCKS;
+                    break;
+                }
+                if (kind != InflaterHuffmanTree.COPY)
+                    throw new DataFormatException("Illegal rep length code");
+
+                int extra = entry >> 4 & 15;
+                int length = (entry >>> InflaterHuffmanTree.VALUE_SHIFT)
+                    + ((int) hold & ((1 << extra) - 1));
+                hold >>>= extra;
+                bits -= extra;
+
+                entry = dcode[(int) hold & rootMask];
+                if ((entry >> 8 & 7) == InflaterHuffmanTree.LINK)
+                    entry = dcode[(entry >>> InflaterHuffmanTree.VALUE_SHIFT)
+                                  + (((int) hold & ((1 << (entry & 15)) - 1))
+                                     >> InflaterHuffmanTree.ROOT_BITS)];
+                hold >>>= entry & 15;
+                bits -= entry & 15;
+                if ((entry >> 8 & 7) != InflaterHuffmanTree.COPY)
+                    throw new DataFormatException("Illegal rep dist code");
+
+                extra = entry >> 4 & 15;
+                int dist = (entry >>> InflaterHuffmanTree.VALUE_SHIFT)
+                    + ((int) hold & ((1 << extra) - 1));
+                hold >>>= extra;
+                bits -= extra;
+
+                outputWindow.repeat(length, dist);
+                free -= length;
+            }
+        }
+        finally
+        {
+            /* Give back the whole bytes that weren't used, as far as they
+             * were read here.  The rest fits into the int bit buffer.
+             */
+            int unused = Math.min(bits >> 3, next - start);
+            next -= unused;
+            bits -= unused << 3;
+            hold &= (1L << bits) - 1;
+
+            if (((input.window_end - next) & 1) != 0)
+            {
+                /* We always want an even number of bytes in input, see
+                 * StreamManipulator.peekBits
+                 */
+                int b = window != null ? window[next++] : direct.get(next++);
+                hold |= (b & 0xffL) << bits;
+                bits += 8;
+            }
+            input.window_start = next;
+            input.buffer = (int) hold;
+            input.bits_in_buffer = bits;
+        }
+        return free;
+    }
+
     /**
      * Decodes the adler checksum after the deflate stream.
      * @return false if more input is needed. 
@@ -637,10 +902,17 @@ public class Inflater
                     }
                 }
 
+                if (stopAtBlocks && !stopped)
+                {
+                    stopped = true;
+                    return false;
+                }
+
                 int type = input.peekBits(3);
                 if (type < 0)
                     return false;
                 input.dropBits(3);
+                stopped = false;
 
                 if ((type & 1) != 0)
                     isLastBlock = true;
@@ -191,13 +191,13 @@ decode_loop:
     {
         byte[] litlenLens = new byte[lnum];
         System.arraycopy(litdistLens, 0, litlenLens, 0, lnum);
-        return new InflaterHuffmanTree(litlenLens);
+        return new InflaterHuffmanTree(litlenLens, InflaterHuffmanTree.LENS);
     }
 
     public InflaterHuffmanTree buildDistTree() throws DataFormatException
     {
         byte[] distLens = new byte[dnum];
         System.arraycopy(litdistLens, lnum, distLens, 0, dnum);
-        return new InflaterHuffmanTree(distLens);
+        return new InflaterHuffmanTree(distLens, InflaterHuffmanTree.DISTS);
     }
 }
@@ -37,9 +37,72 @@
 
 package cse332.jazzlib;
 
+import java.util.Arrays;
+
+/**
+ * A Huffman decoding table in the style of zlib's inflate_table.  Every code
+ * is looked up with one probe of a 512 entry root table, or two probes for
+ * codes longer than 9 bits, and each entry already says what to do with the
+ * code: output a literal, copy with a base and a number of extra bits, or
+ * end the block.  That way Inflater doesn't need a second table lookup to
+ * turn a length or distance symbol into its base and extra bits.
+ * <p>
+ * An entry is packed into an int as
+ * <pre>
+ *   value &lt;&lt; 11 | kind &lt;&lt; 8 | extra &lt;&lt; 4 | length
+ * </pre>
+ * where length is the length of the code, extra the number of extra bits
+ * following it and value the literal, the copy base, or, for LINK entries,
+ * the start of the sub table.  Entries are never negative.
+ */
 public class InflaterHuffmanTree {
     private final static int MAX_BITLEN = 15;
-    private short[] tree;
+
+    /* The tree types, as in zlib's inflate_table */
+    static final int CODES = 0;
+    static final int LENS  = 1;
+    static final int DISTS = 2;
+
+    /* The kinds of entries */
+    static final int LITERAL = 0;
+    static final int COPY    = 1;
+    static final int END     = 2;
+    static final int LINK    = 3;
+    static final int INVALID = 4;
+
+    static final int VALUE_SHIFT = 11;
+    static final int ROOT_BITS   = 9;
+
+    /* Copy lengths for literal codes 257..285 */
+    private static final int CPLENS[] = 
+    { 
+        3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31,
+        35, 43, 51, 59, 67, 83, 99, 115, 131, 163, 195, 227, 258
+    };
+
+    /* Extra bits for literal codes 257..285 */  
+    private static final int CPLEXT[] = 
+    { 
+        0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2,
+        3, 3, 3, 3, 4, 4, 4, 4, 5, 5, 5, 5, 0
+    };
+
+    /* Copy offsets for distance codes 0..29 */
+    private static final int CPDIST[] = {
+        1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49, 65, 97, 129, 193,
+        257, 385, 513, 769, 1025, 1537, 2049, 3073, 4097, 6145,
+        8193, 12289, 16385, 24577
+    };
+
+    /* Extra bits for distance codes */
+    private static final int CPDEXT[] = {
+        0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6,
+        7, 7, 8, 8, 9, 9, 10, 10, 11, 11, 
+        12, 12, 13, 13
+    };
+
+    /* The root table followed by the sub tables; read by Inflater */
+    final int[] table;
 
     public static InflaterHuffmanTree defLitLenTree, defDistTree;
 
@@ -57,13 +120,13 @@ public class InflaterHuffmanTree {
                 codeLengths[i++] = 7;
             while (i < 288)
                 codeLengths[i++] = 8;
-            defLitLenTree = new InflaterHuffmanTree(codeLengths);
+            defLitLenTree = new InflaterHuffmanTree(codeLengths, LENS);
 
             codeLengths = new byte[32];
             i = 0;
             while (i < 32)
                 codeLengths[i++] = 5;
-            defDistTree = new InflaterHuffmanTree(codeLengths);
+            defDistTree = new InflaterHuffmanTree(codeLengths, DISTS);
         } 
         catch (DataFormatException ex)
         {
@@ -73,28 +136,75 @@ public class InflaterHuffmanTree {
     }
 
     /**
-     * Constructs a Huffman tree from the array of code lengths.
+     * Constructs a Huffman tree from the array of code lengths.  The
+     * entries are plain symbols, and the code must be complete.
      *
      * @param codeLengths the array of code lengths
      */
     public InflaterHuffmanTree(byte[] codeLengths) throws DataFormatException
     {
-        buildTree(codeLengths);
+        this(codeLengths, CODES);
+    }
+
+    /**
+     * Constructs a Huffman tree from the array of code lengths.  For LENS
+     * and DISTS trees, symbols are turned into copy entries, and a code
+     * that has only a single one bit code is allowed, as rfc1951 says it is.
+     *
+     * @param codeLengths the array of code lengths
+     * @param type        CODES, LENS or DISTS
+     */
+    InflaterHuffmanTree(byte[] codeLengths, int type)
+        throws DataFormatException
+    {
+        table = buildTree(codeLengths, type);
+    }
+
+    /**
+     * Returns the entry for a code of the given length for symbol.
+     */
+    private static int entry(int symbol, int bits, int type)
+    {
+        switch (type)
+        {
+            case LENS:
+                if (symbol < 256)
+                    return (symbol << VALUE_SHIFT) | (LITERAL << 8) | bits;
+                if (symbol == 256)
+                    return (END << 8) | bits;
+                symbol -= 257;
+                if (symbol < CPLENS.length)
+                    return (CPLENS[symbol] << VALUE_SHIFT) | (COPY << 8)
+                        | (CPLEXT[symbol] << 4) | bits;
+                return (INVALID << 8) | bits;
+            case DISTS:
+                if (symbol < CPDIST.length)
+                    return (CPDIST[symbol] << VALUE_SHIFT) | (COPY << 8)
+                        | (CPDEXT[symbol] << 4) | bits;
+                return (INVALID << 8) | bits;
+            default:
+                return (symbol << VALUE_SHIFT) | (LITERAL << 8) | bits;
+        }
     }
 
-    private void buildTree(byte[] codeLengths) throws DataFormatException
+    private static int[] buildTree(byte[] codeLengths, int type)
+        throws DataFormatException
     {
         int[] blCount = new int[MAX_BITLEN+1];
         int[] nextCode = new int[MAX_BITLEN+1];
+        int maxBits = 0;
         for (int i = 0; i < codeLengths.length; i++)
         {
             int bits = codeLengths[i];
             if (bits > 0)
+            {
                 blCount[bits]++;
+                maxBits = Math.max(maxBits, bits);
+            }
         }
 
         int code = 0;
-        int treeSize = 512;
+        int treeSize = 1 << ROOT_BITS;
         for (int bits = 1; bits <= MAX_BITLEN; bits++)
         {
             nextCode[bits] = code;
@@ -107,14 +217,19 @@ public class InflaterHuffmanTree {
                 treeSize += (end - start) >> (16 - bits);
             }
         }
-        if (code != 65536)
+        /* Only a code without any symbols or with a single one bit code
+         * may be incomplete, and only for the literal/length and distance
+         * trees.  The codes that are left over decode to INVALID.
+         */
+        if (code != 65536 && (code > 65536 || type == CODES || maxBits > 1))
             throw new DataFormatException("Code lengths don't add up properly.");
 
         /* Now create and fill the extra tables from longest to shortest
          * bit len.  This way the sub trees will be aligned.
          */
-        tree = new short[treeSize];
-        int treePtr = 512;
+        int[] tree = new int[treeSize];
+        Arrays.fill(tree, (INVALID << 8) | 1);
+        int treePtr = 1 << ROOT_BITS;
         for (int bits = MAX_BITLEN; bits >= 10; bits--)
         {
             int end   = code & 0x1ff80;
@@ -123,7 +238,7 @@ public class InflaterHuffmanTree {
             for (int i = start; i < end; i += 1 << 7)
             {
                 tree[HuffmanCompressor.bitReverse(i)]
-                    = (short) ((-treePtr << 4) | bits);
+                    = (treePtr << VALUE_SHIFT) | (LINK << 8) | bits;
                 treePtr += 1 << (bits-9);
             }
         }
@@ -135,11 +250,12 @@ public class InflaterHuffmanTree {
                 continue;
             code = nextCode[bits];
             int revcode = HuffmanCompressor.bitReverse(code);
+            int entry = entry(i, bits, type);
             if (bits <= 9)
             {
                 do
                 {
-                    tree[revcode] = (short) ((i << 4) | bits);
+                    tree[revcode] = entry;
                     revcode += 1 << bits;
                 }
                 while (revcode < 512);
@@ -148,51 +264,52 @@ public class InflaterHuffmanTree {
             {
                 int subTree = tree[revcode & 511];
                 int treeLen = 1 << (subTree & 15);
-                subTree = -(subTree >> 4);
+                subTree >>>= VALUE_SHIFT;
                 do
                 { 
-                    tree[subTree | (revcode >> 9)] = (short) ((i << 4) | bits);
+                    tree[subTree | (revcode >> 9)] = entry;
                     revcode += 1 << bits;
                 }
                 while (revcode < treeLen);
             }
             nextCode[bits] = code + (1 << (16 - bits));
         }
+        return tree;
     }
 
     /**
-     * Reads the next symbol from input.  The symbol is encoded using the
-     * huffman tree.
+     * Reads the next code from input and returns its entry.
      * @param input the input source.
-     * @return the next symbol, or -1 if not enough input is available.
+     * @return the entry of the next code, or -1 if not enough input is
+     * available.
      */
-    public int getSymbol(StreamManipulator input) throws DataFormatException
+    int getEntry(StreamManipulator input)
     {
-        int lookahead, symbol;
+        int lookahead, entry;
         if ((lookahead = input.peekBits(9)) >= 0)
         {
-            if ((symbol = tree[lookahead]) >= 0)
+            if (((entry = table[lookahead]) >> 8 & 7) != LINK)
             {
-                input.dropBits(symbol & 15);
-                return symbol >> 4;
+                input.dropBits(entry & 15);
+                return entry;
             }
-            int subtree = -(symbol >> 4);
-            int bitlen = symbol & 15;
+            int subtree = entry >>> VALUE_SHIFT;
+            int bitlen = entry & 15;
             if ((lookahead = input.peekBits(bitlen)) >= 0)
             {
-                symbol = tree[subtree | (lookahead >> 9)];
-                input.dropBits(symbol & 15);
-                return symbol >> 4;
+                entry = table[subtree | (lookahead >> 9)];
+                input.dropBits(entry & 15);
+                return entry;
             }
             else
             {
                 int bits = input.getAvailableBits();
                 lookahead = input.peekBits(bits);
-                symbol = tree[subtree | (lookahead >> 9)];
-                if ((symbol & 15) <= bits)
+                entry = table[subtree | (lookahead >> 9)];
+                if ((entry & 15) <= bits)
                 {
-                    input.dropBits(symbol & 15);
-                    return symbol >> 4;
+                    input.dropBits(entry & 15);
+                    return entry;
                 }
                 else
                     return -1;
@@ -202,14 +319,27 @@ public class InflaterHuffmanTree {
         {
             int bits = input.getAvailableBits();
             lookahead = input.peekBits(bits);
-            symbol = tree[lookahead];
-            if (symbol >= 0 && (symbol & 15) <= bits)
+            entry = table[lookahead];
+            if ((entry >> 8 & 7) != LINK && (entry & 15) <= bits)
             {
-                input.dropBits(symbol & 15);
-                return symbol >> 4;
+                input.dropBits(entry & 15);
+                return entry;
             }
             else
                 return -1;
         }
     }
+
+    /**
+     * Reads the next symbol from input.  The symbol is encoded using the
+     * huffman tree.  For LENS and DISTS trees this is the value of the
+     * entry, so the copy base rather than the symbol for copies.
+     * @param input the input source.
+     * @return the next symbol, or -1 if not enough input is available.
+     */
+    public int getSymbol(StreamManipulator input) throws DataFormatException
+    {
+        int entry = getEntry(input);
+        return entry < 0 ? -1 : entry >>> VALUE_SHIFT;
+    }
 }
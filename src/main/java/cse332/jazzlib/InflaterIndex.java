@@ -0,0 +1,222 @@
+package cse332.jazzlib;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * An InflaterIndex makes a large deflate stream, such as a multi-gigabyte
+ * .gz log, readable from the middle, the way zran.c of zlib does.  It is
+ * built by inflating the whole stream once, and at the first block boundary
+ * after every span bytes of output it records a checkpoint: the offset in
+ * the output, the bit offset in the file where the next block starts, and
+ * the last 32K bytes of output, which are all a block can refer back to.
+ * An IndexedInflaterInputStream then seeks by restoring the nearest
+ * checkpoint before the target and inflating from there, which costs at
+ * most about span bytes of inflating instead of everything before it.
+ * <p>
+ * The index is kept in a sidecar file with write() and read(), so it only
+ * has to be built once per file.  Each checkpoint takes up about 32K, so
+ * the index is about 32K / span of the uncompressed size.
+ * <p>
+ * gzip files (of one or more members), zlib streams and raw deflate
+ * streams are indexed.  The checksums in their trailers are not checked.
+ *
+ * @see IndexedInflaterInputStream
+ */
+public final class InflaterIndex {
+    /**
+     * The distance between checkpoints unless build says otherwise.
+     */
+    public static final long DEFAULT_SPAN = 1 << 20;
+
+    /* The formats of the indexed file */
+    static final int RAW = 0;
+    static final int ZLIB = 1;
+    static final int GZIP = 2;
+
+    /* "JZIX", at the start of a sidecar file */
+    private static final int MAGIC = 0x4a5a4958;
+    private static final int VERSION = 1;
+    private static final int WINDOW_SIZE = 1 << 15;
+
+    final int format;
+    final long span;
+    final long compressedSize;
+    final long uncompressedSize;
+    final Checkpoint[] checkpoints;
+
+    /**
+     * A place where inflating can start over.
+     */
+    static final class Checkpoint {
+        /* The offset in the output */
+        final long out;
+        /* The bit offset in the file of the next block */
+        final long bitPos;
+        /* The output before it, at most 32K */
+        final byte[] window;
+
+        Checkpoint(long out, long bitPos, byte[] window) {
+            this.out = out;
+            this.bitPos = bitPos;
+            this.window = window;
+        }
+    }
+
+    InflaterIndex(int format, long span, long compressedSize, long uncompressedSize,
+                  Checkpoint[] checkpoints) {
+        this.format = format;
+        this.span = span;
+        this.compressedSize = compressedSize;
+        this.uncompressedSize = uncompressedSize;
+        this.checkpoints = checkpoints;
+    }
+
+    /**
+     * Builds the index of file with a checkpoint about every DEFAULT_SPAN
+     * bytes of output.
+     *
+     * @throws IOException if file can't be read or isn't a valid stream.
+     */
+    public static InflaterIndex build(File file) throws IOException {
+        return build(file, DEFAULT_SPAN);
+    }
+
+    /**
+     * Builds the index of file by inflating all of it.
+     *
+     * @param span the number of output bytes after which the next
+     *             checkpoint is recorded.  Seeking inflates about this
+     *             many bytes on average.
+     * @throws IllegalArgumentException if span is not positive.
+     * @throws IOException              if file can't be read or isn't a
+     *                                  valid stream.
+     */
+    public static InflaterIndex build(File file, long span) throws IOException {
+        if (span <= 0)
+            throw new IllegalArgumentException("span <= 0");
+        try (IndexedInflaterInputStream in = new IndexedInflaterInputStream(file, span)) {
+            byte[] buf = new byte[1 << 16];
+            while (in.read(buf, 0, buf.length) >= 0) {
+                /* Checkpoints are recorded along the way */
+            }
+            return in.toIndex();
+        }
+    }
+
+    /**
+     * Reads an index that was written by write().
+     *
+     * @throws ZipException if sidecar is not an index.
+     * @throws IOException  if sidecar can't be read.
+     */
+    public static InflaterIndex read(File sidecar) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(sidecar)))) {
+            if (in.readInt() != MAGIC)
+                throw new ZipException(sidecar + " is not an inflater index");
+            int version = in.readInt();
+            if (version != VERSION)
+                throw new ZipException("Unknown index version " + version);
+
+            int format = in.readUnsignedByte();
+            long span = in.readLong();
+            long compressedSize = in.readLong();
+            long uncompressedSize = in.readLong();
+            int count = in.readInt();
+            if (format > GZIP || span <= 0 || count < 0)
+                throw new ZipException("Corrupt index " + sidecar);
+
+            Checkpoint[] checkpoints = new Checkpoint[count];
+            for (int i = 0; i < count; i++) {
+                long out = in.readLong();
+                long bitPos = in.readLong();
+                int len = in.readInt();
+                if (len < 0 || len > WINDOW_SIZE)
+                    throw new ZipException("Corrupt index " + sidecar);
+                byte[] window = new byte[len];
+                in.readFully(window);
+                checkpoints[i] = new Checkpoint(out, bitPos, window);
+            }
+            return new InflaterIndex(format, span, compressedSize, uncompressedSize, checkpoints);
+        }
+    }
+
+    /**
+     * Writes this index to sidecar, usually the indexed file's name with
+     * ".idx" appended.
+     *
+     * @throws IOException if sidecar can't be written.
+     */
+    public void write(File sidecar) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(sidecar)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeByte(this.format);
+            out.writeLong(this.span);
+            out.writeLong(this.compressedSize);
+            out.writeLong(this.uncompressedSize);
+            out.writeInt(this.checkpoints.length);
+            for (Checkpoint checkpoint : this.checkpoints) {
+                out.writeLong(checkpoint.out);
+                out.writeLong(checkpoint.bitPos);
+                out.writeInt(checkpoint.window.length);
+                out.write(checkpoint.window);
+            }
+        }
+    }
+
+    /**
+     * Returns the distance between checkpoints this index was built with.
+     */
+    public long getSpan() {
+        return this.span;
+    }
+
+    /**
+     * Returns the size of the indexed file.
+     */
+    public long getCompressedSize() {
+        return this.compressedSize;
+    }
+
+    /**
+     * Returns the number of bytes the indexed file inflates to.
+     */
+    public long getUncompressedSize() {
+        return this.uncompressedSize;
+    }
+
+    /**
+     * Returns the number of checkpoints.
+     */
+    public int getCheckpointCount() {
+        return this.checkpoints.length;
+    }
+
+    /**
+     * Returns the last checkpoint at or before out, or null if there is
+     * none.
+     */
+    Checkpoint floor(long out) {
+        int lo = 0;
+        int hi = this.checkpoints.length - 1;
+        Checkpoint found = null;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (this.checkpoints[mid].out <= out) {
+                found = this.checkpoints[mid];
+                lo = mid + 1;
+            } else
+                hi = mid - 1;
+        }
+        return found;
+    }
+}
@@ -2,21 +2,27 @@ package cse332.jazzlib;
 
 import cse332.interfaces.worklists.FIFOWorkList;
 import cse332.interfaces.trie.SuffixTrie;
+import datastructures.worklists.CircularByteArrayFIFOQueue;
 
 
 /**
  * LZ77Compressor compresses an input stream conforming to the DEFLATE format.  (The format used
  * in Zip and GZip.) 
  * 
+ * This is the MatchFinder that searches for matches in a SuffixTrie of the last bufferLen
+ * bytes.
+ * 
  * @author Adam Blank
  *
  */
-public class LZ77Compressor {
+public class LZ77Compressor implements MatchFinder {
     private SuffixTrie suffixes;
+    private final int bufferLen;
     public static final int MAX_MATCH_LENGTH = 257;
 
     public LZ77Compressor(int bufferLen) {
         this.suffixes = new SuffixTrie(bufferLen, MAX_MATCH_LENGTH);
+        this.bufferLen = bufferLen;
     }
 
     /**
@@ -28,7 +34,7 @@ public class LZ77Compressor {
      * @param buffer
      * @return  see above
      */
-    public void findNextMatch(FIFOWorkList<Byte> buffer, HuffmanCompressor huffman) {
+    public void findNextMatch(CircularByteArrayFIFOQueue buffer, HuffmanCompressor huffman) {
         // Try and find an initial match
         int matchLength = suffixes.startNewMatch(buffer);
 
@@ -46,7 +52,7 @@ public class LZ77Compressor {
             int back = (extensionLength > 0 ? matchLength : match.size()) + suffixes.getDistanceToLeaf();
             huffman.tallyDist(back, match.size());
             if (buffer.hasWork()) {
-                byte b = buffer.next();
+                byte b = buffer.nextByte();
                 suffixes.addToMatch(b);
                 huffman.tallyLit(((int)b) & 0xff);
             }
@@ -54,7 +60,7 @@ public class LZ77Compressor {
         else {
             // Make sure that we progress at least one character...
             if (!match.hasWork() && buffer.hasWork()) {
-                byte b = buffer.next();
+                byte b = buffer.nextByte();
                 suffixes.addToMatch(b);
                 match.add(b);
             }
@@ -73,4 +79,30 @@ public class LZ77Compressor {
     public void reset() {
         this.suffixes.clear();
     }
+
+    /**
+     * Runs the dictionary through the window of the SuffixTrie without tallying it.  The
+     * window only holds the last bufferLen bytes, so the rest is skipped.
+     */
+    public void setDictionary(byte[] dict, int off, int len) {
+        int start = Math.max(off, off + len - this.bufferLen);
+        for (int i = start; i < off + len; i++) {
+            this.suffixes.addToMatch(dict[i]);
+            this.suffixes.advance();
+        }
+    }
+
+    /**
+     * The SuffixTrie always finds the longest match in its window, so the level does
+     * not change anything.
+     */
+    public void setLevel(int lvl) {
+    }
+
+    /**
+     * Matches are handed to the HuffmanCompressor as soon as they are found, so FILTERED
+     * is treated like DEFAULT_STRATEGY.
+     */
+    public void setStrategy(int strategy) {
+    }
 }
@@ -0,0 +1,64 @@
+package cse332.jazzlib;
+
+import datastructures.worklists.CircularByteArrayFIFOQueue;
+
+/**
+ * The MatchFinder of a Deflater that wasn't given one.  The level picks
+ * the finder that does the work: BEST_COMPRESSION (and so
+ * DEFAULT_COMPRESSION) searches the SuffixTrie of a LZ77Compressor for the
+ * longest match, and the lower levels use a HashChainMatchFinder, whose
+ * chain limits make them cheaper the lower they go.
+ * <p>
+ * The finders are only made once a level needs them, so there is none
+ * before the first setLevel call.  When the level switches finders, the
+ * new one starts without history, since it didn't see the bytes the other
+ * one consumed.
+ */
+final class LevelMatchFinder implements MatchFinder {
+    private LZ77Compressor suffixes;
+    private HashChainMatchFinder chains;
+
+    /** The finder for the current level, or null before setLevel. */
+    private MatchFinder current;
+
+    private int strategy = Deflater.DEFAULT_STRATEGY;
+
+    public void findNextMatch(CircularByteArrayFIFOQueue buffer, HuffmanCompressor huffman) {
+        this.current.findNextMatch(buffer, huffman);
+    }
+
+    public void reset() {
+        if (this.current != null)
+            this.current.reset();
+    }
+
+    public void setDictionary(byte[] dict, int off, int len) {
+        this.current.setDictionary(dict, off, len);
+    }
+
+    public void setLevel(int lvl) {
+        MatchFinder finder;
+        if (lvl == Deflater.BEST_COMPRESSION) {
+            if (this.suffixes == null)
+                this.suffixes = new LZ77Compressor(DeflaterConstants.BUFFER_LENGTH);
+            finder = this.suffixes;
+        } else {
+            if (this.chains == null)
+                this.chains = new HashChainMatchFinder();
+            finder = this.chains;
+        }
+
+        if (finder != this.current) {
+            finder.reset();
+            finder.setStrategy(this.strategy);
+            this.current = finder;
+        }
+        finder.setLevel(lvl);
+    }
+
+    public void setStrategy(int strategy) {
+        this.strategy = strategy;
+        if (this.current != null)
+            this.current.setStrategy(strategy);
+    }
+}
@@ -0,0 +1,64 @@
+package cse332.jazzlib;
+
+import datastructures.worklists.CircularByteArrayFIFOQueue;
+
+/**
+ * A MatchFinder is the LZ77 half of the deflater: it looks for earlier
+ * occurrences of the upcoming bytes and reports them to a HuffmanCompressor
+ * as literals or (distance, length) back references.
+ * <p>
+ * OurDeflaterEngine owns the input buffer and hands it to the finder one
+ * step at a time, so a finder only has to decide what to do with the front
+ * of the buffer.  Each Deflater has its own MatchFinder.
+ *
+ * @see LZ77Compressor
+ * @see HashChainMatchFinder
+ */
+public interface MatchFinder {
+    /**
+     * Consumes the next literal or match from the front of buffer and tallies
+     * it in huffman.  If buffer has work, at least one byte is consumed, and
+     * every consumed byte is covered by the literals and matches tallied.
+     *
+     * @param buffer  the upcoming, not yet compressed input
+     * @param huffman the compressor to tally literals and matches into
+     */
+    void findNextMatch(CircularByteArrayFIFOQueue buffer, HuffmanCompressor huffman);
+
+    /**
+     * Forgets all history, so that no later match refers back to bytes that
+     * were consumed before this call.
+     */
+    void reset();
+
+    /**
+     * Primes this finder with a preset dictionary, so that later matches
+     * may refer back into it as if it came right before the input.  Only
+     * the last bytes that fit the finder's window are kept.  This is only
+     * called right after reset(), before the finder sees any input.
+     *
+     * @param dict the dictionary
+     * @param off  the offset of the dictionary in dict
+     * @param len  the length of the dictionary
+     */
+    void setDictionary(byte[] dict, int off, int len);
+
+    /**
+     * Sets how hard this finder should look for matches.  Finders that have
+     * no notion of effort may ignore this.  NO_COMPRESSION never reaches the
+     * finder, since the engine only emits stored blocks at that level.
+     *
+     * @param lvl the compression level, between BEST_SPEED and
+     *            BEST_COMPRESSION.
+     */
+    void setLevel(int lvl);
+
+    /**
+     * Sets the compression strategy, one of DEFAULT_STRATEGY or FILTERED.
+     * HUFFMAN_ONLY never reaches the finder, since the engine tallies
+     * literals itself for that strategy.
+     *
+     * @param strategy the compression strategy.
+     */
+    void setStrategy(int strategy);
+}
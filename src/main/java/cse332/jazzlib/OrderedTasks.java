@@ -0,0 +1,174 @@
+package cse332.jazzlib;
+
+import cse332.scheduling.WorkStealingExecutor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+
+/**
+ * Tasks that one thread hands to an Executor and takes the results of in
+ * the order it handed them over, as the parallel compressors do with their
+ * blocks and entries.
+ * <p>
+ * The thread that submits should take every result that is ready, and
+ * wait for the oldest one when more than maxInFlight() tasks are queued or
+ * waiting to be taken; shouldTake() says when.  That keeps a few tasks per
+ * worker in flight, so the workers don't run dry, without piling up the
+ * input of tasks no worker got to yet.
+ *
+ * @see ParallelDeflater
+ * @see ParallelZipWriter
+ * @see ParallelGZIPInputStream
+ */
+final class OrderedTasks<T> {
+    /* One task running on each worker, and one queued behind it */
+    private static final int IN_FLIGHT_PER_WORKER = 2;
+
+    private final Executor executor;
+    private final String what;
+    private final int workers;
+
+    /* Tasks that were handed to the executor, oldest first */
+    private final Queue<Future<T>> inFlight = new ArrayDeque<>();
+
+    /**
+     * Creates a new OrderedTasks.
+     *
+     * @param executor the executor to run the tasks on.
+     * @param what     what a task does, for the messages of the exceptions
+     *                 take throws; "compress a block", for example.
+     */
+    OrderedTasks(Executor executor, String what) {
+        if (executor == null)
+            throw new NullPointerException();
+        this.executor = executor;
+        this.what = what;
+        this.workers = workers(executor);
+    }
+
+    /**
+     * Returns the number of threads executor runs tasks on: the parallelism
+     * of a ForkJoinPool or WorkStealingExecutor, or else the number of
+     * processors.
+     */
+    static int workers(Executor executor) {
+        if (executor instanceof ForkJoinPool)
+            return ((ForkJoinPool) executor).getParallelism();
+        if (executor instanceof WorkStealingExecutor)
+            return ((WorkStealingExecutor) executor).getParallelism();
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Returns the most tasks that should be in flight on workers threads.
+     */
+    static int maxInFlight(int workers) {
+        return IN_FLIGHT_PER_WORKER * workers;
+    }
+
+    /**
+     * Returns the number of threads the executor runs tasks on.
+     */
+    int workers() {
+        return this.workers;
+    }
+
+    /**
+     * Returns the most tasks that should be in flight.
+     */
+    int maxInFlight() {
+        return maxInFlight(this.workers);
+    }
+
+    boolean isEmpty() {
+        return this.inFlight.isEmpty();
+    }
+
+    /**
+     * Hands task to the executor.
+     */
+    void submit(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        this.executor.execute(future);
+        this.inFlight.add(future);
+    }
+
+    /**
+     * Returns true, if the oldest result should be taken now: it is ready,
+     * or too many tasks are in flight.
+     */
+    boolean shouldTake() {
+        return this.inFlight.size() > this.maxInFlight()
+                || (!this.inFlight.isEmpty() && this.inFlight.peek().isDone());
+    }
+
+    /**
+     * Waits for the oldest task and returns its result.
+     *
+     * @throws IOException if the task failed, or the wait was interrupted.
+     */
+    T take() throws IOException {
+        return await(this.inFlight.remove(), this.what);
+    }
+
+    /**
+     * Cancels the tasks that weren't taken and forgets them.  Tasks that
+     * already run go on, but their results are dropped.
+     */
+    void cancelAll() {
+        for (Future<T> future : this.inFlight)
+            future.cancel(false);
+        this.inFlight.clear();
+    }
+
+    /**
+     * Cancels the tasks that weren't taken and forgets them.  The results
+     * of tasks that already ran, or run to the end anyway, are passed to
+     * discard.
+     */
+    void cancelAll(Consumer<? super T> discard) {
+        for (Future<T> future : this.inFlight) {
+            future.cancel(false);
+            try {
+                discard.accept(future.get());
+            } catch (Exception e) {
+                /* Cancelled or failed, so there is nothing to discard */
+            }
+        }
+        this.inFlight.clear();
+    }
+
+    /**
+     * Waits for future and returns its result.  An IOException, runtime
+     * exception or error of the task is thrown as it is.
+     *
+     * @param what what the task does, for the messages of the exceptions.
+     * @throws IOException if the task failed, or the wait was interrupted.
+     */
+    static <V> V await(Future<V> future, String what) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to " + what);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new IOException("Couldn't " + what, cause);
+        }
+    }
+}
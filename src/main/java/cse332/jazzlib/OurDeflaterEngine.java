@@ -38,8 +38,10 @@
 package cse332.jazzlib;
 
 
-import cse332.interfaces.worklists.FixedSizeFIFOWorkList;
-import datastructures.worklists.CircularArrayFIFOQueue;
+import datastructures.worklists.CircularByteArrayFIFOQueue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 class OurDeflaterEngine extends DeflaterConstants {
 
@@ -52,31 +54,88 @@ class OurDeflaterEngine extends DeflaterConstants {
     /** The end offset of the input data. */
     private int inputEnd;
 
-    private int blockStart;
+    /**
+     * The input data if it was given as a ByteBuffer, else null.  Its
+     * position is advanced as the input is taken in.
+     */
+    private ByteBuffer inputBuffer;
+
+    /**
+     * The raw bytes of the current block, followed by the bytes that are
+     * still waiting in buf.  This is what a stored block is made from.
+     */
+    private byte[] blockBuf;
+
+    /** The number of bytes of blockBuf that belong to the current block. */
+    private int blockLen;
 
 
     private DeflaterPending pending;
     private HuffmanCompressor huffman;
 
-    private FixedSizeFIFOWorkList<Byte> buf;
-    private LZ77Compressor lz77;
+    private CircularByteArrayFIFOQueue buf;
+    private MatchFinder matcher;
+
+    private int level, strategy;
+
+    /**
+     * The current compression function, DEFLATE_STORED or one that
+     * tallies symbols.  See COMPR_FUNC.
+     */
+    private int comprFunc;
+
+    /** True iff every byte is tallied as a literal (HUFFMAN_ONLY). */
+    private boolean literalsOnly;
 
     /** The adler checksum */
     private Adler32 adler;
 
-    OurDeflaterEngine(DeflaterPending pending) {
+    /**
+     * The preset dictionary, until it is handed to the matcher on the
+     * first call to deflate, or null.
+     */
+    private byte[] dictionary;
+
+    OurDeflaterEngine(DeflaterPending pending, MatchFinder matcher) {
         this.pending = pending;
 
-        this.buf = new CircularArrayFIFOQueue<Byte>(1024);
+        this.buf = new CircularByteArrayFIFOQueue(1024);
+        this.blockBuf = new byte[MAX_BLOCK_SIZE + buf.capacity()];
         this.huffman = new HuffmanCompressor(pending);
         this.adler = new Adler32();
-        this.lz77 = new LZ77Compressor(DeflaterConstants.BUFFER_LENGTH);
+        this.matcher = matcher;
     }
 
     public void reset() {
         this.huffman.reset();
         this.adler.reset();
-        this.lz77.reset();
+        this.matcher.reset();
+        this.buf.clear();
+        this.blockLen = 0;
+        this.inputOff = this.inputEnd = 0;
+        this.inputBuffer = null;
+        this.dictionary = null;
+    }
+
+    /**
+     * Sets the preset dictionary.  Its adler checksum is computed right
+     * away, since the header carries it.  The matcher is only primed once
+     * the first deflate call knows whether it will be used at all; if it
+     * were primed now, switching away from the stored function would
+     * reset it again.
+     */
+    public void setDictionary(byte[] dict, int off, int len) {
+        adler.update(dict, off, len);
+        int keep = Math.min(len, MAX_DIST);
+        dictionary = Arrays.copyOfRange(dict, off + len - keep, off + len);
+    }
+
+    /**
+     * Forgets the bytes seen so far, so that no later match refers back to
+     * them.  Only call this when all input has been flushed.
+     */
+    public void resetHistory() {
+        this.matcher.reset();
     }
 
     public final void resetAdler() {
@@ -88,46 +147,181 @@ class OurDeflaterEngine extends DeflaterConstants {
         return chksum;
     }
 
+    /**
+     * Sets the strategy.  HUFFMAN_ONLY is handled here, by tallying every
+     * byte as a literal, so only DEFAULT_STRATEGY and FILTERED are passed
+     * on to the matcher.
+     */
+    public final void setStrategy(int strat) {
+        strategy = strat;
+        if (strat != Deflater.HUFFMAN_ONLY)
+            matcher.setStrategy(strat);
+    }
+
+    public void setLevel(int lvl) {
+        level = lvl;
+        if (lvl != Deflater.NO_COMPRESSION)
+            matcher.setLevel(lvl);
+    }
+
+    /**
+     * Switches to the compression function for the current level and
+     * strategy.  Stored, literal-only and matched output are never mixed in
+     * one block, so the current block is flushed first if that changes.
+     * This is only called when there is no pending output.
+     */
+    private void updateComprFunc() {
+        int func = COMPR_FUNC[level];
+        boolean literals = strategy == Deflater.HUFFMAN_ONLY;
+        boolean stored = func == DEFLATE_STORED;
+
+        if (stored != (comprFunc == DEFLATE_STORED) || literals != literalsOnly) {
+            if (blockLen > 0) {
+                if (comprFunc == DEFLATE_STORED)
+                    huffman.flushStoredBlock(blockBuf, 0, blockLen, false);
+                else
+                    huffman.flushBlock(blockBuf, 0, blockLen, false);
+                System.arraycopy(blockBuf, blockLen, blockBuf, 0, buf.size());
+                blockLen = 0;
+            }
+
+            /* The matcher didn't see the bytes that were stored or tallied
+             * as literals, so it must not refer back to anything older.
+             */
+            if (!stored && !literals)
+                matcher.reset();
+        }
+
+        comprFunc = func;
+        literalsOnly = literals;
+    }
+
+    /**
+     * Moves as much input as fits from inputBuf to buf, keeping a copy of
+     * it after the current block in blockBuf.
+     */
+    private void fillBuffer() {
+        if (inputBuffer != null) {
+            fillFromBuffer();
+            return;
+        }
+        if (inputOff == inputEnd)
+            return;
+
+        int numNew = buf.addAll(inputBuf, inputOff, inputEnd - inputOff);
+        System.arraycopy(inputBuf, inputOff,
+                blockBuf, blockLen + buf.size() - numNew, numNew);
+        adler.update(inputBuf, inputOff, numNew);
+        inputOff += numNew;
+    }
+
+    /**
+     * fillBuffer for ByteBuffer input.  The bytes of a heap buffer are
+     * taken from its array in place; those of a direct buffer go straight
+     * to blockBuf, where they would be copied anyway.
+     */
+    private void fillFromBuffer() {
+        int numNew = Math.min(inputBuffer.remaining(), buf.capacity() - buf.size());
+        if (numNew > 0) {
+            int pos = inputBuffer.position();
+            int blockEnd = blockLen + buf.size();
+            if (inputBuffer.hasArray()) {
+                byte[] array = inputBuffer.array();
+                int off = inputBuffer.arrayOffset() + pos;
+                buf.addAll(array, off, numNew);
+                System.arraycopy(array, off, blockBuf, blockEnd, numNew);
+                inputBuffer.position(pos + numNew);
+            } else {
+                inputBuffer.get(blockBuf, blockEnd, numNew);
+                buf.addAll(blockBuf, blockEnd, numNew);
+            }
+            adler.update(blockBuf, blockEnd, numNew);
+        }
+
+        /* Let go of a drained buffer, so the caller may refill it */
+        if (!inputBuffer.hasRemaining())
+            inputBuffer = null;
+    }
+
+    private boolean deflateStored(boolean flush, boolean finish) {
+        if (!flush && !buf.hasWork())
+            return false;
+
+        /* The bytes are already in blockBuf; this only moves them from
+         * the lookahead into the block.
+         */
+        blockLen += buf.drain(blockBuf, blockLen, MAX_BLOCK_SIZE - blockLen);
+
+        if (blockLen >= MAX_BLOCK_SIZE || flush) {
+            boolean lastBlock = finish && !buf.hasWork();
+            huffman.flushStoredBlock(blockBuf, 0, blockLen, lastBlock);
+            System.arraycopy(blockBuf, blockLen, blockBuf, 0, buf.size());
+            blockLen = 0;
+            return buf.hasWork();
+        }
+        return true;
+    }
+
     private boolean deflateSlow(boolean flush, boolean finish) {
-        boolean progress = false;
-        while (buf.hasWork() && !flush) {
-            progress = true;
-            lz77.findNextMatch(buf, huffman);
+        /* Matches are only as long as the lookahead in buf, so don't run
+         * the buffer dry unless there is no more input to come.
+         */
+        if (buf.size() < MIN_LOOKAHEAD && !flush)
+            return false;
+
+        while (buf.size() >= MIN_LOOKAHEAD || flush) {
+            if (!buf.hasWork()) {
+                /* We are flushing everything */
+                huffman.flushBlock(blockBuf, 0, blockLen, finish);
+                blockLen = 0;
+                return false;
+            }
 
-            if (huffman.isFull()) {
-                lz77.reset();
+            int before = buf.size();
+            if (literalsOnly)
+                huffman.tallyLit(buf.nextByte() & 0xff);
+            else
+                matcher.findNextMatch(buf, huffman);
+            blockLen += before - buf.size();
+
+            /* A block must stay small enough to be stored if that turns
+             * out to be shorter than compressing it.
+             */
+            if (huffman.isFull() || blockLen > MAX_BLOCK_SIZE - MAX_MATCH) {
                 boolean lastBlock = finish && !buf.hasWork();
-                huffman.flushBlock(inputBuf, blockStart, inputOff - blockStart + buf.size(), lastBlock);
-
-                blockStart = inputOff - blockStart + buf.size();
+                huffman.flushBlock(blockBuf, 0, blockLen, lastBlock);
+                System.arraycopy(blockBuf, blockLen, blockBuf, 0, buf.size());
+                blockLen = 0;
                 return !lastBlock;
             }
         }
-        return progress;
+        return true;
     } 
 
     public boolean deflate(boolean flush, boolean finish)  {
+        updateComprFunc();
+        if (dictionary != null) {
+            if (comprFunc != DEFLATE_STORED && !literalsOnly)
+                matcher.setDictionary(dictionary, 0, dictionary.length);
+            dictionary = null;
+        }
+
         boolean progress;
         do {
-            int numNew = 0;
-            while (!buf.isFull() && inputOff < inputEnd) {
-                buf.add(inputBuf[inputOff++]);
-                numNew++;
-            }
-            adler.update(inputBuf, inputOff - numNew, numNew);
-            boolean canFlush = flush && inputOff == inputEnd;
-            progress = deflateSlow(canFlush, finish);
+            fillBuffer();
+            boolean canFlush = flush && needsInput();
+            if (comprFunc == DEFLATE_STORED)
+                progress = deflateStored(canFlush, finish);
+            else
+                progress = deflateSlow(canFlush, finish);
         }
         while (pending.isFlushed() && progress);
 
-        if (blockStart != inputEnd) {
-            huffman.flushBlock(inputBuf, blockStart, inputOff, finish);
-        }
         return progress;
     }
 
     public void setInput(byte[] buf, int off, int len) {
-        if (inputOff < inputEnd)
+        if (!needsInput())
             throw new IllegalStateException
                 ("Old input was not completely processed");
 
@@ -142,8 +336,26 @@ class OurDeflaterEngine extends DeflaterConstants {
         inputBuf = buf;
         inputOff = off;
         inputEnd = end;
+        inputBuffer = null;
     }
+
+    /**
+     * Sets a heap or direct buffer as the input.  Its position is advanced
+     * as the input is taken in, up to its limit.
+     */
+    public void setInput(ByteBuffer buf) {
+        if (!needsInput())
+            throw new IllegalStateException
+                ("Old input was not completely processed");
+
+        inputBuf = null;
+        inputOff = inputEnd = 0;
+        inputBuffer = buf;
+    }
+
     public final boolean needsInput() {
+        if (inputBuffer != null)
+            return !inputBuffer.hasRemaining();
         return inputEnd == inputOff;
     }
 
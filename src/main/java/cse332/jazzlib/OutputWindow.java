@@ -37,6 +37,8 @@
 
 package cse332.jazzlib;
 
+import java.nio.ByteBuffer;
+
 /*
  * Contains the output from the Inflation process.
  *
@@ -171,6 +173,25 @@ class OutputWindow
         return copied;
     }
 
+    /**
+     * Copies as much output as fits into the remaining bytes of output and
+     * advances its position, updating sum with the bytes copied.
+     * @return the number of bytes copied.
+     */
+    public int copyOutput(ByteBuffer output, Checksum sum)
+    {
+        int len = Math.min(output.remaining(), window_filled);
+        int copy_start = (window_end - window_filled) & WINDOW_MASK;
+        int tailLen = Math.min(len, WINDOW_SIZE - copy_start);
+
+        output.put(window, copy_start, tailLen);
+        sum.update(window, copy_start, tailLen);
+        output.put(window, 0, len - tailLen);
+        sum.update(window, 0, len - tailLen);
+        window_filled -= len;
+        return len;
+    }
+
     public void reset() {
         window_filled = window_end = 0;
     }
@@ -0,0 +1,270 @@
+package cse332.jazzlib;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * A ParallelDeflater compresses a single stream on several threads, the way
+ * pigz does.  The input is cut into blocks of blockSize bytes, each block is
+ * deflated by its own Deflater on a worker of an Executor, and the compressed
+ * blocks are written out in input order.
+ * <p>
+ * Every block but the last ends with a SYNC_FLUSH, which leaves the output
+ * on a byte boundary without ending the stream, so the next block can just
+ * be appended.  The last block is finished normally.  The result is one raw
+ * deflate stream (no zlib header), as it appears in a zip entry.  Blocks
+ * don't share any history, so no match crosses a block boundary.
+ * <p>
+ * The workers also compute the CRC32 of their blocks, and the checksums are
+ * combined in order with CRC32.combine.
+ * <p>
+ * Only one thread may call write and finish.  At most a few blocks per
+ * worker are queued or waiting to be written at any time; write blocks until
+ * the oldest of them is done when there are more.
+ *
+ * @see ZipOutputStream#setParallel(Executor, int)
+ */
+public class ParallelDeflater {
+    /**
+     * The default block size, the same as pigz uses.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    private final int blockSize;
+
+    /* Deflaters that no worker is using at the moment */
+    private final CompressorPool deflaters;
+
+    /* Blocks that were handed to the executor, oldest first */
+    private final OrderedTasks<Block> inFlight;
+
+    /* Input arrays of blocks that were written, ready to be reused */
+    private final Queue<byte[]> free = new ArrayDeque<>();
+
+    private int level;
+    private byte[] current;
+    private int fill;
+
+    private long crc;
+    private long totalIn;
+    private long totalOut;
+
+    /**
+     * A compressed block, as returned by a worker.
+     */
+    private static final class Block {
+        final byte[] input;
+        final int length;
+        final byte[] output;
+        final int outputLength;
+        final long crc;
+
+        Block(byte[] input, int length, byte[] output, int outputLength, long crc) {
+            this.input = input;
+            this.length = length;
+            this.output = output;
+            this.outputLength = outputLength;
+            this.crc = crc;
+        }
+    }
+
+    /**
+     * Creates a new ParallelDeflater with the default compression level and
+     * block size.
+     *
+     * @param executor the executor to compress the blocks on.
+     */
+    public ParallelDeflater(Executor executor) {
+        this(executor, Deflater.DEFAULT_COMPRESSION, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates a new ParallelDeflater.
+     *
+     * @param executor  the executor to compress the blocks on.
+     * @param level     the compression level, as for Deflater.
+     * @param blockSize the number of input bytes in each block.
+     * @throws IllegalArgumentException if level or blockSize is out of range.
+     */
+    public ParallelDeflater(Executor executor, int level, int blockSize) {
+        this(executor, level, blockSize, null);
+    }
+
+    /**
+     * Creates a new ParallelDeflater whose blocks are compressed with
+     * MatchFinders from the given supplier.
+     *
+     * @param executor  the executor to compress the blocks on.
+     * @param level     the compression level, as for Deflater.
+     * @param blockSize the number of input bytes in each block.
+     * @param finders   makes the MatchFinder of each Deflater, or null for
+     *                  the one the level picks.
+     * @throws IllegalArgumentException if level or blockSize is out of range.
+     * @see CompressorPool#CompressorPool(int, Supplier)
+     */
+    public ParallelDeflater(Executor executor, int level, int blockSize,
+                            Supplier<? extends MatchFinder> finders) {
+        if (executor == null)
+            throw new NullPointerException();
+        if (blockSize <= 0)
+            throw new IllegalArgumentException("blockSize <= 0");
+        this.blockSize = blockSize;
+        this.inFlight = new OrderedTasks<>(executor, "compress a block");
+        this.deflaters = new CompressorPool(this.inFlight.workers(), finders);
+
+        this.setLevel(level);
+        this.current = new byte[blockSize];
+    }
+
+    /**
+     * Sets the compression level.  The new level is used from the next
+     * block on.
+     *
+     * @param level the compression level, as for Deflater.
+     * @throws IllegalArgumentException if level is out of range.
+     */
+    public void setLevel(int level) {
+        if (level != Deflater.DEFAULT_COMPRESSION
+                && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION))
+            throw new IllegalArgumentException();
+        this.level = level;
+    }
+
+    /**
+     * Starts a new stream.  Blocks of the previous stream that weren't
+     * written yet are dropped.
+     */
+    public void reset() {
+        this.inFlight.cancelAll();
+        this.fill = 0;
+        this.crc = 0;
+        this.totalIn = 0;
+        this.totalOut = 0;
+    }
+
+    /**
+     * Adds len bytes from b[off..] to the stream.  Compressed blocks are
+     * written to out as they become ready.
+     *
+     * @throws IOException if writing to out fails, or a block couldn't be
+     *                     compressed.
+     */
+    public void write(byte[] b, int off, int len, OutputStream out) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length || off + len < 0)
+            throw new IndexOutOfBoundsException();
+
+        while (len > 0) {
+            /* A full block is only sent off once we know it isn't the
+             * last one, because the last one has to be finished instead.
+             */
+            if (this.fill == this.blockSize)
+                this.submit(false, out);
+
+            int count = Math.min(len, this.blockSize - this.fill);
+            System.arraycopy(b, off, this.current, this.fill, count);
+            this.fill += count;
+            off += count;
+            len -= count;
+            this.totalIn += count;
+        }
+    }
+
+    /**
+     * Ends the stream and writes all of its remaining output to out.
+     *
+     * @throws IOException if writing to out fails, or a block couldn't be
+     *                     compressed.
+     */
+    public void finish(OutputStream out) throws IOException {
+        this.submit(true, out);
+        while (!this.inFlight.isEmpty())
+            this.writeBlock(out);
+    }
+
+    /**
+     * Returns the CRC32 of the input of the blocks written so far.  After
+     * finish(), that is the CRC32 of the whole stream.
+     */
+    public long getCrc() {
+        return this.crc;
+    }
+
+    /**
+     * Returns the number of input bytes added since the last reset.
+     */
+    public long getTotalIn() {
+        return this.totalIn;
+    }
+
+    /**
+     * Returns the number of compressed bytes written since the last reset.
+     */
+    public long getTotalOut() {
+        return this.totalOut;
+    }
+
+    private void submit(boolean last, OutputStream out) throws IOException {
+        byte[] input = this.current;
+        int length = this.fill;
+        int lvl = this.level;
+        this.inFlight.submit(() -> this.compress(input, length, last, lvl));
+
+        this.current = this.free.isEmpty() ? new byte[this.blockSize] : this.free.remove();
+        this.fill = 0;
+
+        /* Write whatever is ready, and wait if too much is outstanding */
+        while (this.inFlight.shouldTake())
+            this.writeBlock(out);
+    }
+
+    private void writeBlock(OutputStream out) throws IOException {
+        Block block = this.inFlight.take();
+        out.write(block.output, 0, block.outputLength);
+        this.crc = CRC32.combine(this.crc, block.crc, block.length);
+        this.totalOut += block.outputLength;
+        this.free.add(block.input);
+    }
+
+    /**
+     * Deflates input[0..length).  Runs on a worker.
+     */
+    private Block compress(byte[] input, int length, boolean last, int lvl) {
+        Deflater def = this.deflaters.borrowDeflater(lvl, Deflater.DEFAULT_STRATEGY, true);
+        try {
+            CRC32 checksum = new CRC32();
+            checksum.update(input, 0, length);
+
+            /* Enough for stored blocks, the worst case; grows if not */
+            byte[] output = new byte[length + (length >> 8) + 64];
+            int outputLength = 0;
+
+            def.setInput(input, 0, length);
+            if (last)
+                def.finish();
+            for (;;) {
+                if (outputLength == output.length)
+                    output = Arrays.copyOf(output, 2 * output.length);
+                int space = output.length - outputLength;
+                if (last) {
+                    outputLength += def.deflate(output, outputLength, space);
+                    if (def.finished())
+                        break;
+                } else {
+                    int count = def.deflate(output, outputLength, space, Deflater.SYNC_FLUSH);
+                    outputLength += count;
+                    if (count < space)
+                        break;
+                }
+            }
+
+            return new Block(input, length, output, outputLength, checksum.getValue());
+        } finally {
+            this.deflaters.release(def);
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package cse332.jazzlib;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A ParallelGZIPInputStream reads a gzip file of several members, as written
+ * by concatenating gzip files or by a parallel compressor, and inflates its
+ * members concurrently on the workers of an Executor.  The members are read
+ * back in file order, and each member's CRC32 and ISIZE are checked.
+ * <p>
+ * Where a member ends is only known once it is inflated, so the file is
+ * scanned ahead for the bytes a gzip header starts with, and a worker
+ * inflates from each of them.  A member that turns out to lie inside the
+ * one before it is dropped.  Members with a BGZF extra field (as written by
+ * bgzip) say how long they are, and are found without scanning.
+ * <p>
+ * Each worker keeps up to memberBuffer bytes of its member's output until
+ * it is read, and at most a few members per worker are in flight, which
+ * bounds the memory used.  Output of a member beyond memberBuffer is
+ * inflated by the reading thread when it gets there.
+ * <p>
+ * Only one thread may read from the stream.
+ *
+ * @see GZIPInputStream
+ * @see ParallelDeflater
+ */
+public class ParallelGZIPInputStream extends InputStream {
+    /**
+     * The output kept per member unless the constructor says otherwise.
+     */
+    public static final int DEFAULT_MEMBER_BUFFER = 16 << 20;
+
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final FileChannel file;
+    private final long fileSize;
+    private final Executor executor;
+    private final int maxInFlight;
+    private final int memberBuffer;
+
+    /* Inflaters that no worker is using at the moment */
+    private final CompressorPool inflaters;
+
+    /* Members that were handed to the executor, in file order */
+    private final Queue<Pending> inFlight = new ArrayDeque<>();
+
+    /* Where the scan for more headers goes on */
+    private long scanPos;
+
+    /* Where the next member starts, and the member that is read */
+    private long nextStart;
+    private Member current;
+
+    private final byte[] oneByte = new byte[1];
+    private boolean closed;
+
+    /**
+     * A member handed to the executor.
+     */
+    private static final class Pending {
+        final Member member;
+        final Future<Member> future;
+
+        Pending(Member member, Future<Member> future) {
+            this.member = member;
+            this.future = future;
+        }
+    }
+
+    /**
+     * A member that is being inflated.  Its output is kept in chunks until
+     * it is read.  Its header is read and an inflater borrowed when it is
+     * first inflated, so that a candidate which is no member fails on the
+     * worker.  Once end is known the member is finished and checked, and
+     * its inflater was released.
+     */
+    private final class Member {
+        final long start;
+        final List<byte[]> chunks = new ArrayList<>();
+        int lastLength;
+        int chunkIndex;
+        int chunkPos;
+
+        Inflater inf;
+        final byte[] input = new byte[CHUNK_SIZE];
+        long inPos;
+        final CRC32 crc = new CRC32();
+        long size;
+        long end = -1;
+
+        /* Set once the worker is done, and once the member is dropped */
+        private boolean buffered;
+        private boolean dropped;
+
+        Member(long start) {
+            this.start = start;
+        }
+
+        /**
+         * Inflates into b[off..off+len), reading more of the file as
+         * needed.  Returns 0 once the member is finished.
+         */
+        int inflate(byte[] b, int off, int len) throws IOException {
+            if (this.inf == null && this.end < 0) {
+                this.inPos = GZIPInputStream.skipHeader(ParallelGZIPInputStream.this.file, this.start);
+                this.inf = ParallelGZIPInputStream.this.inflaters.borrowInflater(true);
+            }
+            while (this.end < 0) {
+                int count;
+                try {
+                    count = this.inf.inflate(b, off, len);
+                } catch (DataFormatException e) {
+                    throw new ZipException(e.getMessage());
+                }
+                if (count > 0) {
+                    this.crc.update(b, off, count);
+                    this.size += count;
+                }
+
+                if (this.inf.finished())
+                    this.checkTrailer();
+                else if (this.inf.needsInput())
+                    this.fill();
+
+                if (count > 0)
+                    return count;
+            }
+            return 0;
+        }
+
+        /**
+         * Inflates up to memberBuffer bytes into chunks.  Runs on a worker.
+         */
+        Member buffer() throws IOException {
+            long buffered = 0;
+            try {
+                while (this.end < 0 && buffered < ParallelGZIPInputStream.this.memberBuffer
+                        && !this.isDropped()) {
+                    byte[] chunk = new byte[CHUNK_SIZE];
+                    int fill = 0;
+                    int count;
+                    while (fill < chunk.length && (count = this.inflate(chunk, fill, chunk.length - fill)) > 0)
+                        fill += count;
+                    if (fill > 0) {
+                        this.chunks.add(chunk);
+                        this.lastLength = fill;
+                        buffered += fill;
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                this.release();
+                throw e;
+            } finally {
+                synchronized (this) {
+                    this.buffered = true;
+                    if (this.dropped)
+                        this.release();
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Tells the worker to stop, and releases the inflater once it has.
+         */
+        synchronized void drop() {
+            this.dropped = true;
+            if (this.buffered)
+                this.release();
+        }
+
+        private synchronized boolean isDropped() {
+            return this.dropped;
+        }
+
+        /**
+         * Copies buffered output to b[off..off+len), and returns how much,
+         * or 0 if none is left.
+         */
+        int drain(byte[] b, int off, int len) {
+            while (this.chunkIndex < this.chunks.size()) {
+                byte[] chunk = this.chunks.get(this.chunkIndex);
+                int length = this.chunkIndex == this.chunks.size() - 1 ? this.lastLength : chunk.length;
+                int count = Math.min(len, length - this.chunkPos);
+                if (count > 0) {
+                    System.arraycopy(chunk, this.chunkPos, b, off, count);
+                    this.chunkPos += count;
+                    return count;
+                }
+                /* Let the chunks that were read be collected */
+                this.chunks.set(this.chunkIndex++, null);
+                this.chunkPos = 0;
+            }
+            return 0;
+        }
+
+        private void fill() throws IOException {
+            ByteBuffer buf = ByteBuffer.wrap(this.input);
+            int len = ParallelGZIPInputStream.this.file.read(buf, this.inPos);
+            if (len <= 0)
+                throw new EOFException("Early EOF in GZIP file");
+            this.inf.setInput(this.input, 0, len);
+            this.inPos += len;
+        }
+
+        private void checkTrailer() throws IOException {
+            long pos = this.inPos - this.inf.getRemaining();
+            this.release();
+
+            FileChannel file = ParallelGZIPInputStream.this.file;
+            int crcval = 0;
+            int total = 0;
+            for (int i = 0; i < 4; i++) {
+                crcval |= GZIPInputStream.readByte(file, pos + i) << (8 * i);
+                total |= GZIPInputStream.readByte(file, pos + 4 + i) << (8 * i);
+            }
+            if (crcval != (int) this.crc.getValue())
+                throw new ZipException("GZIP crc sum mismatch, theirs \""
+                        + Integer.toHexString(crcval) + "\" and ours \""
+                        + Integer.toHexString((int) this.crc.getValue()) + "\"");
+            if (total != (int) this.size)
+                throw new ZipException("Number of bytes mismatch");
+            this.end = pos + 8;
+        }
+
+        void release() {
+            if (this.inf != null) {
+                ParallelGZIPInputStream.this.inflaters.release(this.inf);
+                this.inf = null;
+            }
+        }
+    }
+
+    /**
+     * Creates a new ParallelGZIPInputStream with the default member buffer.
+     *
+     * @param file     the gzip file to read.
+     * @param executor the executor to inflate the members on.
+     * @throws IOException if file can't be opened.
+     */
+    public ParallelGZIPInputStream(File file, Executor executor) throws IOException {
+        this(file, executor, DEFAULT_MEMBER_BUFFER);
+    }
+
+    /**
+     * Creates a new ParallelGZIPInputStream.
+     *
+     * @param file         the gzip file to read.
+     * @param executor     the executor to inflate the members on.
+     * @param memberBuffer the most output of a member a worker inflates
+     *                     ahead of the reader.
+     * @throws IllegalArgumentException if memberBuffer is not positive.
+     * @throws IOException              if file can't be opened.
+     */
+    public ParallelGZIPInputStream(File file, Executor executor, int memberBuffer)
+            throws IOException {
+        if (executor == null)
+            throw new NullPointerException();
+        if (memberBuffer <= 0)
+            throw new IllegalArgumentException("memberBuffer <= 0");
+        this.executor = executor;
+        this.memberBuffer = memberBuffer;
+
+        this.maxInFlight = OrderedTasks.maxInFlight(OrderedTasks.workers(executor));
+        this.inflaters = new CompressorPool(this.maxInFlight);
+
+        this.file = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.fileSize = this.file.size();
+    }
+
+    public int read() throws IOException {
+        return this.read(this.oneByte, 0, 1) < 0 ? -1 : this.oneByte[0] & 0xff;
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (this.closed)
+            throw new IOException("Stream closed");
+        if (off < 0 || len < 0 || off + len > b.length || off + len < 0)
+            throw new IndexOutOfBoundsException();
+        if (len == 0)
+            return 0;
+
+        for (;;) {
+            if (this.current == null && !this.nextMember())
+                return -1;
+
+            int count = this.current.drain(b, off, len);
+            if (count == 0)
+                count = this.current.inflate(b, off, len);
+            if (count > 0)
+                return count;
+
+            this.nextStart = this.current.end;
+            this.current = null;
+        }
+    }
+
+    /**
+     * Closes the file.  Members that are still in flight are dropped.
+     */
+    public void close() throws IOException {
+        if (this.closed)
+            return;
+        this.closed = true;
+        while (!this.inFlight.isEmpty())
+            this.discard(this.inFlight.remove());
+        if (this.current != null)
+            this.current.release();
+        this.file.close();
+    }
+
+    /**
+     * Makes the member at nextStart the current one.  Returns false at the
+     * end of the file.
+     */
+    private boolean nextMember() throws IOException {
+        if (this.nextStart >= this.fileSize)
+            return false;
+
+        this.scanAhead();
+
+        /* Candidates before nextStart were inside the last member */
+        while (!this.inFlight.isEmpty() && this.inFlight.peek().member.start < this.nextStart)
+            this.discard(this.inFlight.remove());
+
+        if (!this.inFlight.isEmpty() && this.inFlight.peek().member.start == this.nextStart) {
+            this.current = OrderedTasks.await(this.inFlight.remove().future, "inflate a member");
+            return true;
+        }
+
+        if (!this.isHeader(this.nextStart)) {
+            if (this.nextStart == 0)
+                throw new ZipException("Not in GZIP format");
+            /* Like GZIPInputStream, ignore whatever follows the last member */
+            return false;
+        }
+        this.current = new Member(this.nextStart);
+        return true;
+    }
+
+    /**
+     * Hands members after nextStart to the executor until maxInFlight of
+     * them are in flight.  The scan doesn't go further than the output
+     * all of them could buffer, so that a large member isn't read twice
+     * before any of it is returned.
+     */
+    private void scanAhead() throws IOException {
+        this.scanPos = Math.max(this.scanPos, this.nextStart);
+        long limit = this.nextStart + (long) this.maxInFlight * this.memberBuffer;
+        while (this.inFlight.size() < this.maxInFlight) {
+            long start = this.findHeader(this.scanPos, limit);
+            if (start < 0)
+                break;
+            long size = this.bgzfSize(start);
+            this.scanPos = size > 0 ? start + size : start + 1;
+
+            Member member = new Member(start);
+            FutureTask<Member> task = new FutureTask<>(member::buffer);
+            this.executor.execute(task);
+            this.inFlight.add(new Pending(member, task));
+        }
+    }
+
+    /**
+     * Returns the offset of the first gzip header in [pos, limit), or -1.
+     * If there is none, the scan goes on at limit next time.
+     */
+    private long findHeader(long pos, long limit) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(CHUNK_SIZE);
+        limit = Math.min(limit, this.fileSize);
+        this.scanPos = Math.max(pos, limit - 3);
+        while (pos + 10 <= this.fileSize && pos < limit) {
+            buf.clear();
+            int len = this.file.read(buf, pos);
+            if (len < 4)
+                return -1;
+            byte[] b = buf.array();
+            len = (int) Math.min(len, limit + 3 - pos);
+            for (int i = 0; i + 4 <= len; i++) {
+                if (b[i] == (byte) 0x1f && b[i + 1] == (byte) 0x8b && b[i + 2] == Deflater.DEFLATED
+                        && (b[i + 3] & 0xe0) == 0)
+                    return pos + i;
+            }
+            pos += len - 3;
+        }
+        return -1;
+    }
+
+    private boolean isHeader(long pos) throws IOException {
+        return pos + 10 <= this.fileSize
+                && (GZIPInputStream.readByte(this.file, pos) << 8
+                    | GZIPInputStream.readByte(this.file, pos + 1)) == GZIPInputStream.GZIP_MAGIC;
+    }
+
+    /**
+     * Returns the size of the member at start from its BGZF extra field,
+     * or 0 if it doesn't have one.
+     */
+    private long bgzfSize(long start) throws IOException {
+        if ((GZIPInputStream.readByte(this.file, start + 3) & GZIPInputStream.FEXTRA) == 0)
+            return 0;
+        long pos = start + 12;
+        long end = pos + (GZIPInputStream.readByte(this.file, start + 10)
+                | GZIPInputStream.readByte(this.file, start + 11) << 8);
+        while (pos + 4 <= end) {
+            int si1 = GZIPInputStream.readByte(this.file, pos);
+            int si2 = GZIPInputStream.readByte(this.file, pos + 1);
+            int len = GZIPInputStream.readByte(this.file, pos + 2)
+                    | GZIPInputStream.readByte(this.file, pos + 3) << 8;
+            if (si1 == 'B' && si2 == 'C' && len == 2)
+                return (GZIPInputStream.readByte(this.file, pos + 4)
+                        | GZIPInputStream.readByte(this.file, pos + 5) << 8) + 1;
+            pos += 4 + len;
+        }
+        return 0;
+    }
+
+    /**
+     * Drops a member that isn't read.  A worker that is still inflating it
+     * stops soon after, and failures of candidates that were no members
+     * are expected.
+     */
+    private void discard(Pending pending) {
+        pending.future.cancel(false);
+        pending.member.drop();
+    }
+}
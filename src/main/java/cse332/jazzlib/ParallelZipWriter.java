@@ -0,0 +1,371 @@
+package cse332.jazzlib;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * A ParallelZipWriter writes a zip archive whose entries are compressed
+ * concurrently.  Each entry that is added is read and compressed by a worker
+ * of an Executor into a spool, which stays in memory while it's small and
+ * spills to a temporary file when it isn't.  The finished entries are then
+ * appended to the archive in the order they were added, followed by the
+ * central directory, by a ZipOutputStream.
+ * <p>
+ * This pays off for many small and medium entries.  A single large entry is
+ * still compressed by one worker; use ZipOutputStream.setParallel to split
+ * it up instead.
+ * <p>
+ * Only one thread may add entries.  At most a few entries per worker are
+ * queued or waiting to be written at any time; the add methods block until
+ * the oldest of them is written when there are more.
+ *
+ * @see ZipOutputStream
+ * @see ParallelDeflater
+ */
+public class ParallelZipWriter implements Closeable {
+    /**
+     * Compressed entries larger than this many bytes are spilled to a
+     * temporary file, unless setSpillThreshold says otherwise.
+     */
+    public static final int DEFAULT_SPILL_THRESHOLD = 1 << 20;
+
+    private final ZipOutputStream zip;
+
+    /* Deflaters that no worker is using at the moment */
+    private final CompressorPool deflaters;
+
+    /* Entries that were handed to the executor, oldest first */
+    private final OrderedTasks<Spool> inFlight;
+
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    private int method = ZipOutputStream.DEFLATED;
+    private int spillThreshold = DEFAULT_SPILL_THRESHOLD;
+    private boolean finished = false;
+
+    /**
+     * Where an entry's data comes from.  Opened on a worker.
+     */
+    private interface Source {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Creates a new ParallelZipWriter.
+     *
+     * @param out      the output stream to which the zip archive is written.
+     * @param executor the executor to compress the entries on.
+     */
+    public ParallelZipWriter(OutputStream out, Executor executor) {
+        this(out, executor, null);
+    }
+
+    /**
+     * Creates a new ParallelZipWriter whose entries are compressed with
+     * MatchFinders from the given supplier.
+     *
+     * @param out      the output stream to which the zip archive is written.
+     * @param executor the executor to compress the entries on.
+     * @param finders  makes the MatchFinder of each Deflater, or null for
+     *                 the one the level picks.
+     * @see CompressorPool#CompressorPool(int, Supplier)
+     */
+    public ParallelZipWriter(OutputStream out, Executor executor,
+                             Supplier<? extends MatchFinder> finders) {
+        this.inFlight = new OrderedTasks<>(executor, "compress an entry");
+        this.zip = new ZipOutputStream(out);
+        this.deflaters = new CompressorPool(this.inFlight.workers(), finders);
+    }
+
+    /**
+     * Sets the compression level of the entries added from now on.
+     *
+     * @param level the compression level, as for Deflater.
+     * @throws IllegalArgumentException if level is out of range.
+     */
+    public void setLevel(int level) {
+        if (level != Deflater.DEFAULT_COMPRESSION
+                && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION))
+            throw new IllegalArgumentException();
+        this.level = level;
+    }
+
+    /**
+     * Sets the default compression method of the entries added from now on.
+     * If an entry specifies another method its method takes precedence.
+     *
+     * @param method ZipOutputStream.STORED or ZipOutputStream.DEFLATED.
+     * @throws IllegalArgumentException if method is not supported.
+     */
+    public void setMethod(int method) {
+        if (method != ZipOutputStream.STORED && method != ZipOutputStream.DEFLATED)
+            throw new IllegalArgumentException("Method not supported.");
+        this.method = method;
+    }
+
+    /**
+     * Sets the size above which compressed entries are kept in temporary
+     * files instead of memory.
+     *
+     * @param bytes the largest compressed size kept in memory.
+     * @throws IllegalArgumentException if bytes is negative.
+     */
+    public void setSpillThreshold(int bytes) {
+        if (bytes < 0)
+            throw new IllegalArgumentException("bytes < 0");
+        this.spillThreshold = bytes;
+    }
+
+    /**
+     * Sets the zip file comment.
+     *
+     * @throws IllegalArgumentException if encoding of comment is longer
+     *                                  than 0xffff bytes.
+     */
+    public void setComment(String comment) {
+        this.zip.setComment(comment);
+    }
+
+    /**
+     * Adds the contents of file as an entry called name.
+     *
+     * @throws IOException if an earlier entry couldn't be read, compressed
+     *                     or written.
+     */
+    public void add(String name, File file) throws IOException {
+        this.add(new ZipEntry(name), file);
+    }
+
+    /**
+     * Adds the contents of file as entry.  If the time of entry is not set,
+     * the modification time of the file is used.
+     *
+     * @throws IOException if an earlier entry couldn't be read, compressed
+     *                     or written.
+     */
+    public void add(ZipEntry entry, File file) throws IOException {
+        if (entry.getTime() < 0)
+            entry.setTime(file.lastModified());
+        this.submit(entry, () -> new FileInputStream(file));
+    }
+
+    /**
+     * Adds data as entry.  The array must not change until the entry was
+     * written.
+     *
+     * @throws IOException if an earlier entry couldn't be read, compressed
+     *                     or written.
+     */
+    public void add(ZipEntry entry, byte[] data) throws IOException {
+        this.submit(entry, () -> new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Adds every file below dir, each directory's contents sorted by name
+     * and subdirectories in place of their names.  The entries are named
+     * by their path relative to dir, with '/' between directories.
+     * Directories themselves get no entries.
+     *
+     * @throws IOException if dir can't be listed, or an earlier entry
+     *                     couldn't be read, compressed or written.
+     */
+    public void addDirectory(File dir) throws IOException {
+        this.addDirectory(dir, "");
+    }
+
+    private void addDirectory(File dir, String prefix) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null)
+            throw new IOException("Can't list " + dir);
+        Arrays.sort(files);
+        for (File file : files) {
+            if (file.isDirectory())
+                this.addDirectory(file, prefix + file.getName() + "/");
+            else
+                this.add(prefix + file.getName(), file);
+        }
+    }
+
+    /**
+     * Waits for all entries and writes them, then writes the central
+     * directory.  Nothing can be added afterwards.
+     *
+     * @throws IOException if an entry couldn't be read, compressed or
+     *                     written.
+     */
+    public void finish() throws IOException {
+        if (this.finished)
+            return;
+        while (!this.inFlight.isEmpty())
+            this.writeEntry();
+        this.zip.finish();
+        this.finished = true;
+    }
+
+    /**
+     * Finishes the archive and closes the underlying stream.
+     */
+    public void close() throws IOException {
+        try {
+            this.finish();
+        } finally {
+            /* Don't leave temporary files behind if finish failed */
+            this.inFlight.cancelAll(Spool::discard);
+            this.zip.close();
+        }
+    }
+
+    private void submit(ZipEntry entry, Source source) throws IOException {
+        if (this.finished)
+            throw new ZipException("ParallelZipWriter was finished");
+        if (entry.getMethod() == -1)
+            entry.setMethod(this.method);
+        if (entry.getTime() < 0)
+            entry.setTime(System.currentTimeMillis());
+
+        int lvl = this.level;
+        int threshold = this.spillThreshold;
+        this.inFlight.submit(() -> this.compress(entry, source, lvl, threshold));
+
+        /* Write whatever is ready, and wait if too much is outstanding */
+        while (this.inFlight.shouldTake())
+            this.writeEntry();
+    }
+
+    private void writeEntry() throws IOException {
+        Spool spool = this.inFlight.take();
+        try (InputStream data = spool.open()) {
+            this.zip.putCompressedEntry(spool.entry, data);
+        } finally {
+            spool.discard();
+        }
+    }
+
+    /**
+     * Reads and compresses one entry, and fills in its sizes and crc.  Runs
+     * on a worker.
+     */
+    private Spool compress(ZipEntry entry, Source source, int lvl, int threshold)
+            throws IOException {
+        Spool spool = new Spool(entry, threshold);
+        CRC32 crc = new CRC32();
+        long size = 0;
+        byte[] buf = new byte[8192];
+
+        try (InputStream in = source.open()) {
+            if (entry.getMethod() == ZipOutputStream.STORED) {
+                int len;
+                while ((len = in.read(buf)) >= 0) {
+                    spool.write(buf, 0, len);
+                    crc.update(buf, 0, len);
+                    size += len;
+                }
+                spool.close();
+                entry.setCompressedSize(size);
+            } else {
+                Deflater def = this.deflaters.borrowDeflater(lvl, Deflater.DEFAULT_STRATEGY, true);
+                try {
+                    DeflaterOutputStream out = new DeflaterOutputStream(spool, def, buf.length);
+                    int len;
+                    while ((len = in.read(buf)) >= 0) {
+                        out.write(buf, 0, len);
+                        crc.update(buf, 0, len);
+                        size += len;
+                    }
+                    out.close();
+                    entry.setCompressedSize(spool.size());
+                } finally {
+                    this.deflaters.release(def);
+                }
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            spool.discard();
+            throw e;
+        }
+
+        entry.setSize(size);
+        entry.setCrc(crc.getValue());
+        return spool;
+    }
+
+    /**
+     * The compressed data of one entry.  It is kept in memory until it grows
+     * past the threshold, and then moved to a temporary file.
+     */
+    private static final class Spool extends OutputStream {
+        final ZipEntry entry;
+        private final int threshold;
+
+        private byte[] buf = new byte[256];
+        private long count;
+        private File file;
+        private OutputStream fileOut;
+
+        Spool(ZipEntry entry, int threshold) {
+            this.entry = entry;
+            this.threshold = threshold;
+        }
+
+        long size() {
+            return this.count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (this.file == null && this.count + len > this.threshold) {
+                this.file = File.createTempFile("zipentry", ".tmp");
+                this.fileOut = new BufferedOutputStream(new FileOutputStream(this.file));
+                this.fileOut.write(this.buf, 0, (int) this.count);
+                this.buf = null;
+            }
+
+            if (this.file != null)
+                this.fileOut.write(b, off, len);
+            else {
+                int end = (int) this.count + len;
+                if (end > this.buf.length)
+                    this.buf = Arrays.copyOf(this.buf, Math.max(end, 2 * this.buf.length));
+                System.arraycopy(b, off, this.buf, (int) this.count, len);
+            }
+            this.count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.fileOut != null)
+                this.fileOut.close();
+        }
+
+        InputStream open() throws IOException {
+            if (this.file == null)
+                return new ByteArrayInputStream(this.buf, 0, (int) this.count);
+            return new BufferedInputStream(new FileInputStream(this.file));
+        }
+
+        void discard() {
+            if (this.file != null) {
+                try {
+                    this.fileOut.close();
+                } catch (IOException e) {
+                    /* We are throwing it away anyway */
+                }
+                this.file.delete();
+            }
+        }
+    }
+}
@@ -37,6 +37,8 @@
 
 package cse332.jazzlib;
 
+import java.nio.ByteBuffer;
+
 /**
  * This class is general purpose class for writing data to a buffer.
  *
@@ -54,7 +56,10 @@ class PendingBuffer
     int    start;
     int    end;
 
-    int    bits;
+    /* Bits that weren't written to buf yet, filled from the low end.
+     * There are always fewer than 32 of them between calls.
+     */
+    long   bits;
     int    bitCount;
 
     public PendingBuffer()
@@ -69,6 +74,7 @@ class PendingBuffer
 
     public final void reset() {
         start = end = bitCount = 0;
+        bits = 0;
     }
 
     public final void writeByte(int b) 
@@ -111,28 +117,63 @@ class PendingBuffer
     public final void alignToByte() {
         if (DeflaterConstants.DEBUGGING && start != 0)
             throw new IllegalStateException();
-        if (bitCount > 0)
+        while (bitCount > 0)
         {
             buf[end++] = (byte) bits;
-            if (bitCount > 8)
-                buf[end++] = (byte) (bits >>> 8);
+            bits >>>= 8;
+            bitCount -= 8;
         }
         bits = 0;
         bitCount = 0;
     }
 
+    /**
+     * Writes the count low bits of b, which must be 0 above them.  count
+     * must be at most 31.
+     */
     public final void writeBits(int b, int count)
+    {
+        bits |= (long) b << bitCount;
+        bitCount += count;
+        if (bitCount >= 32)
+            spill();
+    }
+
+    /**
+     * Writes a Huffman code followed by its extra bits in one go, as for
+     * a length or distance.  This is the same as writeBits(code, length)
+     * followed by writeBits(extra, extraBits), but with only one check
+     * whether the bits have to be written out.
+     *
+     * @param code      the bit reversed code, 0 above length bits.
+     * @param length    the length of code, at most 15.
+     * @param extra     the extra bits, 0 above extraBits bits.
+     * @param extraBits the number of extra bits, at most 13.
+     */
+    public final void writeSymbolWithExtra(int code, int length,
+                                           int extra, int extraBits)
+    {
+        bits |= ((long) code | (long) extra << length) << bitCount;
+        bitCount += length + extraBits;
+        if (bitCount >= 32)
+            spill();
+    }
+
+    /* Writes the lowest 32 bits out as a whole word. */
+    private void spill()
     {
         if (DeflaterConstants.DEBUGGING && start != 0)
             throw new IllegalStateException();
-        bits |= b << bitCount;
-        bitCount += count;
-        if (bitCount >= 16) {
-            buf[end++] = (byte) bits;
-            buf[end++] = (byte) (bits >>> 8);
-            bits >>>= 16;
-            bitCount -= 16;
-        }
+        byte[] b = buf;
+        int e = end;
+        int word = (int) bits;
+        b[e] = (byte) word;
+        b[e + 1] = (byte) (word >>> 8);
+        b[e + 2] = (byte) (word >>> 16);
+        b[e + 3] = (byte) (word >>> 24);
+        end = e + 4;
+        bits >>>= 32;
+        bitCount -= 32;
     }
 
     public final void writeShortMSB(int s) {
@@ -157,7 +198,7 @@ class PendingBuffer
      * invalid.
      */
     public final int flush(byte[] output, int offset, int length) {
-        if (bitCount >= 8)
+        while (bitCount >= 8)
         {
             buf[end++] = (byte) bits;
             bits >>>= 8;
@@ -178,6 +219,31 @@ class PendingBuffer
         return length;
     }
 
+    /**
+     * Flushes the pending buffer into the given buffer, as far as there
+     * is room in it, and advances its position.
+     *
+     * @param output the output buffer, heap or direct.
+     * @return the number of bytes stored.
+     */
+    public final int flush(ByteBuffer output) {
+        while (bitCount >= 8)
+        {
+            buf[end++] = (byte) bits;
+            bits >>>= 8;
+            bitCount -= 8;
+        }
+        int length = Math.min(output.remaining(), end - start);
+        output.put(buf, start, length);
+        start += length;
+        if (start == end)
+        {
+            start = 0;
+            end = 0;
+        }
+        return length;
+    }
+
     /**
      * Flushes the pending buffer and returns that data in a new array
      * 
@@ -37,6 +37,8 @@
 
 package cse332.jazzlib;
 
+import java.nio.ByteBuffer;
+
 /**
  * This class allows us to retrieve a specified amount of bits from
  * the input buffer, as well as copy big byte blocks.
@@ -50,17 +52,36 @@ package cse332.jazzlib;
  * peek bits before you may drop them.  This is not a general purpose
  * class but optimized for the behaviour of the Inflater.
  *
+ * The input is either a byte array or a ByteBuffer.  Heap buffers are
+ * read through their array; direct buffers, which have none, through
+ * a duplicate of the buffer, so that its position is left alone until
+ * syncPosition() is called.
+ *
  * @author John Leuner, Jochen Hoenicke
  */
 
 class StreamManipulator
 {
-    private byte[] window;
-    private int window_start = 0;
-    private int window_end = 0;
+    /* Package private, so that Inflater's fast loop can take them into
+     * locals and put them back when it is done.
+     */
+    byte[] window;
+    int window_start = 0;
+    int window_end = 0;
 
-    private int buffer = 0;
-    private int bits_in_buffer = 0;
+    /* The input if it is a direct buffer, else null; window_start and
+     * window_end are then indices into it.
+     */
+    ByteBuffer direct;
+
+    /* The buffer given to setInput(ByteBuffer), if any, and the index in
+     * window or direct of its position 0.
+     */
+    private ByteBuffer source;
+    private int sourceBase;
+
+    int buffer = 0;
+    int bits_in_buffer = 0;
 
     /**
      * Get the next n bits but don't increase input pointer.  n must be
@@ -74,13 +95,18 @@ class StreamManipulator
         {
             if (window_start == window_end)
                 return -1;
-            buffer |= (window[window_start++] & 0xff
-                    | (window[window_start++] & 0xff) << 8) << bits_in_buffer;
+            buffer |= (byteAt(window_start++)
+                    | byteAt(window_start++) << 8) << bits_in_buffer;
             bits_in_buffer += 16;
         }
         return buffer & ((1 << n) - 1);
     }
 
+    private int byteAt(int i)
+    {
+        return window != null ? window[i] & 0xff : direct.get(i) & 0xff;
+    }
+
     /* Drops the next n bits from the input.  You should have called peekBits
      * with a bigger or equal n before, to make sure that enough bits are in
      * the bit buffer.
@@ -166,13 +192,19 @@ class StreamManipulator
         int avail = window_end - window_start;
         if (length > avail)
             length = avail;
-        System.arraycopy(window, window_start, output, offset, length);
+        if (window != null)
+            System.arraycopy(window, window_start, output, offset, length);
+        else
+        {
+            direct.position(window_start);
+            direct.get(output, offset, length);
+        }
         window_start += length;
 
         if (((window_start - window_end) & 1) != 0)
         {
             /* We always want an even number of bytes in input, see peekBits */
-            buffer = (window[window_start++] & 0xff);
+            buffer = byteAt(window_start++);
             bits_in_buffer = 8;
         }
         return count + length;
@@ -185,6 +217,9 @@ class StreamManipulator
     public void reset()
     {
         window_start = window_end = buffer = bits_in_buffer = 0;
+        window = null;
+        direct = null;
+        source = null;
     }
 
     public void setInput(byte[] buf, int off, int len)
@@ -209,8 +244,55 @@ class StreamManipulator
         }
 
         window = buf;
+        direct = null;
+        source = null;
         window_start = off;
         window_end = end;
     }
+
+    /**
+     * Sets the bytes from the position to the limit of buf as the input.
+     * Its position is moved past the bytes read so far by syncPosition().
+     */
+    public void setInput(ByteBuffer buf)
+    {
+        if (window_start < window_end)
+            throw new IllegalStateException
+                ("Old input was not completely processed");
+
+        if (buf.hasArray())
+        {
+            window = buf.array();
+            direct = null;
+            sourceBase = buf.arrayOffset();
+        }
+        else
+        {
+            window = null;
+            direct = buf.duplicate();
+            sourceBase = 0;
+        }
+        source = buf;
+        window_start = sourceBase + buf.position();
+        window_end = sourceBase + buf.limit();
+
+        if (((window_end - window_start) & 1) != 0)
+        {
+            /* We always want an even number of bytes in input, see peekBits */
+            buffer |= byteAt(window_start++) << bits_in_buffer;
+            bits_in_buffer += 8;
+        }
+    }
+
+    /**
+     * Moves the position of the buffer given to setInput(ByteBuffer) past
+     * the bytes read so far.  Bits that were read but not used yet count as
+     * read.
+     */
+    public void syncPosition()
+    {
+        if (source != null)
+            source.position(window_start - sourceBase);
+    }
 }
 
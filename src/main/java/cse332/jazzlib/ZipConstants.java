@@ -93,5 +93,34 @@ interface ZipConstants
     int ENDSIZ = 12;
     int ENDOFF = 16;
     int ENDCOM = 20;
+
+    /* ZIP64: a size, offset or count that doesn't fit is written as all
+     * ones, and the real value is in the ZIP64 extra field or end record.
+     */
+    long ZIP64_MAGICVAL   = 0xffffffffL;
+    int  ZIP64_MAGICCOUNT = 0xffff;
+    int  ZIP64_VERSION    = 45;
+
+    /* The ZIP64 extended information extra field */
+    int ZIP64_EXTID = 0x0001;
+
+    /* The ZIP64 data descriptor, with 8 byte sizes */
+    int ZIP64_EXTHDR = 24;
+
+    /* The ZIP64 end of central directory record */
+    int ZIP64_ENDSIG = 'P'|('K'<<8)|(6<<16)|(6<<24);
+    int ZIP64_ENDHDR = 56;
+
+    int ZIP64_ENDTOT = 32;
+    int ZIP64_ENDSIZ = 40;
+    int ZIP64_ENDOFF = 48;
+
+    /* The ZIP64 end of central directory locator, right before the end
+     * of central directory
+     */
+    int ZIP64_LOCSIG = 'P'|('K'<<8)|(6<<16)|(7<<24);
+    int ZIP64_LOCHDR = 20;
+
+    int ZIP64_LOCOFF =  8;
 }
 
@@ -59,8 +59,8 @@ public class ZipEntry implements ZipConstants, Cloneable
     private static Calendar cal;
 
     private String name;
-    private int size;
-    private int compressedSize;
+    private long size;
+    private long compressedSize;
     private int crc;
     private int dostime;
     private short known = 0;
@@ -69,7 +69,7 @@ public class ZipEntry implements ZipConstants, Cloneable
     private String comment = null;
 
     int flags;              /* used by ZipOutputStream */
-    int offset;             /* used by ZipFile and ZipOutputStream */
+    long offset;            /* used by ZipFile and ZipOutputStream */
 
 
     /**
@@ -222,14 +222,15 @@ public class ZipEntry implements ZipConstants, Cloneable
     }
 
     /**
-     * Sets the size of the uncompressed data.
-     * @exception IllegalArgumentException if size is not in 0..0xffffffffL
+     * Sets the size of the uncompressed data.  Sizes of 4 GiB and more
+     * are written in a ZIP64 extra field.
+     * @exception IllegalArgumentException if size is negative
      */
     public void setSize(long size)
     {
-        if ((size & 0xffffffff00000000L) != 0)
+        if (size < 0)
             throw new IllegalArgumentException();
-        this.size = (int) size;
+        this.size = size;
         this.known |= KNOWN_SIZE;
     }
 
@@ -239,18 +240,19 @@ public class ZipEntry implements ZipConstants, Cloneable
      */
     public long getSize()
     {
-        return (known & KNOWN_SIZE) != 0 ? size & 0xffffffffL : -1L;
+        return (known & KNOWN_SIZE) != 0 ? size : -1L;
     }
 
     /**
-     * Sets the size of the compressed data.
-     * @exception IllegalArgumentException if size is not in 0..0xffffffffL
+     * Sets the size of the compressed data.  Sizes of 4 GiB and more
+     * are written in a ZIP64 extra field.
+     * @exception IllegalArgumentException if size is negative
      */
     public void setCompressedSize(long csize)
     {
-        if ((csize & 0xffffffff00000000L) != 0)
+        if (csize < 0)
             throw new IllegalArgumentException();
-        this.compressedSize = (int) csize;
+        this.compressedSize = csize;
         this.known |= KNOWN_CSIZE;
     }
 
@@ -260,7 +262,7 @@ public class ZipEntry implements ZipConstants, Cloneable
      */
     public long getCompressedSize()
     {
-        return (known & KNOWN_CSIZE) != 0 ? compressedSize & 0xffffffffL : -1L;
+        return (known & KNOWN_CSIZE) != 0 ? compressedSize : -1L;
     }
 
     /**
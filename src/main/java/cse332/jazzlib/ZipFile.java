@@ -44,9 +44,9 @@ import java.io.InputStream;
 import java.io.IOException;
 import java.io.EOFException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 /**
@@ -55,7 +55,9 @@ import java.util.NoSuchElementException;
  * automatically decompressed.
  *
  * This class is thread safe:  You can open input streams for arbitrary
- * entries in different threads.
+ * entries in different threads.  Normally those streams take turns
+ * reading the file; a ZipFile opened with OPEN_MAPPED reads through a
+ * memory mapping instead, so that streams never wait for each other.
  *
  * @author Jochen Hoenicke
  * @author Artur Biesiadowski
@@ -73,16 +75,32 @@ public class ZipFile implements ZipConstants
      */
     public static final int OPEN_DELETE = 0x4;
 
+    /**
+     * Mode flag to read entries through a memory mapping of the zip file.
+     * Each input stream then has its own position, so any number of
+     * threads can read entries at the same time without locking.
+     */
+    public static final int OPEN_MAPPED = 0x8;
+
     // Name of this zip file.
     private final String name;
 
     // File from which zip entries are read.
     private final RandomAccessFile raf;
 
+    // Channel of raf for positional reads, or null if not OPEN_MAPPED.
+    private final FileChannel channel;
+
+    // The whole file, if OPEN_MAPPED and small enough to map at once.
+    private final ByteBuffer mapped;
+
     // The entries of this zip file when initialized and not yet closed.
-    private HashMap<String, ZipEntry> entries;
+    private volatile CentralDirectory entries;
+
+    private volatile boolean closed = false;
 
-    private boolean closed = false;
+    // Inflaters for the streams of DEFLATED entries, reused once closed.
+    private final CompressorPool inflaters = new CompressorPool();
 
     /**
      * Opens a Zip file with the given name for reading.
@@ -94,6 +112,8 @@ public class ZipFile implements ZipConstants
     {
         this.raf = new RandomAccessFile(name, "r");
         this.name = name;
+        this.channel = null;
+        this.mapped = null;
     }
 
     /**
@@ -106,6 +126,8 @@ public class ZipFile implements ZipConstants
     {
         this.raf = new RandomAccessFile(file, "r");
         this.name = file.getPath();
+        this.channel = null;
+        this.mapped = null;
     }
 
     /**
@@ -118,9 +140,13 @@ public class ZipFile implements ZipConstants
      * The contents of the zip file will be accessible until it is closed.
      *
      * The OPEN_DELETE mode is currently unimplemented in this library
+     *
+     * If the OPEN_MAPPED mode is specified, entries are read through a
+     * memory mapping of the file, or positional reads on its channel if
+     * it is larger than 2GB.  This is not part of Sun's JDK.
      * 
      * @since JDK1.3
-     * @param mode Must be one of OPEN_READ or OPEN_READ | OPEN_DELETE
+     * @param mode Must be OPEN_READ, optionally combined with OPEN_MAPPED
      *
      * @exception IOException if a i/o error occured.
      * @exception ZipException if the file doesn't contain a valid zip
@@ -135,6 +161,27 @@ public class ZipFile implements ZipConstants
         }
         this.raf = new RandomAccessFile(file, "r");
         this.name = file.getPath();
+        if ((mode & OPEN_MAPPED) != 0)
+        {
+            this.channel = raf.getChannel();
+            try
+            {
+                long length = channel.size();
+                this.mapped = length <= Integer.MAX_VALUE
+                    ? channel.map(FileChannel.MapMode.READ_ONLY, 0, length)
+                    : null;
+            }
+            catch (IOException ex)
+            {
+                raf.close();
+                throw ex;
+            }
+        }
+        else
+        {
+            this.channel = null;
+            this.mapped = null;
+        }
     }
 
     /**
@@ -173,6 +220,23 @@ public class ZipFile implements ZipConstants
     }
 
 
+    /**
+     * Read a long in little endian byte order from the given
+     * DataInput stream using the given byte buffer.
+     *
+     * @param di DataInput stream to read from.
+     * @param b the byte buffer to read in (must be at least 4 bytes long).
+     * @return The value read.
+     *
+     * @exception IOException if a i/o error occured.
+     * @exception EOFException if the file ends prematurely
+     */
+    private final long readLeLong(DataInput di, byte[] b) throws IOException
+    {
+        long low = readLeInt(di, b) & 0xffffffffL;
+        return low | (long) readLeInt(di, b) << 32;
+    }
+
     /**
      * Read an unsigned short in little endian byte order from the given
      * byte buffer at the given offset.
@@ -203,8 +267,8 @@ public class ZipFile implements ZipConstants
 
     /**
      * Read the central directory of a zip file and fill the entries
-     * array.  This is called exactly once when first needed. It is called
-     * while holding the lock on <code>raf</code>.
+     * directory.  This is called exactly once when first needed. It is
+     * called while holding the lock on <code>raf</code>.
      *
      * @exception IOException if a i/o error occured.
      * @exception ZipException if the central directory is malformed 
@@ -227,63 +291,39 @@ public class ZipFile implements ZipConstants
             raf.seek(pos--);
         }
         while (readLeInt(raf, ebs) != ENDSIG);
+        long endPos = pos + 1;
 
-        if (raf.skipBytes(ENDTOT - ENDNRD) != ENDTOT - ENDNRD)
-            throw new EOFException(name);
-        int count = readLeShort(raf, ebs);
-        if (raf.skipBytes(ENDOFF - ENDSIZ) != ENDOFF - ENDSIZ)
+        /* The number of entries isn't needed, the directory is read
+         * until its end.
+         */
+        if (raf.skipBytes(ENDSIZ - ENDNRD) != ENDSIZ - ENDNRD)
             throw new EOFException(name);
-        int centralOffset = readLeInt(raf, ebs);
-
-        entries = new HashMap<String, ZipEntry>(count+count/2);
-        raf.seek(centralOffset);
-
-        byte[] buffer = new byte[16];
-        for (int i = 0; i < count; i++)
-        {
-            raf.readFully(ebs);
-            if (readLeInt(ebs, 0) != CENSIG)
-                throw new ZipException("Wrong Central Directory signature: " + name);
-
-            int method = readLeShort(ebs, CENHOW);
-            int dostime = readLeInt(ebs, CENTIM);
-            int crc = readLeInt(ebs, CENCRC);
-            int csize = readLeInt(ebs, CENSIZ);
-            int size = readLeInt(ebs, CENLEN);
-            int nameLen = readLeShort(ebs, CENNAM);
-            int extraLen = readLeShort(ebs, CENEXT);
-            int commentLen = readLeShort(ebs, CENCOM);
-
-            int offset = readLeInt(ebs, CENOFF);
-
-            int needBuffer = Math.max(nameLen, commentLen);
-            if (buffer.length < needBuffer)
-                buffer = new byte[needBuffer];
-
-            raf.readFully(buffer, 0, nameLen);
-            @SuppressWarnings("deprecation")
-                String name = new String(buffer, 0, 0, nameLen);
-
-            ZipEntry entry = new ZipEntry(name);
-            entry.setMethod(method);
-            entry.setCrc(crc & 0xffffffffL);
-            entry.setSize(size & 0xffffffffL);
-            entry.setCompressedSize(csize & 0xffffffffL);
-            entry.setDOSTime(dostime);
-            if (extraLen > 0)
-            {
-                byte[] extra = new byte[extraLen];
-                raf.readFully(extra);
-                entry.setExtra(extra);
-            }
-            if (commentLen > 0)
+        long centralSize = readLeInt(raf, ebs) & 0xffffffffL;
+        long centralOffset = readLeInt(raf, ebs) & 0xffffffffL;
+
+        /* A ZIP64 archive has a locator right before the end record,
+         * which points to the ZIP64 end record with the real values.
+         */
+        if (endPos >= ZIP64_LOCHDR)
+        {
+            raf.seek(endPos - ZIP64_LOCHDR);
+            if (readLeInt(raf, ebs) == ZIP64_LOCSIG)
             {
-                raf.readFully(buffer, 0, commentLen);
-                entry.setComment(new String(buffer, 0, commentLen));
+                raf.seek(endPos - ZIP64_LOCHDR + ZIP64_LOCOFF);
+                long zip64End = readLeLong(raf, ebs);
+                if (zip64End < 0 || zip64End > endPos - ZIP64_ENDHDR)
+                    throw new ZipException("Wrong ZIP64 end record offset: " + name);
+                raf.seek(zip64End);
+                if (readLeInt(raf, ebs) != ZIP64_ENDSIG)
+                    throw new ZipException("Wrong ZIP64 end record signature: " + name);
+                raf.seek(zip64End + ZIP64_ENDSIZ);
+                centralSize = readLeLong(raf, ebs);
+                centralOffset = readLeLong(raf, ebs);
             }
-            entry.offset = offset;
-            entries.put(name, entry);
         }
+
+        /* Only publish the entries once they are complete */
+        this.entries = CentralDirectory.read(raf, centralOffset, centralSize, name);
     }
 
     /**
@@ -313,13 +353,30 @@ public class ZipFile implements ZipConstants
     }
 
     /**
-     * Returns an enumeration of all Zip entries in this Zip file.
+     * Returns an enumeration of all Zip entries in this Zip file, sorted
+     * by name.
      */
     public Enumeration<?> entries()
+    {
+        return entriesWithPrefix("");
+    }
+
+    /**
+     * Returns an enumeration of the Zip entries in this Zip file whose
+     * names start with prefix, sorted by name.  With a prefix ending in
+     * '/' these are the entries in that directory and below it.  They
+     * are found without looking at the other entries.  This is not part
+     * of Sun's JDK.
+     *
+     * @param prefix the start of the names, or "" for all entries.
+     */
+    public Enumeration<?> entriesWithPrefix(String prefix)
     {
         try
         {
-            return new ZipEntryEnumeration(getEntries().values().iterator());
+            CentralDirectory entries = getEntries();
+            return new ZipEntryEnumeration(entries, entries.lowerBound(prefix),
+                                           prefix);
         }
         catch (IOException ioe)
         {
@@ -333,17 +390,24 @@ public class ZipFile implements ZipConstants
      * @exception IllegalStateException when the ZipFile has already been closed.
      * @exception IOEexception when the entries could not be read.
      */
-    private HashMap<String, ZipEntry> getEntries() throws IOException
+    private CentralDirectory getEntries() throws IOException
     {
+        /* The entries never change once read, so only reading them needs
+         * the lock.
+         */
+        CentralDirectory entries = this.entries;
+        if (entries != null)
+            return entries;
+
         synchronized(raf)
         {
             if (closed)
                 throw new IllegalStateException("ZipFile has closed: " + name);
 
-            if (entries == null)
+            if (this.entries == null)
                 readEntries();
 
-            return entries;
+            return this.entries;
         }
     }
 
@@ -358,9 +422,9 @@ public class ZipFile implements ZipConstants
     {
         try
         {
-            HashMap<String, ZipEntry> entries = getEntries();
-            ZipEntry entry = (ZipEntry) entries.get(name);
-            return entry != null ? (ZipEntry) entry.clone() : null;
+            CentralDirectory entries = getEntries();
+            int index = entries.find(name);
+            return index >= 0 ? entries.entry(index) : null;
         }
         catch (IOException ioe)
         {
@@ -385,25 +449,75 @@ public class ZipFile implements ZipConstants
      */
     private long checkLocalHeader(ZipEntry entry) throws IOException
     {
+        if (channel != null)
+        {
+            byte[] loc = new byte[LOCHDR];
+            readFully(entry.offset, loc);
+            return checkLocalHeader(entry, loc);
+        }
         synchronized (raf)
         {
             raf.seek(entry.offset);
             raf.readFully(locBuf);
+            return checkLocalHeader(entry, locBuf);
+        }
+    }
 
-            if (readLeInt(locBuf, 0) != LOCSIG)
-                throw new ZipException("Wrong Local header signature: " + name);
+    private long checkLocalHeader(ZipEntry entry, byte[] loc) throws IOException
+    {
+        if (readLeInt(loc, 0) != LOCSIG)
+            throw new ZipException("Wrong Local header signature: " + name);
+
+        if (entry.getMethod() != readLeShort(loc, LOCHOW))
+            throw new ZipException("Compression method mismatch: " + name);
 
-            if (entry.getMethod() != readLeShort(locBuf, LOCHOW))
-                throw new ZipException("Compression method mismatch: " + name);
+        if (entry.getName().length() != readLeShort(loc, LOCNAM))
+            throw new ZipException("file name length mismatch: " + name);
 
-            if (entry.getName().length() != readLeShort(locBuf, LOCNAM))
-                throw new ZipException("file name length mismatch: " + name);
+        int extraLen = entry.getName().length() + readLeShort(loc, LOCEXT);
+        return entry.offset + LOCHDR + extraLen;
+    }
 
-            int extraLen = entry.getName().length() + readLeShort(locBuf, LOCEXT);
-            return entry.offset + LOCHDR + extraLen;
+    /**
+     * Reads b.length bytes at pos without touching the file pointer.
+     * Only for OPEN_MAPPED.
+     *
+     * @exception EOFException if the file ends prematurely
+     */
+    private void readFully(long pos, byte[] b) throws IOException
+    {
+        if (mapped != null)
+        {
+            if (pos < 0 || pos > mapped.capacity() - b.length)
+                throw new EOFException(name);
+            ByteBuffer buf = mapped.duplicate();
+            buf.position((int) pos);
+            buf.get(b);
+            return;
+        }
+        ByteBuffer buf = ByteBuffer.wrap(b);
+        while (buf.hasRemaining())
+        {
+            if (channel.read(buf, pos + buf.position()) < 0)
+                throw new EOFException(name);
         }
     }
 
+    /**
+     * Returns the mapped bytes [start, start+len) of the file.
+     *
+     * @exception ZipException if they don't fit in the file
+     */
+    private ByteBuffer slice(long start, long len) throws IOException
+    {
+        if (start < 0 || len < 0 || start + len > mapped.capacity())
+            throw new ZipException("Entry extends past the end of the file: " + name);
+        ByteBuffer buf = mapped.duplicate();
+        buf.position((int) start);
+        buf.limit((int) (start + len));
+        return buf.slice();
+    }
+
     /**
      * Creates an input stream reading the given zip entry as
      * uncompressed data.  Normally zip entry should be an entry
@@ -417,25 +531,67 @@ public class ZipFile implements ZipConstants
      */
     public InputStream getInputStream(ZipEntry entry) throws IOException
     {
-        HashMap<String, ZipEntry> entries = getEntries();
+        CentralDirectory entries = getEntries();
         String name = entry.getName();
-        ZipEntry zipEntry = (ZipEntry) entries.get(name);
-        if (zipEntry == null)
+        int index = entries.find(name);
+        if (index < 0)
             throw new NoSuchElementException(name);
+        int method = entries.method(index);
+        if (method != ZipOutputStream.STORED
+                && method != ZipOutputStream.DEFLATED)
+            throw new ZipException("Unknown compression method " + method);
 
+        ZipEntry zipEntry = entries.entry(index);
         long start = checkLocalHeader(zipEntry);
-        int method = zipEntry.getMethod();
-        InputStream is = new BufferedInputStream(new PartialInputStream
-                (raf, start, zipEntry.getCompressedSize()));
-        switch (method)
-        {
-            case ZipOutputStream.STORED:
-                return is;
-            case ZipOutputStream.DEFLATED:
-                return new InflaterInputStream(is, new Inflater(true));
-            default:
-                throw new ZipException("Unknown compression method " + method);
-        }
+        InputStream is;
+        if (mapped != null)
+            is = new MappedInputStream(slice(start, zipEntry.getCompressedSize()));
+        else if (channel != null)
+            is = new BufferedInputStream(new ChannelInputStream
+                    (start, zipEntry.getCompressedSize()));
+        else
+            is = new BufferedInputStream(new PartialInputStream
+                    (raf, start, zipEntry.getCompressedSize()));
+        if (method == ZipOutputStream.STORED)
+            return is;
+        return new PooledInflaterInputStream(is);
+    }
+
+    /**
+     * Returns the contents of a STORED entry as a read-only buffer.  The
+     * buffer shares the memory mapping of the zip file, so nothing is
+     * copied.  This is not part of Sun's JDK.
+     *
+     * @param entry the entry to get the contents of.
+     * @return the contents, from position 0 to the limit.
+     *
+     * @exception IOException if a i/o error occured.
+     * @exception ZipException if the entry isn't STORED, or the Zip archive
+     * is malformed.
+     * @exception IllegalStateException if this ZipFile wasn't opened with
+     * OPEN_MAPPED.
+     */
+    public ByteBuffer getByteBuffer(ZipEntry entry) throws IOException
+    {
+        if (channel == null)
+            throw new IllegalStateException("ZipFile isn't mapped: " + name);
+
+        CentralDirectory entries = getEntries();
+        String name = entry.getName();
+        int index = entries.find(name);
+        if (index < 0)
+            throw new NoSuchElementException(name);
+        if (entries.method(index) != ZipOutputStream.STORED)
+            throw new ZipException("Entry isn't STORED: " + name);
+
+        ZipEntry zipEntry = entries.entry(index);
+        long start = checkLocalHeader(zipEntry);
+        long size = zipEntry.getCompressedSize();
+        if (mapped != null)
+            return slice(start, size).asReadOnlyBuffer();
+        if (size > Integer.MAX_VALUE)
+            throw new ZipException("Entry too large to map: " + name);
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, size);
     }
 
     /**
@@ -463,24 +619,186 @@ public class ZipFile implements ZipConstants
 
     private static class ZipEntryEnumeration implements Enumeration<Object>
     {
-        private final Iterator<ZipEntry> elements;
+        private final CentralDirectory entries;
+        private final String prefix;
+        private int index;
 
-        public ZipEntryEnumeration(Iterator<ZipEntry> elements)
+        public ZipEntryEnumeration(CentralDirectory entries, int index,
+                                   String prefix)
         {
-            this.elements = elements;
+            this.entries = entries;
+            this.index = index;
+            this.prefix = prefix;
         }
 
         public boolean hasMoreElements()
         {
-            return elements.hasNext();
+            return index < entries.size()
+                && entries.startsWith(index, prefix);
         }
 
         public Object nextElement()
         {
-            /* We return a clone, just to be safe that the user doesn't
-             * change the entry.  
-             */
-            return ((ZipEntry)elements.next()).clone();
+            if (!hasMoreElements())
+                throw new NoSuchElementException();
+            /* Every entry is made anew, so the user can't change ours */
+            return entries.entry(index++);
+        }
+    }
+
+    /**
+     * Inflates a DEFLATED entry with an Inflater borrowed from the pool of
+     * the zip file, and gives it back when the stream is closed.  A stream
+     * that is never closed just costs the pool an Inflater.
+     */
+    private class PooledInflaterInputStream extends InflaterInputStream
+    {
+        private volatile boolean released = false;
+
+        public PooledInflaterInputStream(InputStream in)
+        {
+            super(in, inflaters.borrowInflater(true));
+        }
+
+        public int available() throws IOException
+        {
+            if (released)
+                throw new ZipException("InflaterInputStream is closed");
+            return super.available();
+        }
+
+        /* The inflater may be someone else's once this stream is closed */
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            if (released)
+                throw new ZipException("InflaterInputStream is closed");
+            return super.read(b, off, len);
+        }
+
+        public synchronized void close() throws IOException
+        {
+            try
+            {
+                super.close();
+            }
+            finally
+            {
+                if (!released)
+                {
+                    released = true;
+                    inflaters.release(inf);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads an entry from the mapping of the zip file.  Every stream has a
+     * buffer of its own, so reading needs no lock.
+     */
+    private class MappedInputStream extends InputStream
+    {
+        private final ByteBuffer buf;
+
+        public MappedInputStream(ByteBuffer buf)
+        {
+            this.buf = buf;
+        }
+
+        private void ensureOpen() throws IOException
+        {
+            if (closed)
+                throw new IOException("ZipFile has closed: " + name);
+        }
+
+        public int available() throws IOException
+        {
+            ensureOpen();
+            return buf.remaining();
+        }
+
+        public int read() throws IOException
+        {
+            ensureOpen();
+            if (!buf.hasRemaining())
+                return -1;
+            return buf.get() & 0xff;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            ensureOpen();
+            if (len == 0)
+                return 0;
+            if (!buf.hasRemaining())
+                return -1;
+            len = Math.min(len, buf.remaining());
+            buf.get(b, off, len);
+            return len;
+        }
+
+        public long skip(long amount) throws IOException
+        {
+            ensureOpen();
+            if (amount < 0)
+                throw new IllegalArgumentException();
+            int count = (int) Math.min(amount, buf.remaining());
+            buf.position(buf.position() + count);
+            return count;
+        }
+    }
+
+    /**
+     * Reads an entry with positional reads on the channel of the zip
+     * file, which don't move the file pointer and need no lock.
+     */
+    private class ChannelInputStream extends InputStream
+    {
+        private long filepos;
+        private final long end;
+
+        public ChannelInputStream(long start, long len)
+        {
+            filepos = start;
+            end = start + len;
+        }
+
+        public int available()
+        {
+            long amount = end - filepos;
+            if (amount > Integer.MAX_VALUE)
+                return Integer.MAX_VALUE;
+            return (int) amount;
+        }
+
+        public int read() throws IOException
+        {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            if (len > end - filepos)
+            {
+                len = (int) (end - filepos);
+                if (len == 0)
+                    return -1;
+            }
+            int count = channel.read(ByteBuffer.wrap(b, off, len), filepos);
+            if (count > 0)
+                filepos += count;
+            return count;
+        }
+
+        public long skip(long amount)
+        {
+            if (amount < 0)
+                throw new IllegalArgumentException();
+            if (amount > end - filepos)
+                amount = end - filepos;
+            filepos += amount;
+            return amount;
         }
     }
 
@@ -528,7 +846,7 @@ public class ZipFile implements ZipConstants
                 raf.seek(filepos);
                 int count = raf.read(b, off, len);
                 if (count > 0)
-                    filepos += len;
+                    filepos += count;
                 return count;
             }
         }
@@ -48,7 +48,8 @@ import java.io.IOException;
  * the next file.  The zip entry contains information about the file name
  * size, compressed size, CRC, etc.
  *
- * It includes support for STORED and DEFLATED entries.
+ * It includes support for STORED and DEFLATED entries, also of 4 GiB
+ * and more in the ZIP64 format.
  *
  * @author Jochen Hoenicke
  */
@@ -57,12 +58,13 @@ public class ZipInputStream extends InflaterInputStream implements ZipConstants
     private CRC32 crc = new CRC32();
     private ZipEntry entry = null;
 
-    private int csize;
-    private int size;
+    private long csize;
+    private long size;
     private int method;
     private int flags;
     private int avail;
     private boolean entryAtEOF;
+    private boolean zip64;
 
     /**
      * Creates a new Zip input stream, reading a zip archive.
@@ -133,6 +135,14 @@ public class ZipInputStream extends InflaterInputStream implements ZipConstants
         return readLeShort() | (readLeShort() << 16);
     }
 
+    /**
+     * Read a long in little endian byte order.
+     */
+    private final long readLeLong() throws IOException
+    {
+        return (readLeInt() & 0xffffffffL) | (long) readLeInt() << 32;
+    }
+
     /**
      * Open the next entry from the zip archive, and return its description.
      * If the previous entry wasn't closed, this method will close it.
@@ -160,35 +170,34 @@ public class ZipInputStream extends InflaterInputStream implements ZipConstants
         method = readLeShort();
         int dostime = readLeInt();
         int crc = readLeInt();
-        csize = readLeInt();
-        size = readLeInt();
+        csize = readLeInt() & 0xffffffffL;
+        size = readLeInt() & 0xffffffffL;
         int nameLen = readLeShort();
         int extraLen = readLeShort();
 
-        if (method == ZipOutputStream.STORED && csize != size)
-            throw new ZipException("Stored, but compressed != uncompressed");
-
-
         byte[] buffer = new byte[nameLen];
         readFully(buffer);
         String name = new String(buffer);
 
+        byte[] extra = new byte[extraLen];
+        readFully(extra);
+        readZip64(extra);
+
+        if (method == ZipOutputStream.STORED && csize != size)
+            throw new ZipException("Stored, but compressed != uncompressed");
+
         entry = createZipEntry(name);
         entryAtEOF = false;
         entry.setMethod(method);
         if ((flags & 8) == 0)
         {
             entry.setCrc(crc & 0xffffffffL);
-            entry.setSize(size & 0xffffffffL);
-            entry.setCompressedSize(csize & 0xffffffffL);
+            entry.setSize(size);
+            entry.setCompressedSize(csize);
         }
         entry.setDOSTime(dostime);
         if (extraLen > 0)
-        {
-            byte[] extra = new byte[extraLen];
-            readFully(extra);
             entry.setExtra(extra);
-        }
 
         if (method == ZipOutputStream.DEFLATED && avail > 0)
         {
@@ -200,15 +209,61 @@ public class ZipInputStream extends InflaterInputStream implements ZipConstants
         return entry;
     }
 
+    /**
+     * Takes the sizes from a ZIP64 field in the extra data of the local
+     * header, if there is one.  The local field always has both sizes.
+     */
+    private void readZip64(byte[] extra)
+    {
+        zip64 = false;
+        int pos = 0;
+        while (pos + 4 <= extra.length)
+        {
+            int id = (extra[pos] & 0xff) | (extra[pos+1] & 0xff) << 8;
+            int len = (extra[pos+2] & 0xff) | (extra[pos+3] & 0xff) << 8;
+            if (id == ZIP64_EXTID && len >= 16 && pos + 20 <= extra.length)
+            {
+                zip64 = true;
+                if (size == ZIP64_MAGICVAL)
+                    size = leLong(extra, pos + 4);
+                if (csize == ZIP64_MAGICVAL)
+                    csize = leLong(extra, pos + 12);
+                return;
+            }
+            pos += 4 + len;
+        }
+    }
+
+    private static long leLong(byte[] b, int off)
+    {
+        long value = 0;
+        for (int i = 7; i >= 0; i--)
+            value = value << 8 | (b[off + i] & 0xff);
+        return value;
+    }
+
+    /**
+     * Reads the data descriptor.  Its sizes are 8 bytes long if the local
+     * header had a ZIP64 field or the entry turned out to need them.
+     */
     private void readDataDescr() throws IOException
     {
         if (readLeInt() != EXTSIG)
             throw new ZipException("Data descriptor signature not found");
         entry.setCrc(readLeInt() & 0xffffffffL);
-        csize = readLeInt();
-        size = readLeInt();
-        entry.setSize(size & 0xffffffffL);
-        entry.setCompressedSize(csize & 0xffffffffL);
+        if (zip64 || inf.getBytesRead() >= ZIP64_MAGICVAL
+                || inf.getBytesWritten() >= ZIP64_MAGICVAL)
+        {
+            csize = readLeLong();
+            size = readLeLong();
+        }
+        else
+        {
+            csize = readLeInt() & 0xffffffffL;
+            size = readLeInt() & 0xffffffffL;
+        }
+        entry.setSize(size);
+        entry.setCompressedSize(csize);
     }
 
     /**
@@ -232,7 +287,7 @@ public class ZipInputStream extends InflaterInputStream implements ZipConstants
                 /* read will close this entry */
                 return;
             }
-            csize -= inf.getTotalIn();
+            csize -= inf.getBytesRead();
             avail = inf.getRemaining();
         }
 
@@ -244,7 +299,7 @@ public class ZipInputStream extends InflaterInputStream implements ZipConstants
             avail = 0;
             while (csize != 0)
             {
-                long skipped = in.skip(csize & 0xffffffffL);
+                long skipped = in.skip(csize);
                 if (skipped <= 0)
                     throw new ZipException("zip archive ends early.");
                 csize -= skipped;
@@ -306,9 +361,9 @@ public class ZipInputStream extends InflaterInputStream implements ZipConstants
                     if ((flags & 8) != 0)
                         readDataDescr();
 
-                    if (inf.getTotalIn() != csize
-                            || inf.getTotalOut() != size)
-                        throw new ZipException("size mismatch: "+csize+";"+size+" <-> "+inf.getTotalIn()+";"+inf.getTotalOut());
+                    if (inf.getBytesRead() != csize
+                            || inf.getBytesWritten() != size)
+                        throw new ZipException("size mismatch: "+csize+";"+size+" <-> "+inf.getBytesRead()+";"+inf.getBytesWritten());
                     inf.reset();
                     finished = true;
                 }
@@ -317,7 +372,7 @@ public class ZipInputStream extends InflaterInputStream implements ZipConstants
             case ZipOutputStream.STORED:
 
                 if (len > csize && csize >= 0)
-                    len = csize;
+                    len = (int) csize;
 
                 len = readBuf(b, off, len);
                 if (len > 0)
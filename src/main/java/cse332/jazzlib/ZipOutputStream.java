@@ -39,9 +39,11 @@
 package cse332.jazzlib;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Enumeration;
 import java.util.Vector;
+import java.util.concurrent.Executor;
 
 /**
  * This is a FilterOutputStream that writes the files into a zip
@@ -49,7 +51,10 @@ import java.util.Vector;
  * zip entry.  The zip entries contains information about the file name
  * size, compressed size, CRC, etc.
  *
- * It includes support for STORED and DEFLATED entries.
+ * It includes support for STORED and DEFLATED entries.  DEFLATED entries
+ * can be compressed on several threads, see setParallel.  Entries and
+ * archives of 4 GiB and more, and archives of 65535 entries and more, are
+ * written in the ZIP64 format.
  *
  * This class is not thread safe.
  *
@@ -60,10 +65,15 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
     private Vector<ZipEntry> entries = new Vector<ZipEntry>();
     private CRC32 crc = new CRC32();
     private ZipEntry curEntry = null;
+    private ZipEntry rawEntry = null;
 
     private int curMethod;
-    private int size;
-    private int offset = 0;
+    private long size;
+    private long offset = 0;
+
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    private ParallelDeflater parallel = null;
+    private ParallelDeflater curParallel = null;
 
     private byte[] zipComment = new byte[0];
     private int defaultMethod = DEFLATED;
@@ -131,6 +141,41 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
     public void setLevel(int level)
     {
         def.setLevel(level);
+        if (parallel != null)
+            parallel.setLevel(level);
+        this.level = level;
+    }
+
+    /**
+     * Compresses DEFLATED entries on the given executor, in blocks of
+     * ParallelDeflater.DEFAULT_BLOCK_SIZE bytes.
+     * @param executor the executor, or null to compress on the calling
+     * thread again.
+     * @see #setParallel(Executor, int)
+     */
+    public void setParallel(Executor executor)
+    {
+        setParallel(executor, ParallelDeflater.DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Compresses DEFLATED entries on the given executor.  Each entry is cut
+     * into blocks of blockSize bytes, which are deflated in parallel and
+     * joined into a single deflate stream.  Blocks don't share history, so
+     * entries come out slightly larger than without an executor.  This
+     * takes effect with the next entry.
+     * @param executor the executor, or null to compress on the calling
+     * thread again.
+     * @param blockSize the number of input bytes in a block.
+     * @exception IllegalArgumentException if blockSize is not positive.
+     * @see ParallelDeflater
+     */
+    public void setParallel(Executor executor, int blockSize)
+    {
+        if (executor == null)
+            parallel = null;
+        else
+            parallel = new ParallelDeflater(executor, level, blockSize);
     }
 
     /**
@@ -151,6 +196,62 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
         writeLeShort(value >> 16);
     }
 
+    /**
+     * Write a long in little endian byte order.
+     */
+    private final void writeLeLong(long value) throws IOException
+    {
+        writeLeInt((int) value);
+        writeLeInt((int) (value >> 32));
+    }
+
+    /**
+     * Returns the extra data to write for an entry: a ZIP64 field with the
+     * first count of the given values if count isn't zero, followed by the
+     * extra data of the entry.  A ZIP64 field the entry already has, e.g.
+     * because it was read from another archive, is left out.
+     * @exception ZipException if the result is longer than 0xffff bytes.
+     */
+    private static byte[] makeExtra(byte[] extra, long[] zip64, int count)
+        throws ZipException
+    {
+        if (extra == null)
+            extra = new byte[0];
+
+        /* Drop an old ZIP64 field; leave malformed data alone */
+        int pos = 0;
+        while (pos + 4 <= extra.length)
+        {
+            int id = (extra[pos] & 0xff) | (extra[pos+1] & 0xff) << 8;
+            int len = (extra[pos+2] & 0xff) | (extra[pos+3] & 0xff) << 8;
+            if (pos + 4 + len > extra.length)
+                break;
+            if (id == ZIP64_EXTID)
+            {
+                byte[] rest = new byte[extra.length - 4 - len];
+                System.arraycopy(extra, 0, rest, 0, pos);
+                System.arraycopy(extra, pos + 4 + len, rest, pos,
+                                 rest.length - pos);
+                extra = rest;
+            }
+            else
+                pos += 4 + len;
+        }
+
+        if (count == 0)
+            return extra;
+        byte[] result = new byte[4 + 8 * count + extra.length];
+        result[0] = (byte) ZIP64_EXTID;
+        result[2] = (byte) (8 * count);
+        for (int i = 0; i < count; i++)
+            for (int k = 0; k < 8; k++)
+                result[4 + 8 * i + k] = (byte) (zip64[i] >>> (8 * k));
+        System.arraycopy(extra, 0, result, 4 + 8 * count, extra.length);
+        if (result.length > 0xffff)
+            throw new ZipException("Extra data too long.");
+        return result;
+    }
+
     /**
      * Starts a new Zip entry. It automatically closes the previous
      * entry if present.  If the compression method is stored, the entry
@@ -198,17 +299,176 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
 
         if (curEntry != null)
             closeEntry();
+        if (rawEntry != null)
+            closeRawEntry();
+
+        entry.flags = flags;
+        entry.setMethod(method);
+        curMethod = method;
+        writeLocalHeader(entry);
+
+        /* Activate the entry. */
+
+        curEntry = entry;
+        crc.reset();
+        if (method == DEFLATED)
+        {
+            def.reset();
+            curParallel = parallel;
+            if (curParallel != null)
+                curParallel.reset();
+        }
+        size = 0;
+    }
+
+    /**
+     * Writes an entry whose data was already compressed with the entry's
+     * method, for example on another thread.  The size, compressed size
+     * and crc of the entry must be set; exactly getCompressedSize() bytes
+     * are copied from data.  It automatically closes the previous entry
+     * if present.
+     * @param entry the entry.
+     * @param data the compressed data.
+     * @exception IOException if an I/O error occured.
+     * @exception ZipException if stream was finished, the entry is
+     * incomplete or data ends too early.
+     * @see ParallelZipWriter
+     */
+    void putCompressedEntry(ZipEntry entry, InputStream data) throws IOException
+    {
+        if (entry.getSize() < 0 || entry.getCompressedSize() < 0
+                || entry.getCrc() < 0)
+            throw new ZipException("Size, compressed size and crc must be set");
+        putRawEntry(entry);
+
+        byte[] copyBuf = new byte[8192];
+        long remaining = entry.getCompressedSize();
+        while (remaining > 0)
+        {
+            int len = data.read(copyBuf, 0, (int) Math.min(copyBuf.length, remaining));
+            if (len < 0)
+                throw new ZipException("Compressed data ended early");
+            out.write(copyBuf, 0, len);
+            remaining -= len;
+        }
+        closeRawEntry();
+    }
+
+    /**
+     * Starts an entry whose data the caller writes to the underlying
+     * stream itself, right after this call and before closeRawEntry.
+     * This stream doesn't buffer, so nothing of the header is held back.
+     * A STORED entry needs its size and crc set; a DEFLATED entry whose
+     * sizes or crc aren't set gets them in a data descriptor instead.
+     * It automatically closes the previous entry if present.
+     * @param entry the entry.
+     * @exception IOException if an I/O error occured.
+     * @exception ZipException if stream was finished or the entry is
+     * incomplete.
+     * @see ChannelZipWriter
+     */
+    void putRawEntry(ZipEntry entry) throws IOException
+    {
+        if (entries == null)
+            throw new ZipException("ZipOutputStream was finished");
+
+        int method = entry.getMethod();
+        int flags = 0;
+        if (method == STORED)
+        {
+            if (entry.getSize() < 0 || entry.getCrc() < 0)
+                throw new ZipException("Method STORED, but size or crc not set");
+            if (entry.getCompressedSize() < 0)
+                entry.setCompressedSize(entry.getSize());
+            else if (entry.getSize() != entry.getCompressedSize())
+                throw new ZipException("Method STORED, but compressed size != size");
+        }
+        else if (method == DEFLATED)
+        {
+            if (entry.getCompressedSize() < 0
+                    || entry.getSize() < 0 || entry.getCrc() < 0)
+                flags |= 8;
+        }
+        else
+            throw new ZipException("Method not supported.");
+
+        if (curEntry != null)
+            closeEntry();
+        if (rawEntry != null)
+            closeRawEntry();
+
+        entry.flags = flags;
+        writeLocalHeader(entry);
+        rawEntry = entry;
+    }
+
+    /**
+     * Ends the entry started by putRawEntry, once its data was written.
+     * The size, compressed size and crc of the entry must be set by now.
+     * @exception IOException if an I/O error occured.
+     * @exception ZipException if no raw entry is active or it is
+     * incomplete.
+     */
+    void closeRawEntry() throws IOException
+    {
+        ZipEntry entry = rawEntry;
+        if (entry == null)
+            throw new ZipException("No open entry");
+        if (entry.getSize() < 0 || entry.getCompressedSize() < 0
+                || entry.getCrc() < 0)
+            throw new ZipException("Size, compressed size and crc must be set");
+
+        offset += entry.getCompressedSize();
+        if ((entry.flags & 8) != 0)
+            writeDataDescriptor(entry);
+
+        entries.addElement(entry);
+        rawEntry = null;
+    }
+
+    /**
+     * Writes the data descriptor of entry.  Its sizes are 8 bytes long if
+     * either of them is 4 GiB or more, like Sun's JDK does; a reader can
+     * tell from the amount of data it read.
+     */
+    private void writeDataDescriptor(ZipEntry entry) throws IOException
+    {
+        writeLeInt(EXTSIG);
+        writeLeInt((int)entry.getCrc());
+        if (entry.getCompressedSize() >= ZIP64_MAGICVAL
+                || entry.getSize() >= ZIP64_MAGICVAL)
+        {
+            writeLeLong(entry.getCompressedSize());
+            writeLeLong(entry.getSize());
+            offset += ZIP64_EXTHDR;
+        }
+        else
+        {
+            writeLeInt((int)entry.getCompressedSize());
+            writeLeInt((int)entry.getSize());
+            offset += EXTHDR;
+        }
+    }
+
+    /**
+     * Writes the local file header of entry at the current offset.  Sizes
+     * and crc are only written if bit 3 of the flags is clear; sizes of
+     * 4 GiB and more go to a ZIP64 field.
+     */
+    private void writeLocalHeader(ZipEntry entry) throws IOException
+    {
+        int method = entry.getMethod();
+        int flags = entry.flags;
+        boolean zip64 = (flags & 8) == 0
+            && (entry.getSize() >= ZIP64_MAGICVAL
+                || entry.getCompressedSize() >= ZIP64_MAGICVAL);
 
         if (entry.getTime() < 0)
             entry.setTime(System.currentTimeMillis());
 
-        entry.flags = flags;
         entry.offset = offset;
-        entry.setMethod(method);
-        curMethod = method;
-        /* Write the local file header */
         writeLeInt(LOCSIG);
-        writeLeShort(method == STORED
+        writeLeShort(zip64 ? ZIP64_VERSION : method == STORED
                 ? ZIP_STORED_VERSION : ZIP_DEFLATED_VERSION);
         writeLeShort(flags);
         writeLeShort(method);
@@ -216,8 +476,8 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
         if ((flags & 8) == 0)
         {
             writeLeInt((int)entry.getCrc());
-            writeLeInt((int)entry.getCompressedSize());
-            writeLeInt((int)entry.getSize());
+            writeLeInt(zip64 ? -1 : (int)entry.getCompressedSize());
+            writeLeInt(zip64 ? -1 : (int)entry.getSize());
         }
         else
         {
@@ -228,23 +488,15 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
         byte[] name = entry.getName().getBytes();
         if (name.length > 0xffff)
             throw new ZipException("Name too long.");
-        byte[] extra = entry.getExtra();
-        if (extra == null)
-            extra = new byte[0];
+        /* The local ZIP64 field always has both sizes */
+        byte[] extra = makeExtra(entry.getExtra(), new long[] {
+                entry.getSize(), entry.getCompressedSize() }, zip64 ? 2 : 0);
         writeLeShort(name.length);
         writeLeShort(extra.length);
         out.write(name);
         out.write(extra);
 
         offset += LOCHDR + name.length + extra.length;
-
-        /* Activate the entry. */
-
-        curEntry = entry;
-        crc.reset();
-        if (method == DEFLATED)
-            def.reset();
-        size = 0;
     }
 
     /**
@@ -259,9 +511,25 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
 
         /* First finish the deflater, if appropriate */
         if (curMethod == DEFLATED)
-            super.finish();
+        {
+            if (curParallel != null)
+                curParallel.finish(out);
+            else
+                super.finish();
+        }
 
-        int csize = curMethod == DEFLATED ? def.getTotalOut() : size;
+        long csize;
+        long crcValue;
+        if (curParallel != null)
+        {
+            csize = curParallel.getTotalOut();
+            crcValue = curParallel.getCrc();
+        }
+        else
+        {
+            csize = curMethod == DEFLATED ? def.getBytesWritten() : size;
+            crcValue = crc.getValue();
+        }
 
         if (curEntry.getSize() < 0)
             curEntry.setSize(size);
@@ -276,9 +544,9 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
                     +", but I expected "+curEntry.getSize());
 
         if (curEntry.getCrc() < 0)
-            curEntry.setCrc(crc.getValue());
-        else if (curEntry.getCrc() != crc.getValue())
-            throw new ZipException("crc was " + Long.toHexString(crc.getValue())
+            curEntry.setCrc(crcValue);
+        else if (curEntry.getCrc() != crcValue)
+            throw new ZipException("crc was " + Long.toHexString(crcValue)
                     + ", but I expected " 
                     + Long.toHexString(curEntry.getCrc()));
 
@@ -286,16 +554,11 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
 
         /* Now write the data descriptor entry if needed. */
         if (curMethod == DEFLATED && (curEntry.flags & 8) != 0)
-        {
-            writeLeInt(EXTSIG);
-            writeLeInt((int)curEntry.getCrc());
-            writeLeInt((int)curEntry.getCompressedSize());
-            writeLeInt((int)curEntry.getSize());
-            offset += EXTHDR;
-        }
+            writeDataDescriptor(curEntry);
 
         entries.addElement(curEntry);
         curEntry = null;
+        curParallel = null;
     }
 
     /**
@@ -311,6 +574,13 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
         switch (curMethod)
         {
             case DEFLATED:
+                if (curParallel != null)
+                {
+                    /* The blocks come with their own checksums */
+                    curParallel.write(b, off, len, out);
+                    size += len;
+                    return;
+                }
                 super.write(b, off, len);
                 break;
 
@@ -333,34 +603,47 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
             return;
         if (curEntry != null)
             closeEntry();
+        if (rawEntry != null)
+            closeRawEntry();
 
         int numEntries = 0;
-        int sizeEntries = 0;
+        long sizeEntries = 0;
+        long[] zip64 = new long[3];
 
         Enumeration<ZipEntry> enumX = entries.elements();
         while (enumX.hasMoreElements())
         {
             ZipEntry entry = (ZipEntry) enumX.nextElement();
 
+            /* Whatever doesn't fit goes to the ZIP64 field, in this order */
+            int count = 0;
+            boolean bigSize = entry.getSize() >= ZIP64_MAGICVAL;
+            boolean bigCsize = entry.getCompressedSize() >= ZIP64_MAGICVAL;
+            boolean bigOffset = entry.offset >= ZIP64_MAGICVAL;
+            if (bigSize)
+                zip64[count++] = entry.getSize();
+            if (bigCsize)
+                zip64[count++] = entry.getCompressedSize();
+            if (bigOffset)
+                zip64[count++] = entry.offset;
+
             int method = entry.getMethod();
+            int version = count > 0 ? ZIP64_VERSION : method == STORED
+                ? ZIP_STORED_VERSION : ZIP_DEFLATED_VERSION;
             writeLeInt(CENSIG);
-            writeLeShort(method == STORED
-                    ? ZIP_STORED_VERSION : ZIP_DEFLATED_VERSION);
-            writeLeShort(method == STORED
-                    ? ZIP_STORED_VERSION : ZIP_DEFLATED_VERSION);
+            writeLeShort(version);
+            writeLeShort(version);
             writeLeShort(entry.flags);
             writeLeShort(method);
             writeLeInt(entry.getDOSTime());
             writeLeInt((int)entry.getCrc());
-            writeLeInt((int)entry.getCompressedSize());
-            writeLeInt((int)entry.getSize());
+            writeLeInt(bigCsize ? -1 : (int)entry.getCompressedSize());
+            writeLeInt(bigSize ? -1 : (int)entry.getSize());
 
             byte[] name = entry.getName().getBytes();
             if (name.length > 0xffff)
                 throw new ZipException("Name too long.");
-            byte[] extra = entry.getExtra();
-            if (extra == null)
-                extra = new byte[0];
+            byte[] extra = makeExtra(entry.getExtra(), zip64, count);
             String strComment = entry.getComment();
             byte[] comment = strComment != null
                 ? strComment.getBytes() : new byte[0];
@@ -373,7 +656,7 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
             writeLeShort(0); /* disk number */
             writeLeShort(0); /* internal file attr */
             writeLeInt(0);   /* external file attr */
-            writeLeInt(entry.offset);
+            writeLeInt(bigOffset ? -1 : (int)entry.offset);
 
             out.write(name);
             out.write(extra);
@@ -382,13 +665,34 @@ public class ZipOutputStream extends DeflaterOutputStream implements ZipConstant
             sizeEntries += CENHDR + name.length + extra.length + comment.length;
         }
 
+        boolean zip64End = numEntries >= ZIP64_MAGICCOUNT
+            || sizeEntries >= ZIP64_MAGICVAL || offset >= ZIP64_MAGICVAL;
+        if (zip64End)
+        {
+            writeLeInt(ZIP64_ENDSIG);
+            writeLeLong(ZIP64_ENDHDR - 12); /* size of the rest */
+            writeLeShort(ZIP64_VERSION);
+            writeLeShort(ZIP64_VERSION);
+            writeLeInt(0); /* disk number */
+            writeLeInt(0); /* disk with start of central dir */
+            writeLeLong(numEntries);
+            writeLeLong(numEntries);
+            writeLeLong(sizeEntries);
+            writeLeLong(offset);
+
+            writeLeInt(ZIP64_LOCSIG);
+            writeLeInt(0); /* disk with the ZIP64 end record */
+            writeLeLong(offset + sizeEntries);
+            writeLeInt(1); /* number of disks */
+        }
+
         writeLeInt(ENDSIG);
         writeLeShort(0); /* disk number */
         writeLeShort(0); /* disk with start of central dir */
-        writeLeShort(numEntries);
-        writeLeShort(numEntries);
-        writeLeInt(sizeEntries);
-        writeLeInt(offset);
+        writeLeShort(Math.min(numEntries, ZIP64_MAGICCOUNT));
+        writeLeShort(Math.min(numEntries, ZIP64_MAGICCOUNT));
+        writeLeInt(sizeEntries >= ZIP64_MAGICVAL ? -1 : (int)sizeEntries);
+        writeLeInt(offset >= ZIP64_MAGICVAL ? -1 : (int)offset);
         writeLeShort(zipComment.length);
         out.write(zipComment);
         out.flush();
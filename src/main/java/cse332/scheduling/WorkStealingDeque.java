@@ -0,0 +1,164 @@
+package cse332.scheduling;
+
+import cse332.interfaces.worklists.LIFOWorkList;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The deque of a worker of a WorkStealingExecutor: a LIFOWorkList that only
+ * its owner adds to and takes from, at the bottom, while any other thread
+ * may steal from the top.  The owner works on what it added last, which is
+ * what is still in its cache, and a thief takes what was added first, which
+ * in divide and conquer work is the biggest piece.
+ * <p>
+ * The elements are in a circular array that doubles when it is full, as in
+ * the deque of Chase and Lev.  Every take, by the owner or a thief, claims
+ * its element with a compareAndSet of the slot to null, as in the queues of
+ * java.util.concurrent.ForkJoinPool, so the two ends only contend for the
+ * last element and no slot keeps a reference to work that was taken.
+ * <p>
+ * add, peek, next and clear may only be called by the owner.  steal and
+ * size may be called by any thread; size is a snapshot.
+ *
+ * See cse332/interfaces/worklists/LIFOWorkList.java
+ * for method specifications.
+ */
+public class WorkStealingDeque<E> extends LIFOWorkList<E> {
+    private static final int INITIAL_CAPACITY = 32;
+    private static final int MAX_CAPACITY = 1 << 26;
+
+    /* The next slot to steal from, and the next slot to add to */
+    private volatile int top;
+    private volatile int bottom;
+    private volatile AtomicReferenceArray<E> array;
+
+    public WorkStealingDeque() {
+        this.array = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Adds work to the bottom of this deque.  Only the owner may call this.
+     *
+     * @throws NullPointerException  if work is null
+     * @throws IllegalStateException if the deque can't grow any further
+     */
+    @Override
+    public void add(E work) {
+        if (work == null) {
+            throw new NullPointerException();
+        }
+        int b = this.bottom;
+        AtomicReferenceArray<E> a = this.array;
+        if (b - this.top >= a.length() - 1) {
+            a = this.grow(a, b);
+        }
+        a.lazySet(b & (a.length() - 1), work);
+        // Publishes the element to thieves, which read bottom first
+        this.bottom = b + 1;
+    }
+
+    /**
+     * Returns the work at the bottom.  Only the owner may call this.
+     */
+    @Override
+    public E peek() {
+        AtomicReferenceArray<E> a = this.array;
+        int b = this.bottom - 1;
+        E work = b - this.top >= 0 ? a.get(b & (a.length() - 1)) : null;
+        if (work == null) {
+            throw new NoSuchElementException();
+        }
+        return work;
+    }
+
+    @Override
+    public E next() {
+        E work = this.poll();
+        if (work == null) {
+            throw new NoSuchElementException();
+        }
+        return work;
+    }
+
+    /**
+     * Removes and returns the work at the bottom, or returns null if there
+     * is none, or a thief took the last of it first.  Only the owner may call
+     * this.
+     *
+     * @return the work added last, or null
+     */
+    public E poll() {
+        AtomicReferenceArray<E> a = this.array;
+        int b = this.bottom - 1;
+        if (b - this.top < 0) {
+            return null;
+        }
+        int i = b & (a.length() - 1);
+        E work = a.get(i);
+        if (work != null && a.compareAndSet(i, work, null)) {
+            this.bottom = b;
+            return work;
+        }
+        return null;
+    }
+
+    /**
+     * Removes and returns the work at the top, the one added first, or
+     * returns null if there is none or another thread took it first.  Any
+     * thread may call this.
+     *
+     * @return the oldest work, or null
+     */
+    public E steal() {
+        int t = this.top;
+        if (this.bottom - t <= 0) {
+            return null;
+        }
+        AtomicReferenceArray<E> a = this.array;
+        int i = t & (a.length() - 1);
+        E work = a.get(i);
+        // A stale top would find a slot that was taken, or reused
+        if (work != null && this.top == t && a.compareAndSet(i, work, null)) {
+            this.top = t + 1;
+            return work;
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        int n = this.bottom - this.top;
+        return Math.max(n, 0);
+    }
+
+    @Override
+    public void clear() {
+        while (this.poll() != null) {
+            // Thieves may still take some of it
+        }
+    }
+
+    /**
+     * Moves the elements to an array twice as long.  A thief may be taking
+     * an element from the old array at the same time, so each one is moved
+     * by taking it out of the old array the way a thief would.
+     */
+    private AtomicReferenceArray<E> grow(AtomicReferenceArray<E> old, int b) {
+        int length = old.length() << 1;
+        if (length > MAX_CAPACITY) {
+            throw new IllegalStateException("Deque full");
+        }
+        AtomicReferenceArray<E> a = new AtomicReferenceArray<>(length);
+        int oldMask = old.length() - 1;
+        int newMask = length - 1;
+        for (int j = this.top; j - b < 0; j++) {
+            E work = old.get(j & oldMask);
+            if (work != null && old.compareAndSet(j & oldMask, work, null)) {
+                a.lazySet(j & newMask, work);
+            }
+        }
+        this.array = a;
+        return a;
+    }
+}
@@ -0,0 +1,316 @@
+package cse332.scheduling;
+
+import datastructures.worklists.ConcurrentFIFOWorkList;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An Executor that runs tasks on a fixed number of worker threads, each of
+ * which keeps its own WorkStealingDeque instead of sharing one queue.
+ * <p>
+ * A task that a worker submits while it runs another goes to the bottom of
+ * that worker's deque, and a worker runs the task at the bottom of its
+ * deque first, so a task that splits its work into subtasks keeps working
+ * on the pieces it split off last.  A worker with an empty deque takes a
+ * task submitted from outside the executor, and if there is none, steals
+ * the oldest task of another worker, starting from a random one.  Tasks
+ * submitted from outside go to a ConcurrentFIFOWorkList, so neither path
+ * takes a lock.
+ * <p>
+ * A worker that found nothing to run parks until a new task is submitted,
+ * or for at most a millisecond in case it missed the wake up.
+ * <p>
+ * A task that throws is reported to the uncaught exception handler of its
+ * worker, which then goes on with the next task.
+ * <p>
+ * ParallelDeflater, ParallelZipWriter and ParallelGZIPInputStream keep a
+ * few tasks per worker in flight, and take the number of workers from
+ * getParallelism().
+ *
+ * @see WorkStealingDeque
+ */
+public class WorkStealingExecutor implements Executor {
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Worker[] workers;
+    private final ConcurrentFIFOWorkList<Runnable> submissions = new ConcurrentFIFOWorkList<>();
+    private final AtomicInteger idle = new AtomicInteger();
+    /* Outside submits between their check of shutdown and their add */
+    private final AtomicInteger submitting = new AtomicInteger();
+    private final CountDownLatch terminated;
+    private volatile boolean shutdown;
+
+    /**
+     * Creates a new WorkStealingExecutor with one worker per available
+     * processor.
+     */
+    public WorkStealingExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new WorkStealingExecutor and starts its workers.
+     *
+     * @param parallelism the number of worker threads
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    public WorkStealingExecutor(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism should be positive");
+        }
+        this.workers = new Worker[parallelism];
+        this.terminated = new CountDownLatch(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            this.workers[i] = new Worker(this, i);
+        }
+        for (Worker worker : this.workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Runs task on one of the workers.  If the calling thread is a worker of
+     * this executor, the task goes to its own deque; this is still allowed
+     * after shutdown, so running tasks can finish their work.
+     *
+     * @throws NullPointerException       if task is null
+     * @throws RejectedExecutionException if this executor was shut down and
+     *                                    the caller is not one of its workers
+     */
+    @Override
+    public void execute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        Thread current = Thread.currentThread();
+        if (current instanceof Worker && ((Worker) current).executor == this) {
+            ((Worker) current).deque.add(task);
+        } else {
+            // Counted before shutdown is read, so no worker exits before
+            // this task is added
+            this.submitting.incrementAndGet();
+            try {
+                if (this.shutdown) {
+                    throw new RejectedExecutionException("Executor was shut down");
+                }
+                this.submissions.add(task);
+            } finally {
+                this.submitting.decrementAndGet();
+            }
+        }
+        this.signal();
+    }
+
+    /**
+     * Returns the number of worker threads.
+     */
+    public int getParallelism() {
+        return this.workers.length;
+    }
+
+    /**
+     * Returns the number of tasks waiting in the deque of a worker.  This is
+     * a snapshot while the workers are busy.
+     *
+     * @param worker the index of the worker, from 0 to getParallelism() - 1
+     * @throws IndexOutOfBoundsException if there is no such worker
+     */
+    public int getQueueDepth(int worker) {
+        return this.workers[worker].deque.size();
+    }
+
+    /**
+     * Returns the number of tasks that a worker stole from other workers.
+     *
+     * @param worker the index of the worker, from 0 to getParallelism() - 1
+     * @throws IndexOutOfBoundsException if there is no such worker
+     */
+    public long getStealCount(int worker) {
+        return this.workers[worker].steals.sum();
+    }
+
+    /**
+     * Returns the number of tasks a worker has run.
+     *
+     * @param worker the index of the worker, from 0 to getParallelism() - 1
+     * @throws IndexOutOfBoundsException if there is no such worker
+     */
+    public long getCompletedCount(int worker) {
+        return this.workers[worker].completed.sum();
+    }
+
+    /**
+     * Returns the number of tasks submitted from outside the executor that
+     * no worker has taken yet.
+     */
+    public int getSubmissionQueueDepth() {
+        return this.submissions.size();
+    }
+
+    /**
+     * Stops accepting tasks from outside the executor.  The workers run
+     * every task that was already submitted, and those the tasks submit,
+     * and then exit.
+     */
+    public void shutdown() {
+        this.shutdown = true;
+        for (Worker worker : this.workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    /**
+     * Returns true iff shutdown() was called.
+     */
+    public boolean isShutdown() {
+        return this.shutdown;
+    }
+
+    /**
+     * Returns true iff this executor was shut down and all workers exited.
+     */
+    public boolean isTerminated() {
+        return this.terminated.getCount() == 0;
+    }
+
+    /**
+     * Waits until all workers exited after a shutdown, or the timeout
+     * elapsed.
+     *
+     * @return true if the workers exited, false if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return this.terminated.await(timeout, unit);
+    }
+
+    /**
+     * Wakes a parked worker, if any, to look for the task just submitted.
+     */
+    private void signal() {
+        if (this.idle.get() == 0) {
+            return;
+        }
+        for (Worker worker : this.workers) {
+            if (worker.parked && Thread.currentThread() != worker) {
+                worker.parked = false;
+                LockSupport.unpark(worker);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Takes a task from outside, or steals one from another worker than
+     * self, or returns null if neither had one.
+     */
+    private Runnable scan(Worker self) {
+        Runnable task = this.submissions.poll();
+        if (task != null) {
+            return task;
+        }
+        int n = this.workers.length;
+        int start = ThreadLocalRandom.current().nextInt(n);
+        for (int i = 0; i < n; i++) {
+            Worker victim = this.workers[(start + i) % n];
+            if (victim == self) {
+                continue;
+            }
+            // A failed steal may have lost a race; try again while there is work
+            while (victim.deque.hasWork()) {
+                task = victim.deque.steal();
+                if (task != null) {
+                    self.steals.increment();
+                    return task;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static class Worker extends Thread {
+        private final WorkStealingExecutor executor;
+        private final WorkStealingDeque<Runnable> deque = new WorkStealingDeque<>();
+        private final LongAdder steals = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private volatile boolean parked;
+
+        public Worker(WorkStealingExecutor executor, int index) {
+            super("WorkStealingExecutor-worker-" + index);
+            this.executor = executor;
+            this.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (;;) {
+                    Runnable task = this.deque.poll();
+                    if (task == null) {
+                        task = this.executor.scan(this);
+                    }
+                    if (task != null) {
+                        this.runTask(task);
+                    } else if (!this.awaitWork()) {
+                        return;
+                    }
+                }
+            } finally {
+                this.executor.terminated.countDown();
+            }
+        }
+
+        /**
+         * Parks until there may be work.  Returns false if the executor was
+         * shut down and there is no work left to take.
+         */
+        private boolean awaitWork() {
+            WorkStealingExecutor executor = this.executor;
+            // Announce first and look again, so a submit in between wakes us
+            this.parked = true;
+            executor.idle.incrementAndGet();
+            try {
+                boolean shutdown = executor.shutdown && executor.submitting.get() == 0;
+                if (executor.submissions.hasWork() || this.anyWork()) {
+                    return true;
+                }
+                if (shutdown) {
+                    return false;
+                }
+                LockSupport.parkNanos(this, PARK_NANOS);
+                return true;
+            } finally {
+                this.parked = false;
+                executor.idle.decrementAndGet();
+            }
+        }
+
+        private boolean anyWork() {
+            for (Worker worker : this.executor.workers) {
+                if (worker.deque.hasWork()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void runTask(Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                Thread.UncaughtExceptionHandler handler = this.getUncaughtExceptionHandler();
+                if (handler != null) {
+                    handler.uncaughtException(this, e);
+                }
+            }
+            this.completed.increment();
+        }
+    }
+}
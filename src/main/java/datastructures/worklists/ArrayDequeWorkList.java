@@ -0,0 +1,283 @@
+package datastructures.worklists;
+
+import cse332.interfaces.worklists.FIFOWorkList;
+import cse332.interfaces.worklists.LIFOWorkList;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A FIFOWorkList in a circular array that grows as needed, and that can be
+ * used from both ends.  add and next make it a queue; addFirst, addLast,
+ * nextFirst and nextLast use either end, and asLIFOWorkList() is a view of
+ * it as a stack.  peek(i) and update(i) reach any element in constant
+ * time, like in a FixedSizeFIFOWorkList.
+ * <p>
+ * The array length is always a power of two, so indices wrap with a mask.
+ * It doubles when an add finds it full, and halves once next has drained
+ * it to a quarter full, but never below the initial capacity.  Between a
+ * doubling and a halving at least a quarter of the array has been added or
+ * taken, so resizing stays amortized constant time even when the size goes
+ * up and down around a power of two.
+ *
+ * See cse332/interfaces/worklists/FIFOWorkList.java
+ * for method specifications.
+ */
+public class ArrayDequeWorkList<E> extends FIFOWorkList<E> {
+    /**
+     * The initial capacity unless the constructor says otherwise.
+     */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private static final int MAX_LENGTH = 1 << 30;
+
+    private final int minLength;
+    private E[] arr;
+    private int mask;
+    private int front;
+    private int size;
+
+    public ArrayDequeWorkList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty worklist with room for initialCapacity elements before
+     * it has to grow.  It never shrinks below that.
+     *
+     * @param initialCapacity the number of elements to make room for
+     * @throws IllegalArgumentException if initialCapacity is negative or
+     *                                  larger than 2^30
+     */
+    public ArrayDequeWorkList(int initialCapacity) {
+        if (initialCapacity < 0 || initialCapacity > MAX_LENGTH) {
+            throw new IllegalArgumentException("initialCapacity should be between 0 and 2^30");
+        }
+        int length = 1;
+        while (length < initialCapacity) {
+            length <<= 1;
+        }
+        this.minLength = length;
+        this.clear();
+    }
+
+    /**
+     * Adds work to the end of this worklist, like addLast.
+     */
+    @Override
+    public void add(E work) {
+        this.addLast(work);
+    }
+
+    /**
+     * Adds work to the front of this worklist, so it is the next element.
+     *
+     * @param work the work to add
+     */
+    public void addFirst(E work) {
+        if (this.size == this.arr.length) {
+            this.resize(this.arr.length << 1);
+        }
+        this.front = (this.front - 1) & this.mask;
+        this.arr[this.front] = work;
+        this.size++;
+    }
+
+    /**
+     * Adds work to the end of this worklist.
+     *
+     * @param work the work to add
+     */
+    public void addLast(E work) {
+        if (this.size == this.arr.length) {
+            this.resize(this.arr.length << 1);
+        }
+        this.arr[(this.front + this.size) & this.mask] = work;
+        this.size++;
+    }
+
+    /**
+     * Returns the front element of this worklist, like peekFirst.
+     */
+    @Override
+    public E peek() {
+        return this.peek(0);
+    }
+
+    /**
+     * Returns the front element of this worklist.
+     *
+     * @throws NoSuchElementException if hasWork() is false
+     */
+    public E peekFirst() {
+        return this.peek(0);
+    }
+
+    /**
+     * Returns the last element of this worklist.
+     *
+     * @throws NoSuchElementException if hasWork() is false
+     */
+    public E peekLast() {
+        return this.peek(this.size - 1);
+    }
+
+    /**
+     * Returns the ith element of this worklist, counting from the front.
+     *
+     * @param i the index of the element to peek at
+     * @return the ith element in this worklist
+     * @throws NoSuchElementException    if hasWork() is false
+     * @throws IndexOutOfBoundsException if i < 0 or i >= size()
+     */
+    public E peek(int i) {
+        if (this.size <= 0) {
+            throw new NoSuchElementException();
+        } else if (i < 0 || i >= this.size) {
+            throw new IndexOutOfBoundsException();
+        }
+        return this.arr[(this.front + i) & this.mask];
+    }
+
+    /**
+     * Replaces the ith element of this worklist, counting from the front.
+     *
+     * @param i     the index of the element to update
+     * @param value the value to update index i with
+     * @return the element that was replaced
+     * @throws NoSuchElementException    if hasWork() is false
+     * @throws IndexOutOfBoundsException if i < 0 or i >= size()
+     */
+    public E update(int i, E value) {
+        E old = this.peek(i);
+        this.arr[(this.front + i) & this.mask] = value;
+        return old;
+    }
+
+    /**
+     * Removes and returns the front element of this worklist, like
+     * nextFirst.
+     */
+    @Override
+    public E next() {
+        return this.nextFirst();
+    }
+
+    /**
+     * Removes and returns the front element of this worklist.
+     *
+     * @throws NoSuchElementException if hasWork() is false
+     */
+    public E nextFirst() {
+        if (this.size <= 0) {
+            throw new NoSuchElementException();
+        }
+        E work = this.arr[this.front];
+        this.arr[this.front] = null;
+        this.front = (this.front + 1) & this.mask;
+        this.size--;
+        this.shrinkIfSparse();
+        return work;
+    }
+
+    /**
+     * Removes and returns the last element of this worklist.
+     *
+     * @throws NoSuchElementException if hasWork() is false
+     */
+    public E nextLast() {
+        if (this.size <= 0) {
+            throw new NoSuchElementException();
+        }
+        int last = (this.front + this.size - 1) & this.mask;
+        E work = this.arr[last];
+        this.arr[last] = null;
+        this.size--;
+        this.shrinkIfSparse();
+        return work;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of elements this worklist has room for before it
+     * grows.
+     *
+     * @return the length of the backing array
+     */
+    public int capacity() {
+        return this.arr.length;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void clear() {
+        this.arr = (E[]) new Object[this.minLength];
+        this.mask = this.minLength - 1;
+        this.front = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Returns a view of this worklist as a stack: its add is addLast, and
+     * its peek and next are peekLast and nextLast.  Changes to either are
+     * seen by the other.
+     *
+     * @return this worklist as a LIFOWorkList
+     */
+    public LIFOWorkList<E> asLIFOWorkList() {
+        return new LIFOWorkList<E>() {
+            @Override
+            public void add(E work) {
+                ArrayDequeWorkList.this.addLast(work);
+            }
+
+            @Override
+            public E peek() {
+                return ArrayDequeWorkList.this.peekLast();
+            }
+
+            @Override
+            public E next() {
+                return ArrayDequeWorkList.this.nextLast();
+            }
+
+            @Override
+            public int size() {
+                return ArrayDequeWorkList.this.size();
+            }
+
+            @Override
+            public void clear() {
+                ArrayDequeWorkList.this.clear();
+            }
+        };
+    }
+
+    private void shrinkIfSparse() {
+        int length = this.arr.length;
+        if (length > this.minLength && this.size <= length >>> 2) {
+            this.resize(length >>> 1);
+        }
+    }
+
+    /**
+     * Moves the elements to the front of a new array of the given length.
+     */
+    @SuppressWarnings("unchecked")
+    private void resize(int length) {
+        // Doubling 2^30 overflows to a negative length
+        if (length <= 0 || length > MAX_LENGTH) {
+            throw new IllegalStateException("ArrayDequeWorkList can't hold more than 2^30 elements");
+        }
+        E[] grown = (E[]) new Object[length];
+        int first = Math.min(this.size, this.arr.length - this.front);
+        System.arraycopy(this.arr, this.front, grown, 0, first);
+        System.arraycopy(this.arr, 0, grown, first, this.size - first);
+        this.arr = grown;
+        this.mask = length - 1;
+        this.front = 0;
+    }
+}
@@ -0,0 +1,248 @@
+package datastructures.worklists;
+
+import cse332.interfaces.worklists.FixedSizeFIFOWorkList;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A FixedSizeFIFOWorkList of bytes that stores its elements in a primitive
+ * byte[] instead of an array of references, so bytes are never boxed while
+ * they sit in the queue.
+ * <p>
+ * The backing array is rounded up to a power of two so that indices wrap
+ * with a mask instead of a modulo.  The capacity reported by capacity() is
+ * still exactly the capacity requested in the constructor.
+ * <p>
+ * In addition to the WorkList API, this class has primitive versions of
+ * add/peek/next and bulk addAll/drain operations that copy whole runs of
+ * bytes with System.arraycopy.
+ *
+ * See cse332/interfaces/worklists/FixedSizeFIFOWorkList.java
+ * for method specifications.
+ */
+public class CircularByteArrayFIFOQueue extends FixedSizeFIFOWorkList<Byte> {
+    private final byte[] arr;
+    private final int mask;
+    private int front;
+    private int size;
+
+    public CircularByteArrayFIFOQueue(int capacity) {
+        super(capacity);
+
+        int length = 1;
+        while (length < capacity) {
+            length <<= 1;
+        }
+        this.arr = new byte[length];
+        this.mask = length - 1;
+        this.front = 0;
+        this.size = 0;
+    }
+
+    @Override
+    public void add(Byte work) {
+        this.addByte(work);
+    }
+
+    /**
+     * Adds b to the end of this worklist without boxing it.
+     *
+     * @param b the byte to add
+     * @throws IllegalStateException iff isFull()
+     */
+    public void addByte(byte b) {
+        if (this.isFull()) {
+            throw new IllegalStateException();
+        }
+        this.arr[(this.front + this.size) & this.mask] = b;
+        this.size++;
+    }
+
+    /**
+     * Adds as many bytes from src[off..off+len) as will fit in this worklist.
+     *
+     * @param src the array to copy from
+     * @param off the offset of the first byte to add
+     * @param len the maximum number of bytes to add
+     * @return the number of bytes actually added
+     * @throws IndexOutOfBoundsException if off and len don't fit src
+     */
+    public int addAll(byte[] src, int off, int len) {
+        if (off < 0 || len < 0 || off + len > src.length || off + len < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        int count = Math.min(len, this.capacity() - this.size);
+        int end = (this.front + this.size) & this.mask;
+        int first = Math.min(count, this.arr.length - end);
+        System.arraycopy(src, off, this.arr, end, first);
+        System.arraycopy(src, off + first, this.arr, 0, count - first);
+        this.size += count;
+        return count;
+    }
+
+    @Override
+    public Byte peek() {
+        return this.peekByte();
+    }
+
+    @Override
+    public Byte peek(int i) {
+        return this.peekByte(i);
+    }
+
+    /**
+     * Returns the next byte of this worklist without boxing it.
+     *
+     * @throws NoSuchElementException if hasWork() is false
+     */
+    public byte peekByte() {
+        if (this.size <= 0) {
+            throw new NoSuchElementException();
+        }
+        return this.arr[this.front];
+    }
+
+    /**
+     * Returns the ith byte of this worklist without boxing it.
+     *
+     * @throws NoSuchElementException    if hasWork() is false
+     * @throws IndexOutOfBoundsException if i < 0 or i >= size()
+     */
+    public byte peekByte(int i) {
+        if (this.size <= 0) {
+            throw new NoSuchElementException();
+        } else if (i < 0 || i >= this.size) {
+            throw new IndexOutOfBoundsException();
+        }
+        return this.arr[(this.front + i) & this.mask];
+    }
+
+    @Override
+    public Byte next() {
+        return this.nextByte();
+    }
+
+    /**
+     * Removes and returns the next byte of this worklist without boxing it.
+     *
+     * @throws NoSuchElementException if hasWork() is false
+     */
+    public byte nextByte() {
+        if (this.size <= 0) {
+            throw new NoSuchElementException();
+        }
+        byte b = this.arr[this.front];
+        this.front = (this.front + 1) & this.mask;
+        this.size--;
+        return b;
+    }
+
+    /**
+     * Removes up to len bytes from the front of this worklist and copies them,
+     * in order, into dst[off..].
+     *
+     * @param dst the array to copy into
+     * @param off the offset in dst of the first byte
+     * @param len the maximum number of bytes to remove
+     * @return the number of bytes actually removed
+     * @throws IndexOutOfBoundsException if off and len don't fit dst
+     */
+    public int drain(byte[] dst, int off, int len) {
+        if (off < 0 || len < 0 || off + len > dst.length || off + len < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        int count = Math.min(len, this.size);
+        int first = Math.min(count, this.arr.length - this.front);
+        System.arraycopy(this.arr, this.front, dst, off, first);
+        System.arraycopy(this.arr, 0, dst, off + first, count - first);
+        this.front = (this.front + count) & this.mask;
+        this.size -= count;
+        return count;
+    }
+
+    /**
+     * Copies up to len bytes, starting with the ith byte of this worklist,
+     * into dst[off..] without removing them.
+     *
+     * @param i   the index of the first byte to copy
+     * @param dst the array to copy into
+     * @param off the offset in dst of the first byte
+     * @param len the maximum number of bytes to copy
+     * @return the number of bytes actually copied
+     * @throws IndexOutOfBoundsException if i < 0, or off and len don't fit dst
+     */
+    public int peekBytes(int i, byte[] dst, int off, int len) {
+        if (i < 0 || off < 0 || len < 0 || off + len > dst.length || off + len < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        int count = Math.max(0, Math.min(len, this.size - i));
+        int start = (this.front + i) & this.mask;
+        int first = Math.min(count, this.arr.length - start);
+        System.arraycopy(this.arr, start, dst, off, first);
+        System.arraycopy(this.arr, 0, dst, off + first, count - first);
+        return count;
+    }
+
+    @Override
+    public Byte update(int i, Byte value) {
+        if (this.size <= 0) {
+            throw new NoSuchElementException();
+        } else if (i < 0 || i >= this.size) {
+            throw new IndexOutOfBoundsException();
+        }
+        this.arr[(this.front + i) & this.mask] = value;
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public void clear() {
+        this.front = 0;
+        this.size = 0;
+    }
+
+    @Override
+    public int compareTo(FixedSizeFIFOWorkList<Byte> other) {
+        int len = Math.min(this.size(), other.size());
+        for (int i = 0; i < len; i++) {
+            int cmp = Byte.compare(this.peekByte(i), other.peek(i));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return this.size() - other.size();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        } else if (!(obj instanceof FixedSizeFIFOWorkList<?>)) {
+            return false;
+        } else {
+            FixedSizeFIFOWorkList<?> other = (FixedSizeFIFOWorkList<?>) obj;
+            if (this.size() != other.size()) {
+                return false;
+            }
+            for (int i = 0; i < this.size(); i++) {
+                if (!Byte.valueOf(this.peekByte(i)).equals(other.peek(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < this.size; i++) {
+            result = 31 * result + this.arr[(this.front + i) & this.mask];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,235 @@
+package datastructures.worklists;
+
+import cse332.interfaces.worklists.FIFOWorkList;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded FIFOWorkList that any number of threads can add to and take
+ * from at the same time without a lock, after Dmitry Vyukov's bounded
+ * MPMC queue.  Unlike ConcurrentFIFOWorkList it allocates nothing per
+ * element, and a full queue pushes back on whoever adds to it.
+ * <p>
+ * Every slot of the backing array has a sequence number that says whose
+ * turn it is.  Slot i is free for the add with ticket t when its sequence
+ * is t, and holds that element for the next with ticket t when it is t + 1.
+ * Tickets are handed out by compareAndSet on the tail and head counters,
+ * which sit on cache lines of their own, so adding threads and taking
+ * threads don't invalidate each other's line on every operation.
+ * <p>
+ * An add or next that got its ticket but was descheduled before it was
+ * done holds up the thread that comes to its slot next, one lap later or
+ * right after it; that thread spins until it is done.
+ * <p>
+ * As in ConcurrentFIFOWorkList, hasWork() followed by next() races with
+ * other threads; offer() and poll() are the single step versions of add()
+ * and next() that report a full or empty queue instead of throwing.  size()
+ * is a snapshot while other threads are busy.  Work may not be null.
+ *
+ * See cse332/interfaces/worklists/FIFOWorkList.java
+ * for method specifications.
+ *
+ * @see ConcurrentFIFOWorkList
+ */
+public class ConcurrentArrayFIFOQueue<E> extends FIFOWorkList<E> {
+    private final int capacity;
+    private final int mask;
+    private final Object[] items;
+    private final AtomicLongArray sequences;
+    private final Sequence head = new Sequence();
+    private final Sequence tail = new Sequence();
+
+    public ConcurrentArrayFIFOQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity should be positive");
+        }
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity should be at most 2^30");
+        }
+
+        // Round up to a power of two so tickets wrap with a mask
+        int length = 1;
+        while (length < capacity) {
+            length <<= 1;
+        }
+        this.capacity = capacity;
+        this.mask = length - 1;
+        this.items = new Object[length];
+        this.sequences = new AtomicLongArray(length);
+        for (int i = 0; i < length; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Returns the most elements this worklist can hold.
+     *
+     * @return the capacity of this worklist
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns true iff this worklist can't take more work right now.
+     *
+     * @return true iff size() is capacity()
+     */
+    public boolean isFull() {
+        return this.size() == this.capacity;
+    }
+
+    /**
+     * @throws IllegalStateException if this worklist is full
+     * @throws NullPointerException  if work is null
+     */
+    @Override
+    public void add(E work) {
+        if (!this.offer(work)) {
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Adds work to the end of this worklist if there is room.
+     *
+     * @param work the work to add
+     * @return true if work was added, false if this worklist was full
+     * @throws NullPointerException if work is null
+     */
+    public boolean offer(E work) {
+        if (work == null) {
+            throw new NullPointerException();
+        }
+        long ticket = this.tail.get();
+        for (;;) {
+            int i = (int) ticket & this.mask;
+            long diff = this.sequences.get(i) - ticket;
+            if (diff == 0) {
+                // With a capacity below the array length, the slot can be
+                // free while the queue is already full
+                if (this.mask >= this.capacity && ticket - this.head.get() >= this.capacity) {
+                    return false;
+                }
+                if (this.tail.compareAndSet(ticket, ticket + 1)) {
+                    this.items[i] = work;
+                    this.sequences.set(i, ticket + 1);
+                    return true;
+                }
+                ticket = this.tail.get();
+            } else if (diff < 0) {
+                // The element a lap ago is still there.  Unless the queue is
+                // really full, a next is in the middle of taking it.
+                if (ticket - this.head.get() >= this.capacity) {
+                    return false;
+                }
+                Thread.onSpinWait();
+                ticket = this.tail.get();
+            } else {
+                // Another thread took this ticket
+                ticket = this.tail.get();
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        for (;;) {
+            long ticket = this.head.get();
+            int i = (int) ticket & this.mask;
+            long diff = this.sequences.get(i) - (ticket + 1);
+            if (diff < 0) {
+                if (ticket >= this.tail.get()) {
+                    throw new NoSuchElementException();
+                }
+                // An add has the ticket but hasn't stored its element yet
+                Thread.onSpinWait();
+            } else if (diff == 0) {
+                E item = (E) this.items[i];
+                // The slot is only cleared after head moves past it
+                if (item != null && this.head.get() == ticket) {
+                    return item;
+                }
+            }
+        }
+    }
+
+    @Override
+    public E next() {
+        E item = this.poll();
+        if (item == null) {
+            throw new NoSuchElementException();
+        }
+        return item;
+    }
+
+    /**
+     * Removes and returns the next element of this worklist, or returns null
+     * if it is empty.
+     *
+     * @return the next element, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long ticket = this.head.get();
+        for (;;) {
+            int i = (int) ticket & this.mask;
+            long diff = this.sequences.get(i) - (ticket + 1);
+            if (diff == 0) {
+                if (this.head.compareAndSet(ticket, ticket + 1)) {
+                    E item = (E) this.items[i];
+                    this.items[i] = null;
+                    // Free the slot for the add one lap later
+                    this.sequences.set(i, ticket + this.mask + 1);
+                    return item;
+                }
+                ticket = this.head.get();
+            } else if (diff < 0) {
+                // Nothing was added with this ticket yet, unless an add has
+                // the ticket but hasn't stored its element yet
+                if (ticket >= this.tail.get()) {
+                    return null;
+                }
+                Thread.onSpinWait();
+                ticket = this.head.get();
+            } else {
+                ticket = this.head.get();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        // Read head first, so a consistent pair has tail >= head
+        for (;;) {
+            long first = this.head.get();
+            long last = this.tail.get();
+            if (first == this.head.get()) {
+                return (int) Math.max(0, Math.min(last - first, this.capacity));
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        while (this.poll() != null) {
+            // Take everything that was added before the call
+        }
+    }
+
+    /**
+     * A counter that fills its cache line on its own.  The padding fields
+     * come after value, and the object header before it, so no other hot
+     * field shares its 64 bytes.  It is never serialized; AtomicLong just
+     * happens to be Serializable.
+     */
+    @SuppressWarnings("unused")
+    private static class Sequence extends AtomicLong {
+        private static final long serialVersionUID = 1L;
+
+        private long p1, p2, p3, p4, p5, p6, p7;
+    }
+}
@@ -0,0 +1,169 @@
+package datastructures.worklists;
+
+import cse332.interfaces.worklists.FIFOWorkList;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A FIFOWorkList that any number of threads can add to and take from at the
+ * same time without a lock: the linked queue of Michael and Scott ("Simple,
+ * Fast, and Practical Non-Blocking and Blocking Concurrent Queue
+ * Algorithms", 1996).  It is unbounded, like ListFIFOQueue.
+ * <p>
+ * The list always starts with a dummy node whose item was already taken.
+ * add links a new node after the last one with a compareAndSet of its next
+ * pointer and then swings tail to it; next swings head to the first real
+ * node, which becomes the new dummy.  A thread that finds tail lagging
+ * behind swings it forward itself, so no thread ever waits for another.
+ * <p>
+ * Between threads, hasWork() followed by next() is a race: another thread
+ * may take the work in between.  poll() takes the next element if there is
+ * one in a single step.  size() counts the nodes, so it takes time linear
+ * in the size and is only a snapshot while other threads are busy;
+ * hasWork() does not count.  Work may not be null.
+ *
+ * See cse332/interfaces/worklists/FIFOWorkList.java
+ * for method specifications.
+ *
+ * @see ConcurrentArrayFIFOQueue
+ */
+@SuppressWarnings("rawtypes")
+public class ConcurrentFIFOWorkList<E> extends FIFOWorkList<E> {
+    private static final AtomicReferenceFieldUpdater<ConcurrentFIFOWorkList, Node> HEAD =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentFIFOWorkList.class, Node.class, "head");
+    private static final AtomicReferenceFieldUpdater<ConcurrentFIFOWorkList, Node> TAIL =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentFIFOWorkList.class, Node.class, "tail");
+    private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+
+    private volatile Node<E> head;
+    private volatile Node<E> tail;
+
+    public ConcurrentFIFOWorkList() {
+        Node<E> dummy = new Node<>(null);
+        this.head = dummy;
+        this.tail = dummy;
+    }
+
+    /**
+     * @throws NullPointerException if work is null
+     */
+    @Override
+    public void add(E work) {
+        if (work == null) {
+            throw new NullPointerException();
+        }
+        Node<E> node = new Node<>(work);
+        for (;;) {
+            Node<E> last = this.tail;
+            Node<E> next = last.next;
+            if (last != this.tail) {
+                continue;
+            }
+            if (next != null) {
+                // Another add linked its node but hasn't moved tail yet
+                TAIL.compareAndSet(this, last, next);
+            } else if (NEXT.compareAndSet(last, null, node)) {
+                TAIL.compareAndSet(this, last, node);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public E peek() {
+        for (;;) {
+            Node<E> first = this.head;
+            Node<E> next = first.next;
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            E item = next.item;
+            // A null item was taken after we read head; look again
+            if (item != null) {
+                return item;
+            }
+        }
+    }
+
+    @Override
+    public E next() {
+        E item = this.poll();
+        if (item == null) {
+            throw new NoSuchElementException();
+        }
+        return item;
+    }
+
+    /**
+     * Removes and returns the next element of this worklist, or returns null
+     * if it is empty.  Unlike hasWork() and next(), this can't fail when
+     * another thread takes the last element in between.
+     *
+     * @return the next element, or null if there is none
+     */
+    public E poll() {
+        for (;;) {
+            Node<E> first = this.head;
+            Node<E> last = this.tail;
+            Node<E> next = first.next;
+            if (first != this.head) {
+                continue;
+            }
+            if (next == null) {
+                return null;
+            }
+            if (first == last) {
+                // Don't let head pass a lagging tail
+                TAIL.compareAndSet(this, last, next);
+            } else if (HEAD.compareAndSet(this, first, next)) {
+                // next is the dummy now; drop its item for the gc
+                E item = next.item;
+                next.item = null;
+                first.next = first;
+                return item;
+            }
+        }
+    }
+
+    @Override
+    public boolean hasWork() {
+        return this.head.next != null;
+    }
+
+    @Override
+    public int size() {
+        int count = 0;
+        Node<E> node = this.head;
+        for (Node<E> next = node.next; next != null; next = node.next) {
+            // A node that was taken points to itself; start over from head
+            if (next == node) {
+                count = 0;
+                node = this.head;
+                continue;
+            }
+            if (next.item != null && ++count == Integer.MAX_VALUE) {
+                break;
+            }
+            node = next;
+        }
+        return count;
+    }
+
+    @Override
+    public void clear() {
+        while (this.poll() != null) {
+            // Take everything that was added before the call
+        }
+    }
+
+    private static class Node<E> {
+        private volatile E item;
+        private volatile Node<E> next;
+
+        public Node(E item) {
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package datastructures.worklists;
+
+import cse332.interfaces.worklists.PriorityWorkList;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * A PriorityWorkList in an array heap where every node has d children.
+ * next() returns the smallest element, by the comparator if there is one
+ * and by compareTo otherwise.
+ * <p>
+ * A wider heap is shallower: an add sifts up through log_d(n) parents, and
+ * a next looks at d children on each of log_d(n) levels on its way down.
+ * Since the children of a node are next to each other in the array, a
+ * level costs about one cache miss whatever d is, which makes d = 4 (four
+ * references, well within a cache line) faster than a binary heap for
+ * large heaps.
+ * <p>
+ * The node at index k has its children at d k + 1 .. d k + d.  The
+ * constructor that takes an array builds the heap from it bottom up in
+ * linear time, which is faster than adding the elements one at a time.
+ * Elements that compare equal come out in no particular order.
+ *
+ * See cse332/interfaces/worklists/PriorityWorkList.java
+ * for method specifications.
+ *
+ * @see IndexedDAryHeap
+ * @see IntDAryHeap
+ */
+public class DAryHeap<E> extends PriorityWorkList<E> {
+    /**
+     * The number of children per node unless the constructor says otherwise.
+     */
+    public static final int DEFAULT_ARITY = 4;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int d;
+    private final Comparator<? super E> comparator;
+    private E[] heap;
+    private int size;
+
+    public DAryHeap() {
+        this(DEFAULT_ARITY, null);
+    }
+
+    public DAryHeap(Comparator<? super E> comparator) {
+        this(DEFAULT_ARITY, comparator);
+    }
+
+    /**
+     * Creates an empty heap.
+     *
+     * @param d          the number of children per node, at least 2
+     * @param comparator the order of the elements, or null for their
+     *                   compareTo
+     * @throws IllegalArgumentException if d is less than 2
+     */
+    @SuppressWarnings("unchecked")
+    public DAryHeap(int d, Comparator<? super E> comparator) {
+        if (d < 2) {
+            throw new IllegalArgumentException("d should be at least 2");
+        }
+        this.d = d;
+        this.comparator = comparator;
+        this.heap = (E[]) new Object[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Creates a heap of the elements in linear time.  The array is copied.
+     *
+     * @param elements   the initial elements
+     * @param d          the number of children per node, at least 2
+     * @param comparator the order of the elements, or null for their
+     *                   compareTo
+     * @throws IllegalArgumentException if d is less than 2
+     */
+    public DAryHeap(E[] elements, int d, Comparator<? super E> comparator) {
+        this(d, comparator);
+        this.heap = Arrays.copyOf(elements, Math.max(elements.length, INITIAL_CAPACITY));
+        this.size = elements.length;
+        for (int k = (this.size - 2) / d; k >= 0 && this.size > 1; k--) {
+            this.siftDown(k, this.heap[k]);
+        }
+    }
+
+    @Override
+    public void add(E work) {
+        if (this.size == this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap, this.heap.length * 2);
+        }
+        this.siftUp(this.size++, work);
+    }
+
+    @Override
+    public E peek() {
+        if (this.size <= 0) {
+            throw new NoSuchElementException();
+        }
+        return this.heap[0];
+    }
+
+    @Override
+    public E next() {
+        if (this.size <= 0) {
+            throw new NoSuchElementException();
+        }
+        E result = this.heap[0];
+        int n = --this.size;
+        E last = this.heap[n];
+        this.heap[n] = null;
+        if (n > 0) {
+            this.siftDown(0, last);
+        }
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void clear() {
+        this.heap = (E[]) new Object[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Moves x up from index k until its parent isn't larger.
+     */
+    private void siftUp(int k, E x) {
+        while (k > 0) {
+            int parent = (k - 1) / this.d;
+            E e = this.heap[parent];
+            if (this.compare(x, e) >= 0) {
+                break;
+            }
+            this.heap[k] = e;
+            k = parent;
+        }
+        this.heap[k] = x;
+    }
+
+    /**
+     * Moves x down from index k until none of its children is smaller.
+     */
+    private void siftDown(int k, E x) {
+        int n = this.size;
+        for (;;) {
+            int child = this.d * k + 1;
+            if (child >= n) {
+                break;
+            }
+            int end = Math.min(child + this.d, n);
+            for (int i = child + 1; i < end; i++) {
+                if (this.compare(this.heap[i], this.heap[child]) < 0) {
+                    child = i;
+                }
+            }
+            if (this.compare(x, this.heap[child]) <= 0) {
+                break;
+            }
+            this.heap[k] = this.heap[child];
+            k = child;
+        }
+        this.heap[k] = x;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(E a, E b) {
+        if (this.comparator != null) {
+            return this.comparator.compare(a, b);
+        }
+        return ((Comparable<? super E>) a).compareTo(b);
+    }
+}
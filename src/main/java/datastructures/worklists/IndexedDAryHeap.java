@@ -0,0 +1,238 @@
+package datastructures.worklists;
+
+import cse332.interfaces.worklists.PriorityWorkList;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * A DAryHeap that hands out a Handle for every element it holds, through
+ * which the element can later be made smaller or removed in O(log n) time.
+ * This is the priority queue that Dijkstra's and Prim's algorithms want.
+ * <p>
+ * Every handle knows its index in the heap and is updated whenever it
+ * moves, so the element never has to be searched for.
+ *
+ * See cse332/interfaces/worklists/PriorityWorkList.java
+ * for method specifications.
+ *
+ * @see DAryHeap
+ */
+public class IndexedDAryHeap<E> extends PriorityWorkList<E> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int d;
+    private final Comparator<? super E> comparator;
+    private Handle<E>[] heap;
+    private int size;
+
+    /**
+     * An element in an IndexedDAryHeap.
+     */
+    public static final class Handle<E> {
+        private E element;
+        private int index;
+
+        private Handle(E element) {
+            this.element = element;
+            this.index = -1;
+        }
+
+        /**
+         * Returns the element.
+         */
+        public E get() {
+            return this.element;
+        }
+
+        /**
+         * Returns true iff the element is still in its heap.
+         */
+        public boolean isQueued() {
+            return this.index >= 0;
+        }
+    }
+
+    public IndexedDAryHeap() {
+        this(DAryHeap.DEFAULT_ARITY, null);
+    }
+
+    /**
+     * Creates an empty heap.
+     *
+     * @param d          the number of children per node, at least 2
+     * @param comparator the order of the elements, or null for their
+     *                   compareTo
+     * @throws IllegalArgumentException if d is less than 2
+     */
+    public IndexedDAryHeap(int d, Comparator<? super E> comparator) {
+        if (d < 2) {
+            throw new IllegalArgumentException("d should be at least 2");
+        }
+        this.d = d;
+        this.comparator = comparator;
+        this.heap = newHeap(INITIAL_CAPACITY);
+        this.size = 0;
+    }
+
+    @Override
+    public void add(E work) {
+        this.insert(work);
+    }
+
+    /**
+     * Adds work to this heap.
+     *
+     * @param work the work to add
+     * @return the handle with which work can be changed or removed
+     */
+    public Handle<E> insert(E work) {
+        if (this.size == this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap, this.heap.length * 2);
+        }
+        Handle<E> handle = new Handle<>(work);
+        this.siftUp(this.size++, handle);
+        return handle;
+    }
+
+    /**
+     * Replaces the element of handle with one that is not larger, and moves
+     * it up to its new place.
+     *
+     * @param handle  the handle of the element, from insert
+     * @param smaller the new element
+     * @throws NoSuchElementException   if handle isn't in this heap
+     * @throws IllegalArgumentException if smaller is larger than the
+     *                                  element it replaces
+     */
+    public void decreaseKey(Handle<E> handle, E smaller) {
+        this.checkQueued(handle);
+        if (this.compare(smaller, handle.element) > 0) {
+            throw new IllegalArgumentException("The new element is larger");
+        }
+        handle.element = smaller;
+        this.siftUp(handle.index, handle);
+    }
+
+    /**
+     * Removes the element of handle from this heap.
+     *
+     * @param handle the handle of the element, from insert
+     * @return false if it was already removed
+     */
+    public boolean remove(Handle<E> handle) {
+        int k = handle.index;
+        if (k < 0 || k >= this.size || this.heap[k] != handle) {
+            return false;
+        }
+        this.removeAt(k);
+        return true;
+    }
+
+    @Override
+    public E peek() {
+        if (this.size <= 0) {
+            throw new NoSuchElementException();
+        }
+        return this.heap[0].element;
+    }
+
+    @Override
+    public E next() {
+        if (this.size <= 0) {
+            throw new NoSuchElementException();
+        }
+        return this.removeAt(0).element;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.heap[i].index = -1;
+        }
+        this.heap = newHeap(INITIAL_CAPACITY);
+        this.size = 0;
+    }
+
+    private void checkQueued(Handle<E> handle) {
+        int k = handle.index;
+        if (k < 0 || k >= this.size || this.heap[k] != handle) {
+            throw new NoSuchElementException();
+        }
+    }
+
+    private Handle<E> removeAt(int k) {
+        Handle<E> removed = this.heap[k];
+        int n = --this.size;
+        Handle<E> last = this.heap[n];
+        this.heap[n] = null;
+        if (k < n) {
+            // The last element may belong above or below k
+            this.siftDown(k, last);
+            if (this.heap[k] == last) {
+                this.siftUp(k, last);
+            }
+        }
+        removed.index = -1;
+        return removed;
+    }
+
+    private void siftUp(int k, Handle<E> x) {
+        while (k > 0) {
+            int parent = (k - 1) / this.d;
+            Handle<E> e = this.heap[parent];
+            if (this.compare(x.element, e.element) >= 0) {
+                break;
+            }
+            this.place(k, e);
+            k = parent;
+        }
+        this.place(k, x);
+    }
+
+    private void siftDown(int k, Handle<E> x) {
+        int n = this.size;
+        for (;;) {
+            int child = this.d * k + 1;
+            if (child >= n) {
+                break;
+            }
+            int end = Math.min(child + this.d, n);
+            for (int i = child + 1; i < end; i++) {
+                if (this.compare(this.heap[i].element, this.heap[child].element) < 0) {
+                    child = i;
+                }
+            }
+            if (this.compare(x.element, this.heap[child].element) <= 0) {
+                break;
+            }
+            this.place(k, this.heap[child]);
+            k = child;
+        }
+        this.place(k, x);
+    }
+
+    private void place(int k, Handle<E> handle) {
+        this.heap[k] = handle;
+        handle.index = k;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> Handle<E>[] newHeap(int length) {
+        return (Handle<E>[]) new Handle<?>[length];
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(E a, E b) {
+        if (this.comparator != null) {
+            return this.comparator.compare(a, b);
+        }
+        return ((Comparable<? super E>) a).compareTo(b);
+    }
+}
@@ -0,0 +1,188 @@
+package datastructures.worklists;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A DAryHeap of int values with int priorities, for when boxing every
+ * element would cost more than the heap itself.  next returns the value
+ * with the smallest priority.  A value and its priority are packed into one
+ * long, so moving an element is a single array store and the heap makes no
+ * garbage at all once it has grown to its size.
+ * <p>
+ * It makes the same choices as a DAryHeap of the same d whose elements
+ * compare by priority, so the two give the same order, even among equal
+ * priorities.
+ *
+ * @see DAryHeap
+ */
+public class IntDAryHeap {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int d;
+    private long[] heap;
+    private int size;
+
+    public IntDAryHeap() {
+        this(DAryHeap.DEFAULT_ARITY, INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty heap.
+     *
+     * @param d        the number of children per node, at least 2
+     * @param capacity the number of elements to make room for
+     * @throws IllegalArgumentException if d is less than 2 or capacity is
+     *                                  negative
+     */
+    public IntDAryHeap(int d, int capacity) {
+        if (d < 2) {
+            throw new IllegalArgumentException("d should be at least 2");
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity should be non-negative");
+        }
+        this.d = d;
+        this.heap = new long[Math.max(capacity, 1)];
+        this.size = 0;
+    }
+
+    /**
+     * Adds value with the given priority.
+     */
+    public void add(int value, int priority) {
+        if (this.size == this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap, this.heap.length * 2);
+        }
+        this.siftUp(this.size++, pack(value, priority));
+    }
+
+    /**
+     * Replaces the contents of this heap with values[0..n), where value
+     * values[i] has priority priorities[i], in linear time.
+     *
+     * @throws IndexOutOfBoundsException if n is negative or longer than
+     *                                   either array
+     */
+    public void heapify(int[] values, int[] priorities, int n) {
+        if (n < 0 || n > values.length || n > priorities.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (n > this.heap.length) {
+            this.heap = new long[n];
+        }
+        for (int i = 0; i < n; i++) {
+            this.heap[i] = pack(values[i], priorities[i]);
+        }
+        this.size = n;
+        for (int k = (n - 2) / this.d; k >= 0 && n > 1; k--) {
+            this.siftDown(k, this.heap[k]);
+        }
+    }
+
+    /**
+     * Returns the value with the smallest priority.
+     *
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int peekValue() {
+        if (this.size <= 0) {
+            throw new NoSuchElementException();
+        }
+        return (int) this.heap[0];
+    }
+
+    /**
+     * Returns the smallest priority.
+     *
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int peekPriority() {
+        if (this.size <= 0) {
+            throw new NoSuchElementException();
+        }
+        return (int) (this.heap[0] >> 32);
+    }
+
+    /**
+     * Removes the value with the smallest priority and returns it.
+     *
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int nextValue() {
+        if (this.size <= 0) {
+            throw new NoSuchElementException();
+        }
+        long result = this.heap[0];
+        int n = --this.size;
+        if (n > 0) {
+            this.siftDown(0, this.heap[n]);
+        }
+        return (int) result;
+    }
+
+    /**
+     * Returns the number of values in this heap.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns true iff this heap has any values.
+     */
+    public boolean hasWork() {
+        return this.size > 0;
+    }
+
+    /**
+     * Removes all values.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    private void siftUp(int k, long x) {
+        int key = (int) (x >> 32);
+        while (k > 0) {
+            int parent = (k - 1) / this.d;
+            long e = this.heap[parent];
+            if (key >= (int) (e >> 32)) {
+                break;
+            }
+            this.heap[k] = e;
+            k = parent;
+        }
+        this.heap[k] = x;
+    }
+
+    private void siftDown(int k, long x) {
+        int key = (int) (x >> 32);
+        int n = this.size;
+        for (;;) {
+            int child = this.d * k + 1;
+            if (child >= n) {
+                break;
+            }
+            int end = Math.min(child + this.d, n);
+            int min = (int) (this.heap[child] >> 32);
+            for (int i = child + 1; i < end; i++) {
+                int p = (int) (this.heap[i] >> 32);
+                if (p < min) {
+                    child = i;
+                    min = p;
+                }
+            }
+            if (key <= min) {
+                break;
+            }
+            this.heap[k] = this.heap[child];
+            k = child;
+        }
+        this.heap[k] = x;
+    }
+
+    private static long pack(int value, int priority) {
+        return (long) priority << 32 | (value & 0xffffffffL);
+    }
+}
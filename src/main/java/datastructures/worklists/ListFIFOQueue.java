@@ -1,176 +1,156 @@
 package datastructures.worklists;
 
-import cse332.exceptions.NotYetImplementedException;
 import cse332.interfaces.worklists.FIFOWorkList;
 
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 
 /**
+ * An unbounded FIFOWorkList that stores its elements in a linked list of
+ * fixed-size array chunks instead of a node per element.  add fills the
+ * last chunk and links a new one when it is full; next empties the first
+ * chunk and unlinks it when it is empty.  A queue of n elements takes about
+ * n references and n / CHUNK_SIZE small objects, and walking it reads
+ * consecutive array slots instead of chasing a pointer per element.
+ * <p>
+ * Chunks that were emptied are kept on a small free list and reused by
+ * later adds, so a queue that is filled and drained over and over, like
+ * the compressor's match buffers, stops allocating once it reaches its
+ * usual size.  No chunk is allocated until the first add.
+ *
  * See cse332/interfaces/worklists/FIFOWorkList.java
  * for method specifications.
  */
 public class ListFIFOQueue<E> extends FIFOWorkList<E> {
+    /**
+     * The number of elements per chunk.
+     */
+    private static final int CHUNK_SIZE = 64;
+
+    /**
+     * The most emptied chunks kept for reuse.
+     */
+    private static final int MAX_FREE_CHUNKS = 4;
+
     /*
-    We declare node variables head and tail for the linked list,
-    and a size variable to keep track of the size.
+    The elements are head.items[headIndex..] up to tail.items[..tailIndex).
+    Slots that don't hold an element are null, so nothing that was taken
+    is kept alive.
      */
-    private Node head;
-    private Node tail;
+    private Chunk head;
+    private Chunk tail;
+    private int headIndex;
+    private int tailIndex;
     private int size;
 
-    public ListFIFOQueue() {
-        //Default constructor with no value in the node.
-        head = new Node();
-        tail = new Node();
-        size = 0;
+    /*
+    Emptied chunks, linked through their next pointers.
+     */
+    private Chunk free;
+    private int freeCount;
 
-        head.setNext(tail);
-        tail.setPrev(head);
+    public ListFIFOQueue() {
+        this.head = null;
+        this.tail = null;
+        this.size = 0;
     }
 
     @Override
     public void add(E work) {
-        /*
-        The add method adds value to the end of the linked list.
-        We first store work into a Node variable temp. Then, we
-        check if tail's prev is head. If so, we append temp into
-        the back of the list. If not, we append temp after head.
-         */
-        Node temp = new Node(work);
-        if(tail.getPrev() != head) {
-            Node temp2 = tail.getPrev();
-            temp2.setNext(temp);
-            temp.setNext(tail);
-            temp.setPrev(temp2);
-            tail.setPrev(temp);
-        } else {
-            head.setNext(temp);
-            temp.setNext(tail);
-            temp.setPrev(head);
-            tail.setPrev(temp);
+        if (this.tail == null) {
+            this.head = this.tail = this.newChunk();
+            this.headIndex = this.tailIndex = 0;
+        } else if (this.tailIndex == CHUNK_SIZE) {
+            Chunk chunk = this.newChunk();
+            this.tail.next = chunk;
+            this.tail = chunk;
+            this.tailIndex = 0;
         }
-        size++;
+        this.tail.items[this.tailIndex++] = work;
+        this.size++;
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public E peek() {
-        /*
-        The peek method checks the first value of the linked list.
-        We check if head is null, and if head's next is tail. If so,
-        the linked list is empty, where we throw exception. Otherwise,
-        we return head's next node, as it is the first value of the list.
-         */
-        if(head != null && head.getNext() != tail) {
-            return head.getNext().getData();
-        } else {
+        if (this.size <= 0) {
             throw new NoSuchElementException();
         }
+        return (E) this.head.items[this.headIndex];
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public E next() {
-        /*
-        The next method removes the first value of the linked list.
-        We first declare a temp variable to return the value we removed
-        from the linked list. Then, we check if head's next is tail. If so,
-        the linked list is empty, where we throw exception. Otherwise, we
-        declare a temp2 variable as head's next, and we set head's next to
-        temp2's next, and prev of temp2's next to head.
-         */
-        E temp;
-        if(head.getNext() != tail) {
-            Node temp2 = head.getNext();
-            temp = temp2.getData();
-
-            head.setNext(temp2.getNext());
-            temp2.getNext().setPrev(head);
-        } else {
+        if (this.size <= 0) {
             throw new NoSuchElementException();
         }
-        size--;
-        return temp;
+        Chunk chunk = this.head;
+        E work = (E) chunk.items[this.headIndex];
+        chunk.items[this.headIndex++] = null;
+        this.size--;
+
+        if (this.size == 0) {
+            // Start over at the front of the one chunk left
+            this.headIndex = this.tailIndex = 0;
+        } else if (this.headIndex == CHUNK_SIZE) {
+            this.head = chunk.next;
+            this.headIndex = 0;
+            this.freeChunk(chunk);
+        }
+        return work;
     }
 
     @Override
     public int size() {
-        //The size method checks the size of the linked list.
         return this.size;
     }
 
     @Override
     public void clear() {
-        /*
-        The clear method clears the linked list.
-        We set head node to null to clear the linked list.
-        Then, we set size to 0.
-         */
-        head = null;
-        size = 0;
-    }
-
-    public boolean hasWork() {
-        /*
-        We check if head is null. If head isn't null,
-        then it has work.
-         */
-        return head != null;
-    }
-
-    private class Node {
-        /*
-        This is the subclass Node we will use for the queue implementation.
-        We declare a generic variable data to keep track of the data,
-        and we declare node variables next and prev to keep track of the
-        next and prev nodes of each individual node.
-         */
-        private E data;
-        private Node next;
-        private Node prev;
-
-        //Default constructor, we set everything to null.
-        public Node() {
-            this.data = null;
-            this.next = null;
-            this.prev = null;
-        }
-
-        //Constructor with given data.
-        public Node(E dataValue) {
-            this.data = dataValue;
-            this.next = null;
-            this.prev = null;
-        }
-
-        //getData returns the data of the node.
-        public E getData() {
-            return this.data;
-        }
-
-        //getNext returns the next node.
-        public Node getNext() {
-            return this.next;
-        }
-
-        //getPrev returns the prev node.
-        public Node getPrev() {
-            return this.prev;
+        Chunk chunk = this.head;
+        while (chunk != null) {
+            Chunk next = chunk.next;
+            Arrays.fill(chunk.items, null);
+            this.freeChunk(chunk);
+            chunk = next;
         }
+        this.head = null;
+        this.tail = null;
+        this.headIndex = 0;
+        this.tailIndex = 0;
+        this.size = 0;
+    }
 
-        //setData changes the data of the current node.
-        public void setData(E dataValue) {
-            this.data = dataValue;
+    /**
+     * Returns an empty chunk, from the free list if there is one.
+     */
+    private Chunk newChunk() {
+        Chunk chunk = this.free;
+        if (chunk == null) {
+            return new Chunk();
         }
+        this.free = chunk.next;
+        this.freeCount--;
+        chunk.next = null;
+        return chunk;
+    }
 
-        //setNext changes the next node.
-        public void setNext(Node nextN) {
-            this.next = nextN;
+    /**
+     * Puts an empty chunk on the free list, unless the list is full.
+     */
+    private void freeChunk(Chunk chunk) {
+        if (this.freeCount < MAX_FREE_CHUNKS) {
+            chunk.next = this.free;
+            this.free = chunk;
+            this.freeCount++;
+        } else {
+            chunk.next = null;
         }
+    }
 
-        //setPrev changes the prev node.
-        public void setPrev(Node prevN) {
-            this.prev = prevN;
-        }
+    private static class Chunk {
+        private final Object[] items = new Object[CHUNK_SIZE];
+        private Chunk next;
     }
 }
-
-
@@ -1,9 +1,11 @@
 package main;
 
-import cse332.jazzlib.ZipEntry;
-import cse332.jazzlib.ZipOutputStream;
+import cse332.jazzlib.ChannelZipWriter;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 /*
  * The Zip program requires a working SuffixTrie implementation. If you haven't
@@ -23,6 +25,12 @@ public class Zip {
      **/
     public static final boolean DEBUG_OUTPUT = true;
 
+    /**
+     * Builds Huffman trees with the HashTrieMap-based tree instead of the
+     * array-based one. Both produce the same codes; the trie is slower.
+     **/
+    public static final boolean TRIE_HUFFMAN_TREES = false;
+
 
     /**
      * Constants that define the input and output
@@ -30,38 +38,22 @@ public class Zip {
     public static final String ZIP_NAME = "test.zip";
     public static final String FILE_TO_COMPRESS = "test.txt";
 
-    public static void main(String[] args) throws IOException {
-        FileOutputStream fos = new FileOutputStream(ZIP_NAME);
-        ZipOutputStream zos = new ZipOutputStream(fos);
-        addToZipFile(FILE_TO_COMPRESS, zos);
+    /**
+     * Size of the buffers the file is read into and the zip file is written from
+     **/
+    public static final int CHUNK_SIZE = ChannelZipWriter.DEFAULT_CHUNK_SIZE;
 
-        zos.close();
-        fos.close();
+    public static void main(String[] args) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(ZIP_NAME), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try (ChannelZipWriter zip = new ChannelZipWriter(channel, CHUNK_SIZE)) {
+            addToZipFile(FILE_TO_COMPRESS, zip);
+        }
     }
 
-    public static void addToZipFile(String fileName, ZipOutputStream zos) throws FileNotFoundException, IOException {
+    public static void addToZipFile(String fileName, ChannelZipWriter zip) throws IOException {
         System.out.println("Writing '" + fileName + "' to zip file");
-
-        File file = new File(fileName);
-        FileInputStream fis = new FileInputStream(file);
-        ZipEntry zipEntry = new ZipEntry(fileName);
-        zos.putNextEntry(zipEntry);
-
-        byte[] bytes = new byte[1024];
-        int length;
-        int i = 0;
-        while ((length = fis.read(bytes)) >= 0) {
-            zos.write(bytes, 0, length);
-            System.out.print("Wrote 1024 bytes...");
-            i++;
-            if (i % 100 == 0) {
-                System.out.println();
-            }
-        }
-
-        zos.closeEntry();
-        fis.close();
-
+        zip.add(fileName, new File(fileName));
         System.out.println("Done!");
     }
 
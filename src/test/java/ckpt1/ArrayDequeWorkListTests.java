@@ -0,0 +1,122 @@
+package ckpt1;
+
+import cse332.interfaces.worklists.LIFOWorkList;
+import datastructures.worklists.ArrayDequeWorkList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArrayDequeWorkListTests {
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_addNext_growsPastInitialCapacity_fifoOrder() {
+        ArrayDequeWorkList<Integer> QUEUE = new ArrayDequeWorkList<>(4);
+
+        for (int i = 0; i < 1000; i++) {
+            QUEUE.add(i);
+        }
+        assertEquals(1000, QUEUE.size());
+        assertEquals(1024, QUEUE.capacity());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, QUEUE.peek(i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, QUEUE.next());
+        }
+        assertFalse(QUEUE.hasWork());
+        assertThrows(NoSuchElementException.class, QUEUE::next);
+        assertThrows(NoSuchElementException.class, () -> QUEUE.peek(0));
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_next_drained_shrinksWithHysteresis() {
+        ArrayDequeWorkList<Integer> QUEUE = new ArrayDequeWorkList<>(16);
+
+        for (int i = 0; i < 1024; i++) {
+            QUEUE.add(i);
+        }
+        assertEquals(1024, QUEUE.capacity());
+
+        // Halves only at a quarter full
+        while (QUEUE.size() > 257) {
+            QUEUE.next();
+        }
+        assertEquals(1024, QUEUE.capacity());
+        QUEUE.next();
+        assertEquals(512, QUEUE.capacity());
+
+        // Going back and forth across the boundary doesn't resize again
+        for (int i = 0; i < 100; i++) {
+            QUEUE.add(i);
+            QUEUE.next();
+        }
+        assertEquals(512, QUEUE.capacity());
+
+        while (QUEUE.hasWork()) {
+            QUEUE.next();
+        }
+        assertEquals(16, QUEUE.capacity());
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_bothEnds_randomOperations_matchesArrayDeque() {
+        ArrayDequeWorkList<Integer> QUEUE = new ArrayDequeWorkList<>(1);
+        ArrayDeque<Integer> expected = new ArrayDeque<>();
+        Random random = new Random(332);
+
+        for (int i = 0; i < 100000; i++) {
+            int op = random.nextInt(expected.size() > 500 ? 7 : 5);
+            if (op == 0) {
+                QUEUE.addFirst(i);
+                expected.addFirst(i);
+            } else if (op == 1) {
+                QUEUE.addLast(i);
+                expected.addLast(i);
+            } else if (expected.isEmpty()) {
+                assertThrows(NoSuchElementException.class, QUEUE::nextLast);
+            } else if (op == 2) {
+                int index = random.nextInt(expected.size());
+                assertEquals(expected.toArray()[index], QUEUE.update(index, -i));
+                assertEquals(-i, QUEUE.peek(index));
+                QUEUE.update(index, (Integer) expected.toArray()[index]);
+            } else if (op % 2 == 1) {
+                assertEquals(expected.peekFirst(), QUEUE.peekFirst());
+                assertEquals(expected.pollFirst(), QUEUE.nextFirst());
+            } else {
+                assertEquals(expected.peekLast(), QUEUE.peekLast());
+                assertEquals(expected.pollLast(), QUEUE.nextLast());
+            }
+            assertEquals(expected.size(), QUEUE.size());
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> QUEUE.peek(QUEUE.size()));
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_asLIFOWorkList_sharesElements_lifoOrder() {
+        ArrayDequeWorkList<String> QUEUE = new ArrayDequeWorkList<>();
+        LIFOWorkList<String> STACK = QUEUE.asLIFOWorkList();
+
+        QUEUE.add("a");
+        STACK.add("b");
+        STACK.add("c");
+        assertEquals(3, STACK.size());
+        assertEquals("c", STACK.peek());
+        assertEquals("c", STACK.next());
+        assertEquals("a", QUEUE.next());
+        assertEquals("b", STACK.next());
+        assertFalse(STACK.hasWork());
+
+        STACK.add("d");
+        QUEUE.clear();
+        assertFalse(STACK.hasWork());
+    }
+}
@@ -0,0 +1,66 @@
+package ckpt1;
+
+import datastructures.worklists.CircularByteArrayFIFOQueue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircularByteArrayFIFOQueueTests {
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_capacity_notPowerOfTwo_reportsRequestedCapacity() {
+        CircularByteArrayFIFOQueue QUEUE = new CircularByteArrayFIFOQueue(1000);
+
+        for (int i = 0; i < 1000; i++) {
+            QUEUE.addByte((byte) i);
+        }
+
+        // The backing array is 1024 long, but the queue must still be full at 1000
+        assertEquals(1000, QUEUE.capacity());
+        assertTrue(QUEUE.isFull());
+        assertThrows(IllegalStateException.class, () -> QUEUE.addByte((byte) 0));
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_addAllDrain_wrapsAround_correctOrder() {
+        CircularByteArrayFIFOQueue QUEUE = new CircularByteArrayFIFOQueue(8);
+        byte[] src = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+
+        // Move the front of the queue so the next addAll has to wrap
+        assertEquals(6, QUEUE.addAll(src, 0, 6));
+        assertEquals(0, QUEUE.nextByte());
+        assertEquals(1, QUEUE.nextByte());
+        assertEquals(2, QUEUE.nextByte());
+        assertEquals(3, QUEUE.nextByte());
+
+        // Only 6 of the 10 bytes fit
+        assertEquals(6, QUEUE.addAll(src, 0, 10));
+        assertTrue(QUEUE.isFull());
+
+        byte[] dst = new byte[10];
+        assertEquals(8, QUEUE.drain(dst, 1, 9));
+        assertArrayEquals(new byte[]{0, 4, 5, 0, 1, 2, 3, 4, 5, 0}, dst);
+        assertFalse(QUEUE.hasWork());
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_peekNext_mixedWithBoxedApi_correctStructure() {
+        CircularByteArrayFIFOQueue QUEUE = new CircularByteArrayFIFOQueue(300);
+
+        for (int i = 0; i < 300; i++) {
+            QUEUE.add((byte) i);
+            assertEquals((byte) i, QUEUE.peekByte(i));
+        }
+        for (int i = 0; i < 300; i++) {
+            assertEquals(Byte.valueOf((byte) i), QUEUE.peek());
+            assertEquals((byte) i, QUEUE.nextByte());
+        }
+        assertThrows(NoSuchElementException.class, QUEUE::nextByte);
+    }
+}
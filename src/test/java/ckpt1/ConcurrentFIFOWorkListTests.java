@@ -0,0 +1,182 @@
+package ckpt1;
+
+import cse332.interfaces.worklists.WorkList;
+import datastructures.worklists.ConcurrentArrayFIFOQueue;
+import datastructures.worklists.ConcurrentFIFOWorkList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentFIFOWorkListTests {
+    private static final int PRODUCERS = 4;
+    private static final int CONSUMERS = 4;
+    private static final int PER_PRODUCER = 100000;
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_addPeekNext_singleThread_fifoOrder() {
+        List<WorkList<Integer>> queues = new ArrayList<>();
+        queues.add(new ConcurrentFIFOWorkList<>());
+        queues.add(new ConcurrentArrayFIFOQueue<>(100));
+
+        for (WorkList<Integer> QUEUE : queues) {
+            assertFalse(QUEUE.hasWork());
+            assertThrows(NoSuchElementException.class, QUEUE::peek);
+            assertThrows(NoSuchElementException.class, QUEUE::next);
+            assertThrows(NullPointerException.class, () -> QUEUE.add(null));
+
+            for (int i = 0; i < 100; i++) {
+                QUEUE.add(i);
+                assertEquals(i + 1, QUEUE.size());
+                assertEquals(0, QUEUE.peek());
+            }
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, QUEUE.peek());
+                assertEquals(i, QUEUE.next());
+                assertEquals(99 - i, QUEUE.size());
+            }
+            assertFalse(QUEUE.hasWork());
+
+            QUEUE.add(1);
+            QUEUE.add(2);
+            QUEUE.clear();
+            assertEquals(0, QUEUE.size());
+            assertThrows(NoSuchElementException.class, QUEUE::next);
+        }
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_offerPoll_boundedQueue_respectsCapacity() {
+        // 5 is not a power of two, so the backing array has free slots left
+        ConcurrentArrayFIFOQueue<Integer> QUEUE = new ConcurrentArrayFIFOQueue<>(5);
+
+        for (int lap = 0; lap < 10; lap++) {
+            for (int i = 0; i < 5; i++) {
+                assertTrue(QUEUE.offer(lap * 5 + i));
+            }
+            assertTrue(QUEUE.isFull());
+            assertFalse(QUEUE.offer(-1));
+            assertThrows(IllegalStateException.class, () -> QUEUE.add(-1));
+
+            for (int i = 0; i < 5; i++) {
+                assertEquals(lap * 5 + i, QUEUE.poll());
+            }
+            assertNull(QUEUE.poll());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentArrayFIFOQueue<Integer>(0));
+    }
+
+    @Test()
+    @Timeout(value = 30000, unit = TimeUnit.MILLISECONDS)
+    public void test_stress_linkedQueue_everyElementOnceInOrder() throws InterruptedException {
+        ConcurrentFIFOWorkList<Integer> QUEUE = new ConcurrentFIFOWorkList<>();
+        stress(work -> {
+            QUEUE.add(work);
+            return true;
+        }, QUEUE::poll);
+        assertFalse(QUEUE.hasWork());
+    }
+
+    @Test()
+    @Timeout(value = 30000, unit = TimeUnit.MILLISECONDS)
+    public void test_stress_arrayQueue_everyElementOnceInOrder() throws InterruptedException {
+        // Small enough that producers keep running into a full queue
+        ConcurrentArrayFIFOQueue<Integer> QUEUE = new ConcurrentArrayFIFOQueue<>(100);
+        stress(QUEUE::offer, QUEUE::poll);
+        assertFalse(QUEUE.hasWork());
+    }
+
+    private interface Offer {
+        boolean offer(Integer work);
+    }
+
+    /**
+     * Runs PRODUCERS threads that each add PER_PRODUCER numbers tagged with
+     * their thread, against CONSUMERS threads that take until everything
+     * was taken.  Every number must be taken exactly once, and every
+     * consumer must see the numbers of each producer in increasing order.
+     */
+    private static void stress(Offer offer, Supplier<Integer> poll) throws InterruptedException {
+        int total = PRODUCERS * PER_PRODUCER;
+        AtomicInteger[] seen = new AtomicInteger[total];
+        for (int i = 0; i < total; i++) {
+            seen[i] = new AtomicInteger();
+        }
+        AtomicInteger taken = new AtomicInteger();
+        AtomicInteger outOfOrder = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+
+        for (int p = 0; p < PRODUCERS; p++) {
+            int base = p * PER_PRODUCER;
+            threads.add(new Thread(() -> {
+                await(start);
+                for (int i = 0; i < PER_PRODUCER; i++) {
+                    while (!offer.offer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+        for (int c = 0; c < CONSUMERS; c++) {
+            threads.add(new Thread(() -> {
+                await(start);
+                int[] last = new int[PRODUCERS];
+                Arrays.fill(last, -1);
+                while (taken.get() < total) {
+                    Integer work = poll.get();
+                    if (work == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    seen[work].incrementAndGet();
+                    taken.incrementAndGet();
+                    int producer = work / PER_PRODUCER;
+                    if (work <= last[producer]) {
+                        outOfOrder.incrementAndGet();
+                    }
+                    last[producer] = work;
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((t, e) -> {
+                synchronized (failures) {
+                    failures.add(e);
+                }
+            });
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(new ArrayList<Throwable>(), failures);
+        assertEquals(total, taken.get());
+        assertEquals(0, outOfOrder.get());
+        for (int i = 0; i < total; i++) {
+            assertEquals(1, seen[i].get(), "element " + i);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
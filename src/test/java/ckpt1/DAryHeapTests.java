@@ -0,0 +1,137 @@
+package ckpt1;
+
+import datastructures.worklists.DAryHeap;
+import datastructures.worklists.IndexedDAryHeap;
+import datastructures.worklists.IntDAryHeap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DAryHeapTests {
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_addNext_randomOperations_matchesPriorityQueue() {
+        Random random = new Random(332);
+        for (int d = 2; d <= 8; d++) {
+            DAryHeap<Integer> HEAP = new DAryHeap<>(d, null);
+            PriorityQueue<Integer> expected = new PriorityQueue<>();
+
+            for (int i = 0; i < 20000; i++) {
+                if (random.nextInt(3) > 0 || expected.isEmpty()) {
+                    int work = random.nextInt(1000);
+                    HEAP.add(work);
+                    expected.add(work);
+                } else {
+                    assertEquals(expected.peek(), HEAP.peek());
+                    assertEquals(expected.poll(), HEAP.next());
+                }
+                assertEquals(expected.size(), HEAP.size());
+            }
+            while (HEAP.hasWork()) {
+                assertEquals(expected.poll(), HEAP.next());
+            }
+            assertThrows(NoSuchElementException.class, HEAP::next);
+            assertThrows(NoSuchElementException.class, HEAP::peek);
+        }
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_heapify_fromArray_sortedOutput() {
+        Random random = new Random(42);
+        for (int n = 0; n < 200; n++) {
+            Integer[] elements = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                elements[i] = random.nextInt(50);
+            }
+            DAryHeap<Integer> HEAP = new DAryHeap<>(elements, 4, Comparator.reverseOrder());
+
+            assertEquals(n, HEAP.size());
+            int last = Integer.MAX_VALUE;
+            while (HEAP.hasWork()) {
+                int next = HEAP.next();
+                assertTrue(next <= last);
+                last = next;
+            }
+        }
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_indexedHeap_decreaseKeyRemove_correctOrder() {
+        IndexedDAryHeap<Integer> HEAP = new IndexedDAryHeap<>();
+        List<IndexedDAryHeap.Handle<Integer>> handles = new ArrayList<>();
+        PriorityQueue<Integer> expected = new PriorityQueue<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 2000; i++) {
+            handles.add(HEAP.insert(1000 + i));
+        }
+        for (IndexedDAryHeap.Handle<Integer> handle : handles) {
+            int op = random.nextInt(3);
+            if (op == 0) {
+                assertTrue(HEAP.remove(handle));
+                assertFalse(handle.isQueued());
+                assertFalse(HEAP.remove(handle));
+            } else if (op == 1) {
+                int smaller = random.nextInt(handle.get() + 1);
+                HEAP.decreaseKey(handle, smaller);
+                expected.add(smaller);
+            } else {
+                expected.add(handle.get());
+            }
+        }
+        IndexedDAryHeap.Handle<Integer> fresh = HEAP.insert(5);
+        expected.add(5);
+        assertThrows(IllegalArgumentException.class, () -> HEAP.decreaseKey(fresh, 6));
+        assertEquals(expected.size(), HEAP.size());
+        while (HEAP.hasWork()) {
+            assertEquals(expected.poll(), HEAP.next());
+        }
+        assertThrows(NoSuchElementException.class, () -> HEAP.decreaseKey(handles.get(0), 0));
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_intHeap_equalPriorities_sameOrderAsDAryHeap() {
+        Random random = new Random(1);
+        int n = 1000;
+        int[] values = new int[n];
+        int[] priorities = new int[n];
+        long[][] pairs = new long[n][];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+            priorities[i] = random.nextInt(20);
+            pairs[i] = new long[]{priorities[i], i};
+        }
+
+        IntDAryHeap HEAP = new IntDAryHeap(4, 0);
+        HEAP.heapify(values, priorities, n);
+        DAryHeap<long[]> expected = new DAryHeap<>(pairs, 4, Comparator.comparingLong(pair -> pair[0]));
+
+        // Mix adds in, so sift up is compared as well
+        for (int i = 0; i < 3 * n; i++) {
+            if (i % 3 == 0) {
+                int priority = random.nextInt(20);
+                HEAP.add(n + i, priority);
+                expected.add(new long[]{priority, n + i});
+            } else {
+                assertEquals(expected.peek()[0], HEAP.peekPriority());
+                assertEquals(expected.next()[1], HEAP.nextValue());
+            }
+        }
+        while (HEAP.hasWork()) {
+            assertEquals(expected.next()[1], HEAP.nextValue());
+        }
+        assertFalse(expected.hasWork());
+    }
+}
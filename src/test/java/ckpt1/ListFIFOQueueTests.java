@@ -0,0 +1,76 @@
+package ckpt1;
+
+import cse332.interfaces.worklists.WorkList;
+import datastructures.worklists.ListFIFOQueue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ListFIFOQueueTests {
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_addNext_manyChunks_correctOrder() {
+        WorkList<Integer> QUEUE = new ListFIFOQueue<>();
+
+        for (int i = 0; i < 1000; i++) {
+            QUEUE.add(i);
+            assertEquals(0, QUEUE.peek());
+        }
+        assertEquals(1000, QUEUE.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, QUEUE.peek());
+            assertEquals(i, QUEUE.next());
+        }
+        assertFalse(QUEUE.hasWork());
+        assertThrows(NoSuchElementException.class, QUEUE::peek);
+        assertThrows(NoSuchElementException.class, QUEUE::next);
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_addNext_interleaved_reusesChunks() {
+        WorkList<Integer> QUEUE = new ListFIFOQueue<>();
+        int added = 0;
+        int taken = 0;
+
+        // Keep between 0 and a few hundred elements, crossing chunk ends in both directions
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 37 + round * 3; i++) {
+                QUEUE.add(added++);
+            }
+            for (int i = 0; i < 30 + round * 3 && QUEUE.hasWork(); i++) {
+                assertEquals(taken++, QUEUE.next());
+            }
+            assertEquals(added - taken, QUEUE.size());
+        }
+        while (QUEUE.hasWork()) {
+            assertEquals(taken++, QUEUE.next());
+        }
+        assertEquals(added, taken);
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_clear_nonEmpty_behavesLikeNew() {
+        WorkList<String> QUEUE = new ListFIFOQueue<>();
+
+        for (int i = 0; i < 200; i++) {
+            QUEUE.add("a" + i);
+        }
+        QUEUE.next();
+        QUEUE.clear();
+        assertEquals(0, QUEUE.size());
+        assertFalse(QUEUE.hasWork());
+        assertThrows(NoSuchElementException.class, QUEUE::next);
+
+        QUEUE.add("b");
+        QUEUE.add(null);
+        assertEquals("b", QUEUE.next());
+        assertNull(QUEUE.next());
+        assertFalse(QUEUE.hasWork());
+    }
+}
@@ -0,0 +1,263 @@
+package ckpt1;
+
+import cse332.scheduling.WorkStealingDeque;
+import cse332.scheduling.WorkStealingExecutor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkStealingExecutorTests {
+    private static final int THIEVES = 3;
+    private static final int TOTAL = 200000;
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_deque_ownerLifo_thiefFifo() {
+        WorkStealingDeque<Integer> DEQUE = new WorkStealingDeque<>();
+        assertFalse(DEQUE.hasWork());
+        assertNull(DEQUE.poll());
+        assertNull(DEQUE.steal());
+        assertThrows(NoSuchElementException.class, DEQUE::peek);
+        assertThrows(NoSuchElementException.class, DEQUE::next);
+        assertThrows(NullPointerException.class, () -> DEQUE.add(null));
+
+        // More than the initial capacity, so the deque grows
+        for (int i = 0; i < 1000; i++) {
+            DEQUE.add(i);
+            assertEquals(i + 1, DEQUE.size());
+            assertEquals(i, DEQUE.peek());
+        }
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, DEQUE.steal());
+            assertEquals(999 - i, DEQUE.next());
+        }
+        assertFalse(DEQUE.hasWork());
+        assertNull(DEQUE.steal());
+
+        DEQUE.add(1);
+        DEQUE.add(2);
+        DEQUE.clear();
+        assertEquals(0, DEQUE.size());
+        assertThrows(NoSuchElementException.class, DEQUE::next);
+    }
+
+    @Test()
+    @Timeout(value = 30000, unit = TimeUnit.MILLISECONDS)
+    public void test_deque_stress_everyElementOnce() throws InterruptedException {
+        WorkStealingDeque<Integer> DEQUE = new WorkStealingDeque<>();
+        AtomicInteger[] seen = new AtomicInteger[TOTAL];
+        for (int i = 0; i < TOTAL; i++) {
+            seen[i] = new AtomicInteger();
+        }
+        AtomicInteger taken = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+
+        // The owner adds in bursts and takes some back, so the thieves meet
+        // it at the last element and while it grows
+        threads.add(new Thread(() -> {
+            int next = 0;
+            while (next < TOTAL) {
+                for (int i = 0; i < 64 && next < TOTAL; i++) {
+                    DEQUE.add(next++);
+                }
+                for (int i = 0; i < 48; i++) {
+                    Integer work = DEQUE.poll();
+                    if (work == null) {
+                        break;
+                    }
+                    seen[work].incrementAndGet();
+                    taken.incrementAndGet();
+                }
+            }
+            for (Integer work = DEQUE.poll(); work != null; work = DEQUE.poll()) {
+                seen[work].incrementAndGet();
+                taken.incrementAndGet();
+            }
+        }));
+        for (int t = 0; t < THIEVES; t++) {
+            threads.add(new Thread(() -> {
+                while (taken.get() < TOTAL) {
+                    Integer work = DEQUE.steal();
+                    if (work == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    seen[work].incrementAndGet();
+                    taken.incrementAndGet();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        threads.get(0).join();
+        // The thieves may still finish the last steals
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+
+        assertEquals(TOTAL, taken.get());
+        for (int i = 0; i < TOTAL; i++) {
+            assertEquals(1, seen[i].get(), "element " + i);
+        }
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_execute_externalTasks_eachRunOnce() throws InterruptedException {
+        WorkStealingExecutor EXECUTOR = new WorkStealingExecutor(4);
+        assertEquals(4, EXECUTOR.getParallelism());
+        assertThrows(NullPointerException.class, () -> EXECUTOR.execute(null));
+
+        int n = 10000;
+        AtomicInteger[] runs = new AtomicInteger[n];
+        for (int i = 0; i < n; i++) {
+            runs[i] = new AtomicInteger();
+            AtomicInteger run = runs[i];
+            EXECUTOR.execute(run::incrementAndGet);
+        }
+        EXECUTOR.shutdown();
+        assertTrue(EXECUTOR.isShutdown());
+        assertThrows(RejectedExecutionException.class, () -> EXECUTOR.execute(() -> { }));
+        assertTrue(EXECUTOR.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(EXECUTOR.isTerminated());
+
+        long completed = 0;
+        for (int w = 0; w < 4; w++) {
+            assertEquals(0, EXECUTOR.getQueueDepth(w));
+            completed += EXECUTOR.getCompletedCount(w);
+        }
+        assertEquals(n, completed);
+        assertEquals(0, EXECUTOR.getSubmissionQueueDepth());
+        for (int i = 0; i < n; i++) {
+            assertEquals(1, runs[i].get(), "task " + i);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new WorkStealingExecutor(0));
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_execute_blockedWorker_othersSteal() throws InterruptedException {
+        WorkStealingExecutor EXECUTOR = new WorkStealingExecutor(3);
+        int n = 100;
+        CountDownLatch done = new CountDownLatch(n);
+        AtomicInteger depth = new AtomicInteger();
+
+        // The subtasks go to the deque of the worker running the root task,
+        // which blocks until they are done, so the other workers must steal
+        // every one of them
+        EXECUTOR.execute(() -> {
+            for (int i = 0; i < n; i++) {
+                EXECUTOR.execute(done::countDown);
+            }
+            int queued = 0;
+            for (int w = 0; w < EXECUTOR.getParallelism(); w++) {
+                queued += EXECUTOR.getQueueDepth(w);
+            }
+            depth.set(queued);
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        EXECUTOR.shutdown();
+        assertTrue(EXECUTOR.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertTrue(depth.get() <= n);
+        long steals = 0;
+        for (int w = 0; w < EXECUTOR.getParallelism(); w++) {
+            steals += EXECUTOR.getStealCount(w);
+        }
+        assertEquals(n, steals);
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_execute_recursiveSplit_sumsEverything() throws InterruptedException {
+        WorkStealingExecutor EXECUTOR = new WorkStealingExecutor(4);
+        int n = 1 << 16;
+        AtomicInteger sum = new AtomicInteger();
+        CountDownLatch leaves = new CountDownLatch(n / 16);
+        EXECUTOR.execute(new Split(EXECUTOR, 0, n, sum, leaves));
+        assertTrue(leaves.await(5, TimeUnit.SECONDS));
+        EXECUTOR.shutdown();
+        assertTrue(EXECUTOR.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals((n - 1) * (n / 2), sum.get());
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_execute_throwingTask_workerKeepsRunning() throws InterruptedException {
+        WorkStealingExecutor EXECUTOR = new WorkStealingExecutor(1);
+        CountDownLatch done = new CountDownLatch(1);
+        List<Throwable> failures = new ArrayList<>();
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((t, e) -> {
+            synchronized (failures) {
+                failures.add(e);
+            }
+        });
+        try {
+            EXECUTOR.execute(() -> {
+                throw new IllegalStateException("expected");
+            });
+            EXECUTOR.execute(done::countDown);
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(previous);
+        }
+        EXECUTOR.shutdown();
+        assertTrue(EXECUTOR.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, EXECUTOR.getCompletedCount(0));
+        synchronized (failures) {
+            assertEquals(1, failures.size());
+            assertTrue(failures.get(0) instanceof IllegalStateException);
+        }
+    }
+
+    /**
+     * Adds up lo..hi-1 by splitting it in halves down to ranges of 16.
+     */
+    private static class Split implements Runnable {
+        private final WorkStealingExecutor executor;
+        private final int lo;
+        private final int hi;
+        private final AtomicInteger sum;
+        private final CountDownLatch leaves;
+
+        public Split(WorkStealingExecutor executor, int lo, int hi, AtomicInteger sum, CountDownLatch leaves) {
+            this.executor = executor;
+            this.lo = lo;
+            this.hi = hi;
+            this.sum = sum;
+            this.leaves = leaves;
+        }
+
+        @Override
+        public void run() {
+            if (this.hi - this.lo <= 16) {
+                int s = 0;
+                for (int i = this.lo; i < this.hi; i++) {
+                    s += i;
+                }
+                this.sum.addAndGet(s);
+                this.leaves.countDown();
+                return;
+            }
+            int mid = (this.lo + this.hi) >>> 1;
+            this.executor.execute(new Split(this.executor, this.lo, mid, this.sum, this.leaves));
+            this.executor.execute(new Split(this.executor, mid, this.hi, this.sum, this.leaves));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package cse332.jazzlib;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks Adler32 against java.util.zip.Adler32.
+ */
+public class Adler32Tests {
+    private static final int[] LENGTHS = {0, 1, 2, 15, 16, 17, 5551, 5552, 5553, 65521, 65522, 200000};
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_update_matchesJdk() {
+        for (int length : LENGTHS) {
+            byte[] data = random(length, length);
+            assertEquals(jdk(data, 0, length), adler(data, 0, length), "length " + length);
+        }
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_update_allOnes_noOverflow() {
+        /* 0xff bytes make the sums grow fastest between two modulos */
+        for (int length : LENGTHS) {
+            byte[] data = new byte[length];
+            Arrays.fill(data, (byte) 0xff);
+            assertEquals(jdk(data, 0, length), adler(data, 0, length), "length " + length);
+        }
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_update_singleBytesAndSlices() {
+        byte[] data = random(1, 10000);
+        Adler32 ADLER = new Adler32();
+        for (int i = 0; i < 100; i++)
+            ADLER.update(data[i]);
+        ADLER.update(data, 100, 7000);
+        ADLER.update(data, 7100, 0);
+        ADLER.update(data, 7100, data.length - 7100);
+        assertEquals(jdk(data, 0, data.length), ADLER.getValue());
+
+        ADLER.reset();
+        assertEquals(1, ADLER.getValue());
+    }
+
+    @Test()
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void test_combine_everySplit() {
+        byte[] data = random(2, 3000);
+        long whole = jdk(data, 0, data.length);
+        for (int split = 0; split <= data.length; split++) {
+            long first = jdk(data, 0, split);
+            long second = jdk(data, split, data.length - split);
+            assertEquals(whole, Adler32.combine(first, second, data.length - split), "split " + split);
+        }
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_combine_longParts() {
+        /* Parts longer than BASE, and of all-0xff bytes */
+        byte[] ones = new byte[300000];
+        Arrays.fill(ones, (byte) 0xff);
+        for (byte[] data : new byte[][]{random(3, 300000), ones}) {
+            long whole = jdk(data, 0, data.length);
+            for (int split : new int[]{1, 65520, 65521, 65522, 131042, 150000, 299999}) {
+                long first = jdk(data, 0, split);
+                long second = jdk(data, split, data.length - split);
+                assertEquals(whole, Adler32.combine(first, second, data.length - split), "split " + split);
+            }
+        }
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_combine_emptySecondPart() {
+        byte[] data = random(4, 1000);
+        long first = jdk(data, 0, data.length);
+        assertEquals(first, Adler32.combine(first, 1, 0));
+        assertEquals(first, Adler32.combine(1, first, data.length));
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_combine_negativeLength_throws() {
+        assertThrows(IllegalArgumentException.class, () -> Adler32.combine(1, 1, -1));
+    }
+
+    private static byte[] random(int seed, int length) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static long adler(byte[] data, int off, int len) {
+        Adler32 adler = new Adler32();
+        adler.update(data, off, len);
+        return adler.getValue();
+    }
+
+    private static long jdk(byte[] data, int off, int len) {
+        java.util.zip.Adler32 adler = new java.util.zip.Adler32();
+        adler.update(data, off, len);
+        return adler.getValue();
+    }
+}
@@ -0,0 +1,166 @@
+package cse332.jazzlib;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks CRC32 against java.util.zip.CRC32.
+ */
+public class CRC32Tests {
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_update_everyLengthAndOffset() {
+        byte[] data = random(0, 100);
+        for (int off = 0; off < 9; off++) {
+            for (int len = 0; off + len <= data.length; len++)
+                assertEquals(jdk(data, off, len), crc(data, off, len), "off " + off + " len " + len);
+        }
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_update_singleBytesAndSlices() {
+        byte[] data = random(1, 10000);
+        CRC32 CRC = new CRC32();
+        for (int i = 0; i < 100; i++)
+            CRC.update(data[i]);
+        CRC.update(data, 100, 7003);
+        CRC.update(data, 7103, 0);
+        CRC.update(data, 7103, data.length - 7103);
+        assertEquals(jdk(data, 0, data.length), CRC.getValue());
+
+        CRC.reset();
+        assertEquals(0, CRC.getValue());
+    }
+
+    @Test()
+    @Timeout(value = 5000, unit = TimeUnit.MILLISECONDS)
+    public void test_combine_everySplit() {
+        byte[] data = random(2, 3000);
+        long whole = jdk(data, 0, data.length);
+        for (int split = 0; split <= data.length; split++) {
+            long first = jdk(data, 0, split);
+            long second = jdk(data, split, data.length - split);
+            assertEquals(whole, CRC32.combine(first, second, data.length - split), "split " + split);
+        }
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_combine_longParts() {
+        byte[] data = random(3, 1 << 20);
+        long whole = jdk(data, 0, data.length);
+        for (int split : new int[]{1, 8, 4095, 65536, 500000, (1 << 20) - 1}) {
+            long first = jdk(data, 0, split);
+            long second = jdk(data, split, data.length - split);
+            assertEquals(whole, CRC32.combine(first, second, data.length - split), "split " + split);
+        }
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_combine_emptyParts() {
+        byte[] data = random(4, 1000);
+        long crc = jdk(data, 0, data.length);
+        assertEquals(crc, CRC32.combine(crc, 0, 0));
+        assertEquals(crc, CRC32.combine(0, crc, data.length));
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_combine_negativeLength_throws() {
+        assertThrows(IllegalArgumentException.class, () -> CRC32.combine(0, 0, -1));
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_updateByteBuffer_heapDirectAndReadOnly() {
+        byte[] data = random(5, 1000);
+        for (int off = 0; off < 9; off++) {
+            for (int len : new int[]{0, 1, 7, 8, 9, 63, 64, 65, 1000 - off}) {
+                long expected = jdk(data, off, len);
+                for (ByteBuffer buffer : buffers(data, off, len)) {
+                    CRC32 CRC = new CRC32();
+                    CRC.update(buffer);
+                    assertEquals(expected, CRC.getValue(), buffer + " off " + off + " len " + len);
+                    assertEquals(buffer.limit(), buffer.position());
+                }
+            }
+        }
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_updateByteBuffer_keepsByteOrder() {
+        byte[] data = random(6, 100);
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            for (ByteBuffer buffer : buffers(data, 3, 90)) {
+                buffer.order(order);
+                CRC32 CRC = new CRC32();
+                CRC.update(buffer);
+                assertEquals(order, buffer.order());
+                assertEquals(jdk(data, 3, 90), CRC.getValue());
+            }
+        }
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_updateByteBuffer_mixedWithArrays() {
+        byte[] data = random(7, 5000);
+        CRC32 CRC = new CRC32();
+        CRC.update(data, 0, 1001);
+        ByteBuffer direct = ByteBuffer.allocateDirect(2000);
+        direct.put(data, 1001, 2000).flip();
+        CRC.update(direct);
+        CRC.update(ByteBuffer.wrap(data, 3001, 1999));
+        assertEquals(jdk(data, 0, data.length), CRC.getValue());
+    }
+
+    /**
+     * Returns buffers whose remaining bytes are data[off..off+len): a
+     * wrapped array, a slice with an array offset, a direct buffer and a
+     * read-only heap buffer, which has no accessible array.
+     */
+    private static ByteBuffer[] buffers(byte[] data, int off, int len) {
+        ByteBuffer wrapped = ByteBuffer.wrap(data, off, len);
+
+        ByteBuffer slice = ByteBuffer.wrap(data);
+        slice.position(off);
+        slice = slice.slice();
+        slice.limit(len);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(len + 5);
+        direct.position(5);
+        direct.put(data, off, len);
+        direct.position(5);
+
+        ByteBuffer readOnly = ByteBuffer.wrap(data, off, len).asReadOnlyBuffer();
+        return new ByteBuffer[]{wrapped, slice, direct, readOnly};
+    }
+
+    private static byte[] random(int seed, int length) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static long crc(byte[] data, int off, int len) {
+        CRC32 crc = new CRC32();
+        crc.update(data, off, len);
+        return crc.getValue();
+    }
+
+    private static long jdk(byte[] data, int off, int len) {
+        java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+        crc.update(data, off, len);
+        return crc.getValue();
+    }
+}
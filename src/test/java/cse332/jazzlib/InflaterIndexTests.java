@@ -0,0 +1,261 @@
+package cse332.jazzlib;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Indexes gzip, zlib and raw deflate files written by java.util.zip, so
+ * that these tests don't depend on the output of our Deflater, and checks
+ * random seeks against the data that was compressed.
+ */
+public class InflaterIndexTests {
+    private static final int SPAN = 1 << 16;
+    private static final byte[] DATA = content(0, 1 << 20);
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_build_checkpointsEverySpan() throws IOException {
+        File file = write(gzip(DATA));
+        try {
+            InflaterIndex INDEX = InflaterIndex.build(file, SPAN);
+            assertEquals(SPAN, INDEX.getSpan());
+            assertEquals(file.length(), INDEX.getCompressedSize());
+            assertEquals(DATA.length, INDEX.getUncompressedSize());
+            assertTrue(INDEX.getCheckpointCount() > 1);
+            assertTrue(INDEX.getCheckpointCount() <= DATA.length / SPAN + 1);
+
+            /* The first checkpoint is the start of the stream */
+            assertEquals(0, INDEX.checkpoints[0].out);
+            long last = -SPAN;
+            for (InflaterIndex.Checkpoint checkpoint : INDEX.checkpoints) {
+                assertTrue(checkpoint.out >= last + SPAN);
+                assertTrue(checkpoint.out < DATA.length);
+                assertTrue(checkpoint.window.length <= 1 << 15);
+                byte[] before = Arrays.copyOfRange(DATA,
+                        (int) checkpoint.out - checkpoint.window.length, (int) checkpoint.out);
+                assertArrayEquals(before, checkpoint.window);
+                last = checkpoint.out;
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_build_badSpan_throws() throws IOException {
+        File file = write(gzip(DATA));
+        try {
+            assertThrows(IllegalArgumentException.class, () -> InflaterIndex.build(file, 0));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_sidecar_writeThenRead_sameIndex() throws IOException {
+        File file = write(gzip(DATA));
+        File sidecar = new File(file.getPath() + ".idx");
+        try {
+            InflaterIndex INDEX = InflaterIndex.build(file, SPAN);
+            INDEX.write(sidecar);
+            InflaterIndex READ = InflaterIndex.read(sidecar);
+
+            assertEquals(INDEX.format, READ.format);
+            assertEquals(INDEX.getSpan(), READ.getSpan());
+            assertEquals(INDEX.getCompressedSize(), READ.getCompressedSize());
+            assertEquals(INDEX.getUncompressedSize(), READ.getUncompressedSize());
+            assertEquals(INDEX.getCheckpointCount(), READ.getCheckpointCount());
+            for (int i = 0; i < INDEX.getCheckpointCount(); i++) {
+                assertEquals(INDEX.checkpoints[i].out, READ.checkpoints[i].out);
+                assertEquals(INDEX.checkpoints[i].bitPos, READ.checkpoints[i].bitPos);
+                assertArrayEquals(INDEX.checkpoints[i].window, READ.checkpoints[i].window);
+            }
+            checkSeeks(file, READ, 1);
+        } finally {
+            file.delete();
+            sidecar.delete();
+        }
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_sidecar_notAnIndex_throws() throws IOException {
+        File sidecar = write("not an index".getBytes(StandardCharsets.US_ASCII));
+        try {
+            assertThrows(ZipException.class, () -> InflaterIndex.read(sidecar));
+        } finally {
+            sidecar.delete();
+        }
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_open_indexOfOtherFile_throws() throws IOException {
+        File file = write(gzip(DATA));
+        File other = write(gzip(content(1, 1000)));
+        try {
+            InflaterIndex INDEX = InflaterIndex.build(file, SPAN);
+            assertThrows(ZipException.class, () -> new IndexedInflaterInputStream(other, INDEX));
+        } finally {
+            file.delete();
+            other.delete();
+        }
+    }
+
+    @Test()
+    @Timeout(value = 20000, unit = TimeUnit.MILLISECONDS)
+    public void test_seek_gzip_random() throws IOException {
+        File file = write(gzip(DATA));
+        try {
+            checkSeeks(file, InflaterIndex.build(file, SPAN), 2);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test()
+    @Timeout(value = 20000, unit = TimeUnit.MILLISECONDS)
+    public void test_seek_multiMemberGzip_random() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int third = DATA.length / 3;
+        out.write(gzip(Arrays.copyOfRange(DATA, 0, third)));
+        out.write(gzip(Arrays.copyOfRange(DATA, third, 2 * third)));
+        out.write(gzip(Arrays.copyOfRange(DATA, 2 * third, DATA.length)));
+        File file = write(out.toByteArray());
+        try {
+            InflaterIndex INDEX = InflaterIndex.build(file, SPAN);
+            assertEquals(DATA.length, INDEX.getUncompressedSize());
+            checkSeeks(file, INDEX, 3);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test()
+    @Timeout(value = 20000, unit = TimeUnit.MILLISECONDS)
+    public void test_seek_zlib_random() throws IOException {
+        File file = write(deflate(DATA, false));
+        try {
+            checkSeeks(file, InflaterIndex.build(file, SPAN), 4);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test()
+    @Timeout(value = 20000, unit = TimeUnit.MILLISECONDS)
+    public void test_seek_raw_random() throws IOException {
+        File file = write(deflate(DATA, true));
+        try {
+            checkSeeks(file, InflaterIndex.build(file, SPAN), 5);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_seek_pastEnd_endOfStream() throws IOException {
+        File file = write(gzip(DATA));
+        try (IndexedInflaterInputStream IN = new IndexedInflaterInputStream(file,
+                InflaterIndex.build(file, SPAN))) {
+            IN.seek(DATA.length + 100L);
+            assertEquals(-1, IN.read());
+            IN.seek(DATA.length - 1);
+            assertEquals(DATA[DATA.length - 1] & 0xff, IN.read());
+            assertEquals(-1, IN.read());
+            assertThrows(IllegalArgumentException.class, () -> IN.seek(-1));
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Reads the whole file front to back, then seeks to random places,
+     * forward and back, and reads a little at each.
+     */
+    private static void checkSeeks(File file, InflaterIndex index, int seed) throws IOException {
+        Random random = new Random(seed);
+        try (IndexedInflaterInputStream IN = new IndexedInflaterInputStream(file, index)) {
+            assertEquals(DATA.length, IN.size());
+            assertArrayEquals(DATA, readFully(IN, DATA.length + 1));
+
+            for (int i = 0; i < 100; i++) {
+                int pos = random.nextInt(DATA.length);
+                int len = Math.min(random.nextInt(5000) + 1, DATA.length - pos);
+                IN.seek(pos);
+                assertEquals(pos, IN.position());
+                assertArrayEquals(Arrays.copyOfRange(DATA, pos, pos + len), readFully(IN, len),
+                        "at " + pos);
+                assertEquals(pos + len, IN.position());
+            }
+
+            IN.seek(0);
+            assertEquals(SPAN, IN.skip(SPAN));
+            assertEquals(DATA[SPAN] & 0xff, IN.read());
+        }
+    }
+
+    private static byte[] readFully(IndexedInflaterInputStream in, int len) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4099];
+        while (out.size() < len) {
+            int count = in.read(buf, 0, Math.min(buf.length, len - out.size()));
+            if (count < 0)
+                break;
+            out.write(buf, 0, count);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Text of words that compresses about as well as a log file.
+     */
+    private static byte[] content(int seed, int length) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < length)
+            text.append("line ").append(text.length()).append(" word ").append(random.nextInt(5000)).append('\n');
+        return text.substring(0, length).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream GZIP = new GZIPOutputStream(out)) {
+            GZIP.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data, boolean nowrap) {
+        java.util.zip.Deflater def = new java.util.zip.Deflater(6, nowrap);
+        def.setInput(data);
+        def.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[1 << 16];
+        while (!def.finished())
+            out.write(buf, 0, def.deflate(buf));
+        def.end();
+        return out.toByteArray();
+    }
+
+    private static File write(byte[] data) throws IOException {
+        File file = File.createTempFile("indexed", ".gz");
+        Files.write(file.toPath(), data);
+        return file;
+    }
+}
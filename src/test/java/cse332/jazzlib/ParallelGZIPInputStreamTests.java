@@ -0,0 +1,190 @@
+package cse332.jazzlib;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads gzip files whose members were written by java.util.zip, so that
+ * these tests don't depend on the output of our Deflater.  Small member
+ * buffers make the reading thread inflate the rest of large members.
+ */
+public class ParallelGZIPInputStreamTests {
+    private static final byte[] FAKE_HEADER = {0x1f, (byte) 0x8b, 8, 0};
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_singleMember_roundTrip() throws IOException {
+        byte[] data = content(0, 100000);
+        assertArrayEquals(data, readAll(gzip(data, 6), 1 << 20));
+    }
+
+    @Test()
+    @Timeout(value = 20000, unit = TimeUnit.MILLISECONDS)
+    public void test_manyMembers_readInFileOrder() throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < 40; i++) {
+            byte[] data = content(i, 1000 + 997 * i);
+            file.write(gzip(data, 6));
+            expected.write(data);
+        }
+        assertArrayEquals(expected.toByteArray(), readAll(file.toByteArray(), 1 << 20));
+        assertArrayEquals(expected.toByteArray(), readAll(file.toByteArray(), 1000));
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_emptyMembers_skipped() throws IOException {
+        byte[] data = content(1, 5000);
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(gzip(new byte[0], 6));
+        file.write(gzip(data, 6));
+        file.write(gzip(new byte[0], 6));
+        assertArrayEquals(data, readAll(file.toByteArray(), 1 << 20));
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_emptyFile_endOfStream() throws IOException {
+        assertArrayEquals(new byte[0], readAll(new byte[0], 1 << 20));
+        assertArrayEquals(new byte[0], readAll(gzip(new byte[0], 6), 1 << 20));
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_fakeHeadersInsideMembers_dropped() throws IOException {
+        /* Stored blocks keep the header bytes and a whole gzip member in
+         * the compressed data, so the scan finds candidates inside.
+         */
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        raw.write(content(2, 3000));
+        raw.write(FAKE_HEADER);
+        raw.write(content(3, 3000));
+        raw.write(gzip(content(4, 2000), 6));
+        raw.write(FAKE_HEADER);
+        byte[] data = raw.toByteArray();
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < 3; i++) {
+            file.write(gzip(data, 0));
+            expected.write(data);
+        }
+        assertArrayEquals(expected.toByteArray(), readAll(file.toByteArray(), 1 << 20));
+        assertArrayEquals(expected.toByteArray(), readAll(file.toByteArray(), 512));
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_trailingGarbage_ignored() throws IOException {
+        byte[] data = content(5, 20000);
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        file.write(gzip(data, 6));
+        file.write(gzip(data, 1));
+        file.write("not a gzip member".getBytes(StandardCharsets.US_ASCII));
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(data);
+        expected.write(data);
+        assertArrayEquals(expected.toByteArray(), readAll(file.toByteArray(), 1 << 20));
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_notGzip_throws() throws IOException {
+        byte[] file = "this is not a gzip file at all".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(ZipException.class, () -> readAll(file, 1 << 20));
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_badCrc_throws() throws IOException {
+        byte[] second = gzip(content(7, 20000), 6);
+        second[second.length - 8] ^= 1;
+        byte[] file = concat(gzip(content(6, 20000), 6), second);
+        assertThrows(ZipException.class, () -> readAll(file, 1 << 20));
+        assertThrows(ZipException.class, () -> readAll(file, 1000));
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_badSize_throws() throws IOException {
+        byte[] second = gzip(content(9, 20000), 6);
+        second[second.length - 4] ^= 1;
+        byte[] file = concat(gzip(content(8, 20000), 6), second);
+        assertThrows(ZipException.class, () -> readAll(file, 1 << 20));
+    }
+
+    @Test()
+    @Timeout(value = 10000, unit = TimeUnit.MILLISECONDS)
+    public void test_truncatedMember_throws() throws IOException {
+        byte[] member = gzip(content(10, 20000), 6);
+        byte[] file = Arrays.copyOf(member, member.length / 2);
+        assertThrows(IOException.class, () -> readAll(file, 1 << 20));
+    }
+
+    private static byte[] content(int seed, int length) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < length)
+            text.append("member ").append(seed).append(" word ").append(random.nextInt(500)).append('\n');
+        return text.substring(0, length).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] gzip(byte[] data, int level) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream GZIP = new GZIPOutputStream(out) {
+            {
+                this.def.setLevel(level);
+            }
+        }) {
+            GZIP.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    /**
+     * Writes file to a temporary file and reads it back in odd-sized
+     * pieces through a ParallelGZIPInputStream on three threads.
+     */
+    private static byte[] readAll(byte[] file, int memberBuffer) throws IOException {
+        File tmp = File.createTempFile("parallel", ".gz");
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Files.write(tmp.toPath(), file);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (InputStream IN = new ParallelGZIPInputStream(tmp, executor, memberBuffer)) {
+                byte[] buf = new byte[777];
+                int len;
+                while ((len = IN.read(buf)) > 0)
+                    out.write(buf, 0, len);
+                assertEquals(-1, IN.read());
+            }
+            return out.toByteArray();
+        } finally {
+            executor.shutdownNow();
+            tmp.delete();
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package cse332.jazzlib;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips of archives that need ZIP64: more than 65535 entries, and
+ * entries and offsets past 4 GiB.  The large entries come from sparse files
+ * of zeros, so they take little time to make, but the archives are written
+ * out in full, which takes about 4 GiB of temporary disk space each.  Those
+ * tests are tagged "large", and `gradle test` only runs them with -Plarge.
+ * <p>
+ * Only STORED entries and data deflated by java.util.zip are written, all
+ * through the raw entry methods, so that these tests don't depend on the
+ * output of our Deflater.  Every ZipOutputStream still sets one up, though,
+ * and its suffix trie needs a working HashTrieMap.
+ */
+public class Zip64Tests {
+    private static final int MANY = 70000;
+    private static final long BIG = (1L << 32) + 12345;
+
+    @Test()
+    @Timeout(value = 60000, unit = TimeUnit.MILLISECONDS)
+    public void test_manyEntries_over65535_readBackByAllReaders() throws IOException {
+        File dir = Files.createTempDirectory("zip64").toFile();
+        try {
+            File zip = new File(dir, "many.zip");
+            try (ZipOutputStream ZIP = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zip)))) {
+                for (int i = 0; i < MANY; i++) {
+                    byte[] data = content(i);
+                    ZipEntry entry = new ZipEntry("e" + i);
+                    entry.setMethod(ZipOutputStream.STORED);
+                    entry.setSize(data.length);
+                    entry.setCompressedSize(data.length);
+                    entry.setCrc(crc(data));
+                    ZIP.putCompressedEntry(entry, new ByteArrayInputStream(data));
+                }
+            }
+            assertTrue(hasZip64End(zip));
+
+            ZipFile FILE = new ZipFile(zip);
+            try {
+                assertEquals(MANY, FILE.size());
+                for (int i = 0; i < MANY; i += 997) {
+                    assertArrayEquals(content(i), readAll(FILE.getInputStream(FILE.getEntry("e" + i))));
+                }
+                assertArrayEquals(content(MANY - 1), readAll(FILE.getInputStream(FILE.getEntry("e" + (MANY - 1)))));
+            } finally {
+                FILE.close();
+            }
+
+            try (ZipInputStream IN = new ZipInputStream(new BufferedInputStream(new FileInputStream(zip)))) {
+                int count = 0;
+                for (ZipEntry entry = IN.getNextEntry(); entry != null; entry = IN.getNextEntry()) {
+                    assertEquals("e" + count, entry.getName());
+                    assertArrayEquals(content(count), readAll(IN));
+                    count++;
+                }
+                assertEquals(MANY, count);
+            }
+
+            try (java.util.zip.ZipFile JDK = new java.util.zip.ZipFile(zip)) {
+                assertEquals(MANY, JDK.size());
+                for (int i = 0; i < MANY; i += 997) {
+                    try (InputStream in = JDK.getInputStream(JDK.getEntry("e" + i))) {
+                        assertArrayEquals(content(i), in.readAllBytes());
+                    }
+                }
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test()
+    @Tag("large")
+    @Timeout(value = 600000, unit = TimeUnit.MILLISECONDS)
+    public void test_storedEntryOver4GiB_sizesCrcAndOffsets() throws IOException {
+        File dir = Files.createTempDirectory("zip64").toFile();
+        try {
+            File sparse = new File(dir, "sparse.bin");
+            try (RandomAccessFile raf = new RandomAccessFile(sparse, "rw")) {
+                raf.setLength(BIG);
+            }
+            byte[] small = "after 4 GiB".getBytes(StandardCharsets.US_ASCII);
+            File smallFile = new File(dir, "small.txt");
+            Files.write(smallFile.toPath(), small);
+
+            // The second entry starts past 4 GiB, so its offset needs ZIP64 too
+            File zip = new File(dir, "big.zip");
+            try (FileChannel channel = FileChannel.open(zip.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ChannelZipWriter WRITER = new ChannelZipWriter(channel);
+                WRITER.setMethod(ZipOutputStream.STORED);
+                WRITER.add("big.bin", sparse);
+                WRITER.add("small.txt", smallFile);
+                WRITER.close();
+            }
+            assertTrue(zip.length() > BIG);
+            assertTrue(hasZip64End(zip));
+            long zerosCrc = zerosCrc(BIG);
+
+            ZipFile FILE = new ZipFile(zip);
+            try {
+                ZipEntry big = FILE.getEntry("big.bin");
+                assertEquals(BIG, big.getSize());
+                assertEquals(BIG, big.getCompressedSize());
+                assertEquals(zerosCrc, big.getCrc());
+                assertEquals(0, big.offset);
+                CRC32 crc = new CRC32();
+                assertEquals(BIG, drain(FILE.getInputStream(big), crc));
+                assertEquals(zerosCrc, crc.getValue());
+
+                ZipEntry after = FILE.getEntry("small.txt");
+                assertTrue(after.offset > BIG);
+                assertEquals(small.length, after.getSize());
+                assertArrayEquals(small, readAll(FILE.getInputStream(after)));
+            } finally {
+                FILE.close();
+            }
+
+            try (ZipInputStream IN = new ZipInputStream(new BufferedInputStream(new FileInputStream(zip), 1 << 16))) {
+                ZipEntry big = IN.getNextEntry();
+                assertEquals("big.bin", big.getName());
+                assertEquals(BIG, big.getSize());
+                assertEquals(BIG, drain(IN, null));
+                assertEquals("small.txt", IN.getNextEntry().getName());
+                assertArrayEquals(small, readAll(IN));
+                assertNull(IN.getNextEntry());
+            }
+
+            try (java.util.zip.ZipFile JDK = new java.util.zip.ZipFile(zip)) {
+                assertEquals(BIG, JDK.getEntry("big.bin").getSize());
+                assertEquals(zerosCrc, JDK.getEntry("big.bin").getCrc());
+                try (InputStream in = JDK.getInputStream(JDK.getEntry("small.txt"))) {
+                    assertArrayEquals(small, in.readAllBytes());
+                }
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test()
+    @Tag("large")
+    @Timeout(value = 600000, unit = TimeUnit.MILLISECONDS)
+    public void test_deflatedEntryOver4GiB_knownSizesAndDataDescriptor() throws IOException {
+        byte[] deflated = deflateZeros(BIG);
+        long zerosCrc = zerosCrc(BIG);
+        File dir = Files.createTempDirectory("zip64").toFile();
+        try {
+            // One entry with its sizes in the local header, one with them in
+            // a data descriptor after its data
+            File zip = new File(dir, "deflated.zip");
+            OutputStream raw = new BufferedOutputStream(new FileOutputStream(zip));
+            try (ZipOutputStream ZIP = new ZipOutputStream(raw)) {
+                ZipEntry known = new ZipEntry("known.bin");
+                known.setMethod(ZipOutputStream.DEFLATED);
+                known.setSize(BIG);
+                known.setCompressedSize(deflated.length);
+                known.setCrc(zerosCrc);
+                ZIP.putCompressedEntry(known, new ByteArrayInputStream(deflated));
+
+                ZipEntry described = new ZipEntry("described.bin");
+                described.setMethod(ZipOutputStream.DEFLATED);
+                ZIP.putRawEntry(described);
+                raw.write(deflated);
+                described.setSize(BIG);
+                described.setCompressedSize(deflated.length);
+                described.setCrc(zerosCrc);
+                ZIP.closeRawEntry();
+            }
+
+            ZipFile FILE = new ZipFile(zip);
+            try {
+                for (String name : new String[]{"known.bin", "described.bin"}) {
+                    ZipEntry entry = FILE.getEntry(name);
+                    assertEquals(BIG, entry.getSize());
+                    assertEquals(deflated.length, entry.getCompressedSize());
+                    assertEquals(zerosCrc, entry.getCrc());
+                    CRC32 crc = new CRC32();
+                    assertEquals(BIG, drain(FILE.getInputStream(entry), crc));
+                    assertEquals(zerosCrc, crc.getValue());
+                }
+            } finally {
+                FILE.close();
+            }
+
+            try (ZipInputStream IN = new ZipInputStream(new BufferedInputStream(new FileInputStream(zip), 1 << 16))) {
+                assertEquals("known.bin", IN.getNextEntry().getName());
+                assertEquals(BIG, drain(IN, null));
+                ZipEntry described = IN.getNextEntry();
+                assertEquals("described.bin", described.getName());
+                assertEquals(BIG, drain(IN, null));
+                // The data descriptor has 8 byte sizes
+                assertEquals(BIG, described.getSize());
+                assertEquals(deflated.length, described.getCompressedSize());
+                assertNull(IN.getNextEntry());
+            }
+
+            try (java.util.zip.ZipFile JDK = new java.util.zip.ZipFile(zip)) {
+                for (Enumeration<? extends java.util.zip.ZipEntry> e = JDK.entries(); e.hasMoreElements(); ) {
+                    java.util.zip.ZipEntry entry = e.nextElement();
+                    assertEquals(BIG, entry.getSize());
+                    assertEquals(zerosCrc, entry.getCrc());
+                }
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test()
+    @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
+    public void test_smallArchive_noZip64Records() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream ZIP = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < 100; i++) {
+                byte[] data = content(i);
+                ZipEntry entry = new ZipEntry("e" + i);
+                entry.setMethod(ZipOutputStream.STORED);
+                entry.setSize(data.length);
+                entry.setCompressedSize(data.length);
+                entry.setCrc(crc(data));
+                ZIP.putCompressedEntry(entry, new ByteArrayInputStream(data));
+            }
+        }
+        byte[] zip = bytes.toByteArray();
+
+        assertEquals(-1, indexOf(zip, ZipConstants.ZIP64_ENDSIG));
+        assertEquals(-1, indexOf(zip, ZipConstants.ZIP64_LOCSIG));
+        try (java.util.zip.ZipInputStream IN = new java.util.zip.ZipInputStream(new ByteArrayInputStream(zip))) {
+            int count = 0;
+            for (java.util.zip.ZipEntry entry = IN.getNextEntry(); entry != null; entry = IN.getNextEntry()) {
+                assertNull(entry.getExtra());
+                assertArrayEquals(content(count), IN.readAllBytes());
+                count++;
+            }
+            assertEquals(100, count);
+        }
+    }
+
+    private static byte[] content(int i) {
+        return ("entry " + i).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static long crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        return crc.getValue();
+    }
+
+    private static long zerosCrc(long length) {
+        java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+        byte[] zeros = new byte[1 << 20];
+        for (long left = length; left > 0; left -= zeros.length) {
+            crc.update(zeros, 0, (int) Math.min(left, zeros.length));
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Deflates length zeros with java.util.zip into a raw deflate stream.
+     */
+    private static byte[] deflateZeros(long length) {
+        java.util.zip.Deflater def = new java.util.zip.Deflater(9, true);
+        byte[] zeros = new byte[1 << 20];
+        byte[] buf = new byte[1 << 16];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (long left = length; left > 0; left -= zeros.length) {
+            def.setInput(zeros, 0, (int) Math.min(left, zeros.length));
+            while (!def.needsInput()) {
+                out.write(buf, 0, def.deflate(buf));
+            }
+        }
+        def.finish();
+        while (!def.finished()) {
+            out.write(buf, 0, def.deflate(buf));
+        }
+        def.end();
+        return out.toByteArray();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[4096];
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static long drain(InputStream in, CRC32 crc) throws IOException {
+        byte[] buf = new byte[1 << 16];
+        long total = 0;
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            if (crc != null) {
+                crc.update(buf, 0, n);
+            }
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * Returns true iff the end of zip has a ZIP64 end of central directory
+     * record and its locator.
+     */
+    private static boolean hasZip64End(File zip) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(zip, "r")) {
+            int tail = (int) Math.min(raf.length(), 1 << 16);
+            byte[] end = new byte[tail];
+            raf.seek(raf.length() - tail);
+            raf.readFully(end);
+            return indexOf(end, ZipConstants.ZIP64_ENDSIG) >= 0
+                    && indexOf(end, ZipConstants.ZIP64_LOCSIG) >= 0;
+        }
+    }
+
+    private static int indexOf(byte[] b, int signature) {
+        for (int i = 0; i + 4 <= b.length; i++) {
+            int value = (b[i] & 0xff) | (b[i + 1] & 0xff) << 8 | (b[i + 2] & 0xff) << 16 | (b[i + 3] & 0xff) << 24;
+            if (value == signature) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void delete(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+}